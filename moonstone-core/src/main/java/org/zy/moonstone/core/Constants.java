@@ -177,9 +177,34 @@ public final class Constants {
 
 
     /**
-     * GZIP filter 索引
+     * 输出 filter 库中第一个压缩编码 filter 的索引。其后依次为 {@link org.zy.moonstone.core.http.AbstractHttp11Protocol#getCompressionCodecs() }
+     * 返回的各压缩编码的 filter，顺序相同。通过 ServiceLoader 发现的编码排在内置的 gzip、deflate 之前，所以此索引不一定是 gzip
      */
-    public static final int GZIP_FILTER = 1;
+    public static final int COMPRESSION_FILTER = 1;
+
+
+    /**
+     * Identity input filter 索引
+     */
+    public static final int IDENTITY_INPUT_FILTER = 0;
+
+
+    /**
+     * Chunked input filter 索引
+     */
+    public static final int CHUNKED_INPUT_FILTER = 1;
+
+
+    /**
+     * Void input filter 索引
+     */
+    public static final int VOID_INPUT_FILTER = 2;
+
+
+    /**
+     * Buffered input filter 索引
+     */
+    public static final int BUFFERED_INPUT_FILTER = 3;
     
     /** "GET"的字节数组 */
     public static final byte[] HTTP_GET = "GET".getBytes();
@@ -161,6 +161,16 @@ public final class Globals {
      */
     public static final String  HTTP_DATE_FORMAT_CACHE_SIZE= "org.zy.moonstone.util.http.FastHttpDateFormat.CACHE_SIZE";
 
+    /**
+     * 请求映射结果缓存数，小于等于0则禁用缓存
+     */
+    public static final String  MAPPER_CACHE_SIZE= "org.zy.moonstone.mapper.Mapper.CACHE_SIZE";
+
+    /**
+     * Context 中使用路径段映射树匹配 Wrapper 的最小 Wrapper 数，小于等于0则禁用映射树
+     */
+    public static final String  MAPPER_WRAPPER_TREE_THRESHOLD= "org.zy.moonstone.mapper.Mapper.WRAPPER_TREE_THRESHOLD";
+
     
 	// --------------------------------------------------------------------------
 	// SSH
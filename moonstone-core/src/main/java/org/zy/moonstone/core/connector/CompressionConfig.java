@@ -1,14 +1,21 @@
 package org.zy.moonstone.core.connector;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zy.moonstone.core.http.DeflateCompressionCodec;
+import org.zy.moonstone.core.http.GzipCompressionCodec;
 import org.zy.moonstone.core.http.Request;
 import org.zy.moonstone.core.http.Response;
+import org.zy.moonstone.core.interfaces.http.CompressionCodec;
 import org.zy.moonstone.core.util.buf.MessageBytes;
 import org.zy.moonstone.core.util.http.MimeHeaders;
 import org.zy.moonstone.core.util.http.parser.AcceptEncoding;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.Map.Entry;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 
 /**
  * @dateTime 2022年11月28日;
@@ -16,9 +23,11 @@ import java.util.regex.Pattern;
  * @description
  */
 public class CompressionConfig {
-//    private static final Logger logger = LoggerFactory.getLogger(CompressionConfig.class);
+    private static final Logger logger = LoggerFactory.getLogger(CompressionConfig.class);
 
     private int compressionLevel = 0;
+    /** gzip 压缩使用的 Deflater 压缩级别，-1 为默认级别(6) */
+    private int deflateLevel = Deflater.DEFAULT_COMPRESSION;
     private Pattern noCompressionUserAgents = null;
     /** 需压缩的文件类型，以逗号相隔 */
     private String compressibleMimeType = "text/html,text/xml,text/plain,text/css,text/javascript,application/javascript,application/json,application/xml";
@@ -27,6 +36,12 @@ public class CompressionConfig {
     private int compressionMinSize = 2048;
     /** 不需要压缩处理的浏览器类型，以正则方式匹配userAgent */
     private boolean noCompressionStrongETag = true;
+    /** 按MIME类型指定的压缩级别，格式为 "MIME类型前缀=级别"，以逗号相隔 */
+    private String compressionLevels = null;
+    /** 已解析的按MIME类型指定的压缩级别，key为MIME类型前缀 */
+    private Map<String, Integer> mimeTypeCompressionLevels = Collections.emptyMap();
+    /** 可用的压缩编码，按服务端优先顺序排列，首次使用时加载 */
+    private volatile CompressionCodec[] compressionCodecs = null;
 
 
     /**
@@ -73,6 +88,22 @@ public class CompressionConfig {
         return compressionLevel;
     }
 
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    /**
+     * 设置 gzip 压缩使用的 Deflater 压缩级别。级别越低压缩越快，压缩率越低，对于 JSON 等文本通常 1~5 已能获得大部分压缩效果
+     *
+     * @param deflateLevel - 压缩级别，取值范围 -1~9，-1 为默认级别
+     */
+    public void setDeflateLevel(int deflateLevel) {
+        if (deflateLevel < Deflater.DEFAULT_COMPRESSION || deflateLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("deflateLevel 取值范围为 -1~9, by value: " + deflateLevel);
+        }
+        this.deflateLevel = deflateLevel;
+    }
+
     /**
      * 获取正则表达式的String形式，该表达式定义了不使用gzip的用户代理。
      *
@@ -134,6 +165,92 @@ public class CompressionConfig {
         return result;
     }
 
+    public String getCompressionLevels() {
+        return compressionLevels;
+    }
+
+    /**
+     * 按MIME类型设置压缩级别，如 <code>application/json=1,text/html=6</code>。以前缀匹配响应的Content-Type，先配置者优先。
+     * 级别的含义由压缩编码决定，未匹配的响应使用编码的默认级别
+     *
+     * @param compressionLevels - 以逗号相隔的 "MIME类型前缀=级别"
+     */
+    public void setCompressionLevels(String compressionLevels) {
+        Map<String, Integer> levels = new LinkedHashMap<>();
+        if (compressionLevels != null) {
+            StringTokenizer tokens = new StringTokenizer(compressionLevels, ",");
+            while (tokens.hasMoreTokens()) {
+                String token = tokens.nextToken().trim();
+                if (token.length() == 0) {
+                    continue;
+                }
+                int index = token.indexOf('=');
+                if (index <= 0) {
+                    throw new IllegalArgumentException("无效的压缩级别配置, by value: " + token);
+                }
+                levels.put(token.substring(0, index).trim(), Integer.valueOf(token.substring(index + 1).trim()));
+            }
+        }
+        this.compressionLevels = compressionLevels;
+        this.mimeTypeCompressionLevels = levels;
+    }
+
+    /**
+     * 获得给定内容类型的压缩级别
+     *
+     * @param contentType - 响应的Content-Type
+     * @return 按MIME类型指定的压缩级别，未指定则返回-1
+     */
+    public int getMimeTypeCompressionLevel(String contentType) {
+        if (contentType != null) {
+            for (Entry<String, Integer> entry : mimeTypeCompressionLevels.entrySet()) {
+                if (contentType.startsWith(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获得可用的压缩编码。通过 {@link ServiceLoader } 发现的编码在前，其后是内置的 gzip 与 deflate，
+     * 发现的编码与内置编码名称相同时替换内置编码
+     *
+     * @return 按服务端优先顺序排列的压缩编码
+     */
+    public CompressionCodec[] getCompressionCodecs() {
+        CompressionCodec[] result = compressionCodecs;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            if (compressionCodecs == null) {
+                Map<String, CompressionCodec> codecs = new LinkedHashMap<>();
+                try {
+                    for (CompressionCodec codec : ServiceLoader.load(CompressionCodec.class, CompressionCodec.class.getClassLoader())) {
+                        String encoding = codec.getEncoding().toLowerCase(Locale.ENGLISH);
+                        if (!codecs.containsKey(encoding)) {
+                            codecs.put(encoding, codec);
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("发现压缩编码, by encoding: {}, class: {}", encoding, codec.getClass().getName());
+                            }
+                        }
+                    }
+                } catch (ServiceConfigurationError e) {
+                    logger.warn("加载压缩编码失败, 忽略其余的扩展编码", e);
+                }
+                if (!codecs.containsKey("gzip")) {
+                    codecs.put("gzip", new GzipCompressionCodec());
+                }
+                if (!codecs.containsKey("deflate")) {
+                    codecs.put("deflate", new DeflateCompressionCodec());
+                }
+                compressionCodecs = codecs.values().toArray(new CompressionCodec[0]);
+            }
+            return compressionCodecs;
+        }
+    }
+
     public int getCompressionMinSize() {
         return compressionMinSize;
     }
@@ -148,17 +265,17 @@ public class CompressionConfig {
     }
 
     /**
-     * 确定是否应该为给定的响应启用压缩，如果是，设置任何必要的请求头将其标记为压缩。
+     * 确定是否应该为给定的响应启用压缩，如果是，按照请求的 Accept-Encoding 选择压缩编码并设置必要的响应头将其标记为压缩。
      *
      * @param request - 触发响应的请求
      * @param response - 考虑压缩的响应
      *
-     * @return 如果为给定响应启用了压缩，则为 {@code true}，否则为{@code false}
+     * @return 为给定响应选择的压缩编码，不压缩则为 {@code null}
      */
-    public boolean useCompression(Request request, Response response) {
+    public CompressionCodec useCompression(Request request, Response response) {
         // 检查是否启用压缩
         if (compressionLevel == 0) {
-            return false;
+            return null;
         }
 
         MimeHeaders responseHeaders = response.getMimeHeaders();
@@ -166,15 +283,13 @@ public class CompressionConfig {
         // 检查内容是否尚未压缩
         MessageBytes contentEncodingMB = responseHeaders.getValue("Content-Encoding");
         if (contentEncodingMB != null) {
-            // 内容编码值已排序，但顺序对于此检查并不重要，因此请使用Set而不是List
-            Set<String> tokens = new HashSet<>();
             String headerValue = responseHeaders.getHeaderValue( "Content-Encoding" );
             for (String token : headerValue.split(",")) {
-            	tokens.add(token.trim());
-            }
-            
-            if (tokens.contains("gzip") || tokens.contains("br")) {
-                return false;
+                // 除 identity 之外的任何编码都代表内容已被编码
+                token = token.trim();
+                if (token.length() > 0 && !"identity".equalsIgnoreCase(token)) {
+                    return null;
+                }
             }
         }
 
@@ -183,13 +298,13 @@ public class CompressionConfig {
             // 检查响应长度是否足以触发压缩
             long contentLength = response.getContentLengthLong();
             if (contentLength != -1 && contentLength < compressionMinSize) {
-                return false;
+                return null;
             }
 
             // 检查兼容的MIME-TYPE
             String[] compressibleMimeTypes = getCompressibleMimeTypes();
             if (compressibleMimeTypes != null && !startsWithStringArray(compressibleMimeTypes, response.getContentType())) {
-                return false;
+                return null;
             }
         }
 
@@ -201,38 +316,23 @@ public class CompressionConfig {
             String eTag = responseHeaders.getHeaderValue("ETag");
             if (eTag != null && !eTag.trim().startsWith("W/")) {
                 // 有一个ETag不是以“W/…”开始的，所以它一定是一个强ETag
-                return false;
+                return null;
             }
         }
 
         // 如果处理达到这个程度，响应可能会被压缩。因此，设置Vary报头以保持代理满意
-//        ResponseUtil.addVaryFieldName(responseHeaders, "accept-encoding");
-
-        /**
-         * 检查用户代理是否支持gzip编码。
-         * 只关心是否支持gzip编码。其他编码和权重可以忽略。
-         */
-        Enumeration<String> headerValues = request.getMimeHeaders().values("accept-encoding");
-        boolean foundGzip = false;
-        while (!foundGzip && headerValues.hasMoreElements()) {
-            List<AcceptEncoding> acceptEncodings = null;
-            try {
-                acceptEncodings = AcceptEncoding.parse(headerValues.nextElement());
-            } catch (IOException ioe) {
-                // 如果读取响应头时出现问题，需禁用压缩
-                return false;
-            }
+        addVaryAcceptEncoding(responseHeaders);
 
-            for (AcceptEncoding acceptEncoding : acceptEncodings) {
-                if ("gzip".equalsIgnoreCase(acceptEncoding.getEncoding())) {
-                    foundGzip = true;
-                    break;
-                }
-            }
+        // 按照 Accept-Encoding 的质量值选择压缩编码
+        CompressionCodec codec;
+        try {
+            codec = negotiate(request.getMimeHeaders().values("accept-encoding"));
+        } catch (IOException ioe) {
+            // 如果读取响应头时出现问题，需禁用压缩
+            return null;
         }
-
-        if (!foundGzip) {
-            return false;
+        if (codec == null) {
+            return null;
         }
 
         // 如果强制模式，则跳过浏览器检查
@@ -244,7 +344,7 @@ public class CompressionConfig {
                 if(userAgentValueMB != null) {
                     String userAgentValue = userAgentValueMB.toString();
                     if (noCompressionUserAgents.matcher(userAgentValue).matches()) {
-                        return false;
+                        return null;
                     }
                 }
             }
@@ -255,9 +355,63 @@ public class CompressionConfig {
         // 压缩内容的长度是未知的，所以要这样标记。
         response.setContentLength(-1);
         // 配置压缩后的内容编码
-        responseHeaders.setValue("Content-Encoding").setString("gzip");
+        responseHeaders.setValue("Content-Encoding").setString(codec.getEncoding());
 
-        return true;
+        return codec;
+    }
+
+    /**
+     * 选择客户端可接受的质量值最高的压缩编码，质量值相同时按服务端优先顺序选择。
+     * 未列出的编码使用 "*" 的质量值，未列出 "*" 则不可接受
+     *
+     * @param headerValues - 请求的所有 Accept-Encoding 请求头
+     * @return 选中的压缩编码，没有可接受的编码则返回 null
+     * @throws IOException - 如果解析请求头时出现问题
+     */
+    private CompressionCodec negotiate(Enumeration<String> headerValues) throws IOException {
+        Map<String, Double> qualities = new HashMap<>();
+        double wildcardQuality = 0;
+        while (headerValues.hasMoreElements()) {
+            for (AcceptEncoding acceptEncoding : AcceptEncoding.parse(headerValues.nextElement())) {
+                String encoding = acceptEncoding.getEncoding().toLowerCase(Locale.ENGLISH);
+                if ("*".equals(encoding)) {
+                    wildcardQuality = acceptEncoding.getQuality();
+                } else {
+                    qualities.put(encoding, acceptEncoding.getQuality());
+                }
+            }
+        }
+
+        CompressionCodec selected = null;
+        double selectedQuality = 0;
+        for (CompressionCodec codec : getCompressionCodecs()) {
+            // Accept-Encoding 中的编码已转为小写，编码名称不区分大小写
+            Double quality = qualities.get(codec.getEncoding().toLowerCase(Locale.ENGLISH));
+            double q = quality == null ? wildcardQuality : quality.doubleValue();
+            if (q > selectedQuality) {
+                selected = codec;
+                selectedQuality = q;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 将 accept-encoding 添加到 Vary 响应头，已包含该字段名或为 "*" 时不做修改
+     */
+    private static void addVaryAcceptEncoding(MimeHeaders responseHeaders) {
+        String vary = responseHeaders.getHeaderValue("Vary");
+        if (vary == null) {
+            responseHeaders.setValue("Vary").setString("accept-encoding");
+            return;
+        }
+        for (String token : vary.split(",")) {
+            token = token.trim();
+            if ("*".equals(token) || "accept-encoding".equalsIgnoreCase(token)) {
+                return;
+            }
+        }
+        responseHeaders.setValue("Vary").setString(vary + ",accept-encoding");
     }
 
     /**
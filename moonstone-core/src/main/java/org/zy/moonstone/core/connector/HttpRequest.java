@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.zy.moonstone.core.Globals;
 import org.zy.moonstone.core.exceptions.FileUploadException;
 import org.zy.moonstone.core.exceptions.InvalidContentTypeException;
+import org.zy.moonstone.core.exceptions.RequestBodyTooLargeException;
 import org.zy.moonstone.core.exceptions.SizeException;
 import org.zy.moonstone.core.filter.ApplicationFilterChain;
 import org.zy.moonstone.core.http.Parameters;
@@ -50,7 +51,6 @@ import java.security.Principal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Supplier;
 
 /**
  * @dateTime 2022年6月16日;
@@ -828,16 +828,9 @@ public class HttpRequest implements HttpServletRequest {
         }
 
         if (reader == null) {
-        	int contentLength = this.request.getContentLength();
-        	ByteBuffer byteBuffer = ByteBuffer.allocate(contentLength);
-        	
-        	Supplier<Byte> requestBodySupplier = this.request.getRequestBodySupplier();
-			for (int j = 0; j < contentLength; j++) {
-				byteBuffer.put( requestBodySupplier.get() );
-			}
-			
-			byteBuffer.flip(); // 切换为写模式
-            reader = new CharBufferReader(request.getCharset().decode(byteBuffer), request.getContentLength());
+        	// 批量读取请求体数据直至请求体读取完毕，请求体长度未知(分块传输)时同样适用
+        	byte[] requestBody = this.request.getRequestBodyByte();
+            reader = new CharBufferReader(request.getCharset().decode(ByteBuffer.wrap(requestBody)), Math.max(requestBody.length, 1));
             usingReader = true;
         }
         return reader;
@@ -2008,6 +2001,15 @@ public class HttpRequest implements HttpServletRequest {
         }
     }
     
+    /**
+     * 请求体超出 maxPostSize 时以 413 响应。请求体的剩余部分不再读取，{@link #finishRequest()} 会因此状态码关闭连接
+     */
+    private void postTooLarge() {
+        if (httpResponse != null && !httpResponse.isCommitted()) {
+            httpResponse.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        }
+    }
+
     /**
      * 在单个操作中执行刷新和关闭输入流或读取器所需的任何操作
      *
@@ -2082,18 +2084,31 @@ public class HttpRequest implements HttpServletRequest {
     		}
 
     		int len = getContentLength();
+    		int maxPostSize = connector.getMaxPostSize();
 
     		if (len > 0) {
-    			int maxPostSize = connector.getMaxPostSize();
     			if ((maxPostSize >= 0) && (len > maxPostSize)) {
     				Context context = getContext();
     				if (context != null && context.getLogger().isDebugEnabled()) {
     					context.getLogger().debug("请求体数据过大");
     				}
     				parameters.setParseFailedReason(FailReason.POST_TOO_LARGE);
+    				postTooLarge();
+    				return;
+    			}
+    			byte[] requestBody = readPostBody(parameters, maxPostSize);
+    			if (requestBody == null) {
+    				return;
+    			}
+    			parameters.processRequestBodyParameters( requestBody );
+    			success = true;
+    		} else if (len < 0 && "chunked".equalsIgnoreCase(getHeader("transfer-encoding"))) {
+    			// 分块传输的表单数据，长度只能在读取之后得知
+    			byte[] requestBody = readPostBody(parameters, maxPostSize);
+    			if (requestBody == null) {
     				return;
     			}
-    			parameters.processRequestBodyParameters( this.getRequest().getRequestBodyByte() );
+    			parameters.processRequestBodyParameters( requestBody );
     			success = true;
     		}
     	} finally {
@@ -2104,6 +2119,33 @@ public class HttpRequest implements HttpServletRequest {
 
     }
     
+    /**
+     * 读取表单请求体，超出 maxPostSize 时以 413 响应
+     *
+     * @param parameters - 记录解析失败原因的请求参数
+     * @param maxPostSize - 允许的最大请求体字节数，小于0则代表不限制
+     * @return 请求体数据，超出限制或读取失败时返回 null
+     */
+    private byte[] readPostBody(Parameters parameters, int maxPostSize) {
+    	try {
+    		return this.getRequest().getRequestBodyByte(maxPostSize);
+    	} catch (RequestBodyTooLargeException e) {
+    		Context context = getContext();
+    		if (context != null && context.getLogger().isDebugEnabled()) {
+    			context.getLogger().debug("请求体数据过大");
+    		}
+    		parameters.setParseFailedReason(FailReason.POST_TOO_LARGE);
+    		postTooLarge();
+    	} catch (IOException e) {
+    		Context context = getContext();
+    		if (context != null && context.getLogger().isDebugEnabled()) {
+    			context.getLogger().debug("读取请求体数据失败", e);
+    		}
+    		parameters.setParseFailedReason(FailReason.CLIENT_DISCONNECT);
+    	}
+    	return null;
+    }
+
     /**
      * Parse request locales.
      */
@@ -8,8 +8,10 @@ import org.zy.moonstone.core.interfaces.connector.Adapter;
 import org.zy.moonstone.core.interfaces.container.Context;
 import org.zy.moonstone.core.interfaces.container.Wrapper;
 import org.zy.moonstone.core.session.SessionConfig;
+import org.zy.moonstone.core.util.buf.ByteChunk;
 import org.zy.moonstone.core.util.buf.CharChunk;
 import org.zy.moonstone.core.util.buf.MessageBytes;
+import org.zy.moonstone.core.util.buf.UDecoder;
 import org.zy.moonstone.core.util.http.ActionCode;
 import org.zy.moonstone.core.util.http.ServerCookie;
 import org.zy.moonstone.core.util.http.ServerCookies;
@@ -22,6 +24,7 @@ import javax.servlet.ServletException;
 import javax.servlet.SessionTrackingMode;
 import java.io.IOException;
 import java.net.URLDecoder;
+import java.nio.charset.Charset;
 import java.util.EnumSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -36,6 +39,9 @@ public class MoonAdapter implements Adapter {
     private static final EnumSet<SessionTrackingMode> SSL_ONLY = EnumSet.of(SessionTrackingMode.SSL);
 	
     public static final int ADAPTER_NOTES = 1;
+
+    /** 路径参数的结束字节 */
+    private static final byte[] SEMICOLON_SLASH = new byte[] { (byte) ';', (byte) '/' };
     
     /**
      * 与此处理器关联的 Connector
@@ -214,21 +220,21 @@ public class MoonAdapter implements Adapter {
 
 		MessageBytes decodedURI = request.decodedURI();
 		if (undecodedURI.getType() == MessageBytes.T_BYTES) {
-			// 将原始URI复制到decodedURI中
+			// 将原始URI复制到decodedURI中，之后的解码与规范化都在其字节块上原地进行
 			decodedURI.duplicate(undecodedURI);
 
+			// 解析并移除路径参数，需在解码之前进行以免将编码的 ';' 视为参数分隔符
+			parsePathParameters(request, httpRequest);
+
 			try { // URI解码
-				decodedURI.setString( URLDecoder.decode(decodedURI.toString(), decodedURI.getCharset().name()));
+				UDecoder.convert(decodedURI.getByteChunk());
 			} catch (IOException ioe) {
 				httpResponse.sendError(400, "Invalid URI: " + ioe.getMessage());
 			}
 
-			if (!normalize(request.decodedURI())) {
+			if (!normalize(decodedURI)) {
 				httpResponse.sendError(400, "Invalid URI");
 			}
-			
-			// 解析路径参数
-			parsePathParameters(request, httpRequest);
 		} else {
 			/*
 			 * URI 是字符或字符串，并且已使用内存中协议处理程序发送。 做出以下假设：
@@ -405,113 +411,130 @@ public class MoonAdapter implements Adapter {
 	}
 	
 	/**
-     * 此方法规范化“\”、“//”、“/./”和“/../”，将其替换为 "/"
+     * 此方法在 URI 的字节块上原地规范化“\”、“//”、“/./”和“/../”，将其替换为 "/"
      *
-     * @param uriMB - 要规范化的 URI
-     * @return 如果规范化的字符串是空串或不以"/"开头则返回 <code>false</code>，反之则为 <code>true</code>
+     * @param uriMB - 要规范化的 URI，类型应为 {@link MessageBytes#T_BYTES }
+     * @return 如果 URI 是空串、不以"/"开头、包含空字符或试图越过根路径则返回 <code>false</code>，反之则为 <code>true</code>
      */
     public static boolean normalize(MessageBytes uriMB) {
-        String uri = uriMB.getString();
         // 不接受空URL
         if (uriMB.isNull()) return false;
+        if (uriMB.getType() != MessageBytes.T_BYTES) {
+        	byte[] bytes = uriMB.toString().getBytes(uriMB.getCharset());
+        	uriMB.setBytes(bytes, 0, bytes.length);
+        }
 
-        char[] arr = uri.toCharArray();
-        char[] arrangeArr = new char[uri.length()];
-        int count = 0;
-        boolean append = true;
-        
-        int len = arr.length - 1;
-        char temp;
-        for (int i = 0; i <= len; i++) {
-        	temp = arr[i];
-        	
-        	// 替换 "\" 为 "/"
-        	if ('\\' == temp) {  
-        		temp =  '/';
-        	}
-        	
-        	// URL必须以 "/" 开头
-        	if (i == 0 && temp != '/' ) {
+        ByteChunk uriBC = uriMB.getByteChunk();
+        byte[] b = uriBC.getBuffer();
+        int start = uriBC.getStart();
+        int end = uriBC.getEnd();
+        if (start == end) return false;
+
+        // 替换 "\" 为 "/"，并拒绝空字符
+        for (int i = start; i < end; i++) {
+        	if (b[i] == (byte) '\\') {
+        		b[i] = (byte) '/';
+        	} else if (b[i] == (byte) 0) {
         		return false;
         	}
-        	
-        	if (temp == '/' ) {
-//        		System.out.println(String.format("i：%s，count：%s，arr[i]：【%s】", i, count, arr[i]));
-        		
-        		if (arr[i+1] == '/') { // 替换 "//" 为 "/" ==> 跳过下一字符("/")
-        			i++;
-        		} else if (count > 0 && arrangeArr[count - 1] == '/') { // 替换 "//" 为 "/" ==> 上一字符就是“/”则忽略当前字符
-        			//	i++;
-        			append = false;
-        		} else if (arr[i+1] == '.') {
-        			if (arr[i+2] == '.') { // 替换 “/..” 为 “/” ==> 跳过下两位字符“..”
-        				i += 2;
-        			} else { // 替换 “/.” 为 “/”
-        				i++;
-        			}
-        		}
+        }
+
+        // URL必须以 "/" 开头
+        if (b[start] != (byte) '/') return false;
+
+        /*
+         * 逐段复制，写入位置始终不超过读取位置。已写入部分的形式总是 ("/" segment)*，末尾的 "/" 只在最后写入
+         */
+        int write = start;
+        int read = start;
+        while (read < end) {
+        	// 替换 "//" 为 "/" ==> 跳过连续的 "/"
+        	while (read < end && b[read] == (byte) '/') {
+        		read++;
+        	}
+        	if (read == end) { // 以 "/" 结尾
+        		b[write++] = (byte) '/';
+        		break;
         	}
-        	if (append)  {
-        		arrangeArr[count++] = temp;
+
+        	int segmentEnd = read;
+        	while (segmentEnd < end && b[segmentEnd] != (byte) '/') {
+        		segmentEnd++;
+        	}
+        	int segmentLength = segmentEnd - read;
+
+        	if (segmentLength == 1 && b[read] == (byte) '.') { // 替换 “/./” 为 “/”
+        		if (segmentEnd == end) {
+        			b[write++] = (byte) '/';
+        		}
+        	} else if (segmentLength == 2 && b[read] == (byte) '.' && b[read + 1] == (byte) '.') { // 替换 “/xxx/../” 为 “/”
+        		if (write == start) {
+        			// 越过了根路径
+        			return false;
+        		}
+        		do {
+        			write--;
+        		} while (b[write] != (byte) '/');
+        		if (segmentEnd == end) {
+        			b[write++] = (byte) '/';
+        		}
         	} else {
-        		append = true;
+        		b[write++] = (byte) '/';
+        		System.arraycopy(b, read, b, write, segmentLength);
+        		write += segmentLength;
         	}
+        	read = segmentEnd;
+        }
+        if (write == start) {
+        	b[write++] = (byte) '/';
         }
-        
-        // 因在写入最后的字符之后count会递增一，所以此时count就刚好是整个字符数组的长度
-        uriMB.setChars(arrangeArr, 0, count);
+
+        uriBC.setEnd(write);
         return true;
     }
     
     /**
-     * 从请求中提取路径参数。 这假定参数的形式是 /path;name=value;name2=value2/ 等。目前只对将采用这种形式的会话 ID 真正感兴趣。 可以安全地忽略其他参数。
+     * 从请求中提取路径参数并将其从 URI 中移除。 这假定参数的形式是 /path;name=value;name2=value2/ 等。目前只对将采用这种形式的会话 ID 真正感兴趣。 可以安全地忽略其他参数。
      *
      * @param request - 原初请求对象
      * @param httpRequest - 连接器请求对象
      */
     protected void parsePathParameters(Request request, HttpRequest httpRequest) {
-    	CharChunk decodedURI = request.decodedURI().getCharChunk();
-    	char[] buffer = decodedURI.getBuffer();
-    	
-		int leng = buffer.length;
-		
-		// 路径参数名起始索引
-		int nameStart = 0;
-		// 路径参数名末尾索引
-		int nameEnd = 0;
-		
-		boolean readName = true;
-		char c;
-		
-		String name = null;
-		String value = null;
-		for (int i = 0; i < leng; i++) {
-			c = buffer[i];
-			if (c == ';') {
-				nameStart = i + 1;
-				if (nameStart == 0) { // 截取uri
-					request.decodedURI().setString( new String(buffer, 0 , i) );
-				} else if (!readName){
-					value = new String(buffer, nameEnd + 1, i - nameEnd - 1);
-					readName = true;
-					
-			    	request.addPathParameter(name, value);
-				}
-				continue ;
-			}
-			
-			if (c == '=' && readName) {
-				nameEnd = i;
-				name = new String(buffer, nameStart, nameEnd - nameStart);
-				readName = false;
-				continue ;
-			}
-			
-			if (!readName && i == leng - 1) { // 保存最后的路径参数
-				value = new String(buffer, nameEnd + 1, i - nameEnd);
-		    	request.addPathParameter(name, value);
-			}
-		}
+    	ByteChunk uriBC = request.decodedURI().getByteChunk();
+    	int semicolon = uriBC.indexOf(';', 0);
+    	// 不包含路径参数的 URI 无需处理
+    	if (semicolon == -1) {
+    		return;
+    	}
+
+    	Charset charset = uriBC.getCharset();
+    	while (semicolon > -1) {
+    		byte[] buffer = uriBC.getBuffer();
+    		int start = uriBC.getStart();
+    		int end = uriBC.getEnd();
+
+    		// 路径参数的起止索引，参数以下一个 ';' 或 '/' 结束
+    		int paramStart = start + semicolon + 1;
+    		int paramEnd = ByteChunk.findBytes(buffer, paramStart, end, SEMICOLON_SLASH);
+
+    		String pathParam;
+    		if (paramEnd >= 0) {
+    			pathParam = new String(buffer, paramStart, paramEnd - paramStart, charset);
+    			// 移除路径参数
+    			System.arraycopy(buffer, paramEnd, buffer, start + semicolon, end - paramEnd);
+    			uriBC.setEnd(end - (paramEnd - start - semicolon));
+    		} else {
+    			pathParam = new String(buffer, paramStart, end - paramStart, charset);
+    			uriBC.setEnd(start + semicolon);
+    		}
+
+    		int equals = pathParam.indexOf('=');
+    		if (equals > 0) {
+    			request.addPathParameter(pathParam.substring(0, equals), pathParam.substring(equals + 1));
+    		}
+
+    		semicolon = uriBC.indexOf(';', semicolon);
+    	}
     }
 
     /**
@@ -370,8 +370,9 @@ public class OutputBuffer extends Writer {
             return;
         }
 
+        int len = from.remaining();
         append(from);
-        bytesWritten += from.remaining();
+        bytesWritten += len;
 
         // 如果从 flush() 中调用，则立即刷新剩余字节
         if (doFlush) {
@@ -430,7 +431,8 @@ public class OutputBuffer extends Writer {
      */
 	@Override
 	public void flush() throws IOException {
-//        doFlush(true);
+        // 提交响应并将缓冲的数据经由 OutputFilter 链(分块编码、gzip 同步刷新)写出到客户端
+        doFlush(true);
 	}
 
 
@@ -700,7 +702,8 @@ public class OutputBuffer extends Writer {
     public void realWriteChars(CharBuffer from) throws IOException {
     	if (from.limit() > 0) {
         	byteBuffer = response.getCharset().encode(from);
-        	bytesWritten = byteBuffer.limit();
+        	// 刷新可能发生多次，所以累计每次编码得到的字节数
+        	bytesWritten += byteBuffer.limit();
     	}
     	flushByteBuffer();
     }
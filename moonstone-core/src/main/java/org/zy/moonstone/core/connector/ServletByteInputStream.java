@@ -1,11 +1,11 @@
 package org.zy.moonstone.core.connector;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Supplier;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
@@ -23,15 +23,11 @@ import io.netty.buffer.ByteBuf;
  * @description 此类为请求正文的延时读取处理字节流
  */
 public class ServletByteInputStream extends ServletInputStream {
-	/** 请求行数据的延迟提供者 */
-	private Supplier<Byte> deferredSupplier = null;
-	
 	/** 已读取数 */
-	private int readCount = 0;
-	
-	private int limit;
+	private long readCount = 0;
 	
-	private int contentLength;
+	/** 单字节读取时复用的数组 */
+	private final byte[] singleByte = new byte[1];
 	
 	/** 标识当前是否已是安全控制环境 */
 	private AtomicBoolean privileged = new AtomicBoolean();
@@ -41,9 +37,6 @@ public class ServletByteInputStream extends ServletInputStream {
 	public ServletByteInputStream(Request request) {
 		super();
 		this.request = request;
-		this.deferredSupplier = request.getRequestBodySupplier();
-		this.contentLength = request.getContentLength();
-		this.limit = this.contentLength - 1;
 	}
 
 	/**
@@ -61,7 +54,7 @@ public class ServletByteInputStream extends ServletInputStream {
      */
 	@Override
 	public boolean isFinished() {
-		return this.readCount == limit;
+		return request.getInputBuffer().isFinished();
 	}
 
 	/**
@@ -121,7 +114,7 @@ public class ServletByteInputStream extends ServletInputStream {
 	}
 	
 	public int basicAvailable() {
-		return this.contentLength - readCount;
+		return request.getInputBuffer().available();
 	}
 	
 	/**
@@ -150,13 +143,9 @@ public class ServletByteInputStream extends ServletInputStream {
         }
 	}
 	
-	private int basicRead() {
-		if (readCount < request.getContentLength()) {
-			readCount++;
-			return this.deferredSupplier.get();
-		} else {
-			return -1;
-		}
+	private int basicRead() throws IOException {
+		int n = basicRead(singleByte, 0, 1);
+		return n == 1 ? (singleByte[0] & 0xFF) : -1;
 	}
 
 	@Override
@@ -179,13 +168,58 @@ public class ServletByteInputStream extends ServletInputStream {
             	privileged.compareAndSet(true, false);
             }
         } else {
-        	// 首先读取一个字节数据判断是否为-1，是则直接返回-1，反之则继续读取之后的数据，直到填充满指定的存储数组或无待读数据结束并返回已读取字节数
             return basicRead(b, off, len);
         }
 	}
 	
+	/**
+	 * 从请求的输入缓冲区中批量读取数据，不会阻塞等待填满整个数组
+	 */
 	private int basicRead(byte[] b, int off, int len) throws IOException {
-		return super.read(b, off, len);
+		if (len == 0) {
+			return 0;
+		}
+		int n = request.doRead(b, off, len);
+		if (n > 0) {
+			readCount += n;
+		}
+		return n;
+	}
+	
+	/**
+	 * 将请求体数据批量传输到指定的 ByteBuffer
+	 *
+	 * @param b - 要写入字节的 ByteBuffer，处于可写状态
+	 * @return 一个整数，指定读取的实际字节数，如果到达流的末尾，则为 -1
+	 * @throws IOException - 如果发生 I/O 错误
+	 */
+	public int read(final ByteBuffer b) throws IOException {
+		if (SecurityUtil.isPackageProtectionEnabled()) {
+			try {
+				Integer result = AccessController.doPrivileged(new PrivilegedReadByteBuffer(b));
+				return result.intValue();
+			} catch (PrivilegedActionException pae) {
+				Exception e = pae.getException();
+				if (e instanceof IOException) {
+					throw (IOException) e;
+				} else {
+					throw new RuntimeException(e.getMessage(), e);
+				}
+			}
+		} else {
+			return basicRead(b);
+		}
+	}
+	
+	private int basicRead(final ByteBuffer b) throws IOException {
+		if (!b.hasRemaining()) {
+			return 0;
+		}
+		int n = request.doRead(b);
+		if (n > 0) {
+			readCount += n;
+		}
+		return n;
 	}
 	
 	/**
@@ -213,12 +247,26 @@ public class ServletByteInputStream extends ServletInputStream {
         }
     }
 	
-    private int basicRead(final ByteBuf byteBuf) {
-        int n = Math.min(limit - readCount, byteBuf.capacity());
-        for (int i = 0; i < n; i++) {
-        	byteBuf.writeByte(this.basicRead());
-		}
-        return n;
+    private int basicRead(final ByteBuf byteBuf) throws IOException {
+    	if (!byteBuf.isWritable()) {
+    		return 0;
+    	}
+    	int writerIndex = byteBuf.writerIndex();
+    	int n;
+    	if (byteBuf.nioBufferCount() == 1) {
+    		// 通过共享内容的 ByteBuffer 视图直接写入 ByteBuf 的可写区域
+    		n = basicRead(byteBuf.nioBuffer(writerIndex, byteBuf.writableBytes()));
+    	} else {
+    		byte[] bytes = new byte[byteBuf.writableBytes()];
+    		n = basicRead(bytes, 0, bytes.length);
+    		if (n > 0) {
+    			byteBuf.setBytes(writerIndex, bytes, 0, n);
+    		}
+    	}
+    	if (n > 0) {
+    		byteBuf.writerIndex(writerIndex + n);
+    	}
+    	return n;
     }
 
     private class PrivilegedAvailable implements PrivilegedExceptionAction<Integer> {
@@ -260,6 +308,21 @@ public class ServletByteInputStream extends ServletInputStream {
     }
 
 
+    private class PrivilegedReadByteBuffer implements PrivilegedExceptionAction<Integer> {
+        private final ByteBuffer byteBuffer;
+
+        public PrivilegedReadByteBuffer(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public Integer run() throws IOException {
+            Integer integer = Integer.valueOf(basicRead(byteBuffer));
+            return integer;
+        }
+    }
+
+
     private class PrivilegedReadBuffer implements PrivilegedExceptionAction<Integer> {
         private final ByteBuf byteBuf;
 
@@ -102,6 +102,12 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 	 */
 	protected volatile boolean unloading = false;
 
+	/**
+	 * 是否使用实例池(SingleThreadModel)模式。Servlet 实现了 {@link javax.servlet.SingleThreadModel } 或显式设置时启用，
+	 * 否则所有请求共享同一个实例，分配与释放只更新原子计数，不受 {@link #maxInstances } 限制
+	 */
+	protected volatile boolean singleThreadModel = false;
+
 	/**
 	 * STM 实例的最大数量
 	 */
@@ -234,6 +240,22 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 		this.maxInstances = maxInstances;
 	}
 
+	/**
+	 * @return 是否使用实例池模式
+	 */
+	public boolean isSingleThreadModel() {
+		return singleThreadModel;
+	}
+
+	/**
+	 * 设置是否使用实例池模式，需在 Servlet 加载之前设置。启用后每个实例同一时刻只服务一个请求，并发请求数受 {@link #maxInstances } 限制
+	 * 
+	 * @param singleThreadModel - true则启用实例池模式
+	 */
+	public void setSingleThreadModel(boolean singleThreadModel) {
+		this.singleThreadModel = singleThreadModel;
+	}
+
 	@Override
 	public String getRunAs() {
 		return this.runAs;
@@ -317,18 +339,20 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 				}
 			}
 
-			if (newInstance) {
+			if (singleThreadModel && newInstance) {
 				synchronized (instancePool) {
 					instancePool.push(instance);
 					nInstances++;
-
-					// 以原子方式将当前值增加1
-					countAllocated.incrementAndGet();
-					return instance;
 				}
 			}
 		}
 
+		if (!singleThreadModel) {
+			// 所有请求共享已初始化的实例，只需记录活动计数
+			countAllocated.incrementAndGet();
+			return instance;
+		}
+
 		synchronized (instancePool) {
 			while (countAllocated.get() >= nInstances) {
 				// 如果可能，分配一个新实例，否则等待
@@ -357,6 +381,11 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 
 	@Override
 	public void deallocate(Servlet servlet) throws ServletException {
+		if (!singleThreadModel) {
+			countAllocated.decrementAndGet();
+			return;
+		}
+
 		// 解锁并释放此实例
 		synchronized (instancePool) {
 			countAllocated.decrementAndGet();
@@ -401,9 +430,10 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 	 * @return 加载的Servlet实例
 	 * @throws ServletException - 一个Servlet加载错误
 	 */
+	@SuppressWarnings("deprecation")
 	public synchronized Servlet loadServlet() throws ServletException {
-		// 如果已经有实例或实例池，则无需执行任何操作
-		if (instance != null) return instance;
+		// 如果已经有实例且不使用实例池，则无需执行任何操作
+		if (!singleThreadModel && instance != null) return instance;
 
 		Servlet servlet;
 		try {
@@ -437,6 +467,10 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 				}
 			}
 
+			if (servlet instanceof javax.servlet.SingleThreadModel) {
+				singleThreadModel = true;
+			}
+
 			// ContainerServlet实例的特殊处理
 			//注意：InstanceManager检查是否允许应用程序加载ContainerServlet
 			if (servlet instanceof ContainerServlet) {
@@ -456,7 +490,8 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 
 
 	private synchronized void initServlet(Servlet servlet) throws ServletException {
-		if (instanceInitialized ) return;
+		// 实例池模式下每个新实例都需要初始化
+		if (instanceInitialized && !singleThreadModel) return;
 
 		// 调用这个servlet的初始化方法
 		try {
@@ -537,14 +572,18 @@ public class StandardWrapper extends ContainerBase implements ServletConfig, Wra
 		}
 
 		// 注销已销毁的实例
+		Servlet destroyed = instance;
 		instance = null;
 		instanceInitialized = false;
 
-		if (instancePool != null) {
+		if (singleThreadModel && instancePool != null) {
 			try {
 				while (!instancePool.isEmpty()) {
 					Servlet s = instancePool.pop();
-					s.destroy();
+					// 首个实例已在上面销毁
+					if (s != destroyed) {
+						s.destroy();
+					}
 				}
 			} catch (Throwable t) {
 				t = ExceptionUtils.unwrapInvocationTargetException(t);
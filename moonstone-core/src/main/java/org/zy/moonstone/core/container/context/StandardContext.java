@@ -60,6 +60,7 @@ import org.zy.moonstone.core.container.StandardWrapper;
 import org.zy.moonstone.core.container.valves.StandardContextValve;
 import org.zy.moonstone.core.exceptions.LifecycleException;
 import org.zy.moonstone.core.filter.ApplicationFilterConfig;
+import org.zy.moonstone.core.filter.FilterChainCache;
 import org.zy.moonstone.core.filter.FilterDef;
 import org.zy.moonstone.core.filter.FilterMap;
 import org.zy.moonstone.core.interfaces.InstanceManager;
@@ -239,6 +240,16 @@ public class StandardContext extends ContainerBase implements Context {
 	 */
 	private final ContextFilterMaps filterMaps = new ContextFilterMaps();
 
+	/**
+	 * 过滤器链解析结果的最大缓存数，小于等于0则代表禁用缓存
+	 */
+	private int filterChainCacheSize = 1000;
+
+	/**
+	 * 过滤器链解析结果缓存, 过滤器映射或过滤器配置变化时整体替换
+	 */
+	private volatile FilterChainCache filterChainCache = new FilterChainCache(filterChainCacheSize, null);
+
 	/**
 	 * 忽略注解.
 	 */
@@ -1556,6 +1567,7 @@ public class StandardContext extends ContainerBase implements Context {
 	public void addFilterMap(FilterMap filterMap) {
 		// 将这个过滤器映射添加到注册的集合
 		filterMaps.add(filterMap);
+		resetFilterChainCache();
 		fireContainerEvent("addFilterMap", filterMap);
 	}
 
@@ -1564,6 +1576,7 @@ public class StandardContext extends ContainerBase implements Context {
 		validateFilterMap(filterMap);
 		// 将此过滤器映射添加到注册集
 		filterMaps.addBefore(filterMap);
+		resetFilterChainCache();
 		fireContainerEvent("addFilterMap", filterMap);
 	}
 
@@ -1852,6 +1865,7 @@ public class StandardContext extends ContainerBase implements Context {
 	@Override
 	public void removeFilterMap(FilterMap filterMap) {
 		filterMaps.remove(filterMap);
+		resetFilterChainCache();
 		fireContainerEvent("removeFilterMap", filterMap);
 	}
 
@@ -2150,6 +2164,7 @@ public class StandardContext extends ContainerBase implements Context {
 				}
 			}
 		}
+		resetFilterChainCache();
 		return ok;
 	}
 
@@ -2172,6 +2187,7 @@ public class StandardContext extends ContainerBase implements Context {
 			}
 			filterConfigs.clear();
 		}
+		resetFilterChainCache();
 		return true;
 	}
 
@@ -2185,6 +2201,37 @@ public class StandardContext extends ContainerBase implements Context {
 		return filterConfigs.get(name);
 	}
 
+	/**
+	 * @return 过滤器链解析结果缓存
+	 */
+	public FilterChainCache getFilterChainCache() {
+		return filterChainCache;
+	}
+
+	/**
+	 * @return 过滤器链解析结果的最大缓存数
+	 */
+	public int getFilterChainCacheSize() {
+		return filterChainCacheSize;
+	}
+
+	/**
+	 * 设置过滤器链解析结果的最大缓存数，小于等于0则禁用缓存
+	 *
+	 * @param filterChainCacheSize - 最大缓存数
+	 */
+	public void setFilterChainCacheSize(int filterChainCacheSize) {
+		this.filterChainCacheSize = filterChainCacheSize;
+		resetFilterChainCache();
+	}
+
+	/**
+	 * 丢弃已缓存的过滤器链解析结果，在过滤器映射或过滤器配置变化时调用
+	 */
+	private void resetFilterChainCache() {
+		filterChainCache = new FilterChainCache(filterChainCacheSize, findFilterMaps());
+	}
+
 	/**
 	 * 为此上下文配置一组实例化的应用程序事件监听器
 	 * 
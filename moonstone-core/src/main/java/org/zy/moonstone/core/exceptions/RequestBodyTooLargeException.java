@@ -0,0 +1,31 @@
+package org.zy.moonstone.core.exceptions;
+
+import java.io.IOException;
+
+/**
+ * @dateTime 2023年1月11日;
+ * @author zy(azurite-Y);
+ * @description 请求体大小超出 maxPostSize 限制时抛出的异常，请求体的剩余部分未被读取
+ */
+public class RequestBodyTooLargeException extends IOException {
+	private static final long serialVersionUID = 4271693384615706934L;
+
+	/** 已知的请求体大小，分块传输时为抛出异常时已读取的字节数 */
+	private final long actual;
+
+	private final long permitted;
+
+	public RequestBodyTooLargeException(long actual, long permitted) {
+		super("请求体数据过大, by maxPostSize: " + permitted + ", requestBodyLength: " + actual);
+		this.actual = actual;
+		this.permitted = permitted;
+	}
+
+	public long getActualSize() {
+		return actual;
+	}
+
+	public long getPermittedSize() {
+		return permitted;
+	}
+}
@@ -35,8 +35,11 @@ public final class ApplicationFilterChain implements FilterChain {
     /** 增量 */
     public static final int INCREMENT = 10;
 
+    /** 没有过滤器时使用的共享空数组 */
+    static final ApplicationFilterConfig[] EMPTY_FILTERS = new ApplicationFilterConfig[0];
+
     /** Filters */
-    private ApplicationFilterConfig[] filters = new ApplicationFilterConfig[0];
+    private ApplicationFilterConfig[] filters = EMPTY_FILTERS;
 
     /** 用于维持过滤器链中的当前位置的整数 */
     private int pos = 0;
@@ -44,6 +47,9 @@ public final class ApplicationFilterChain implements FilterChain {
     /** 给出链中当前过滤器数量的整数 */
     private int n = 0;
 
+    /** 过滤器数组是否来自 {@link FilterChainCache }，共享的数组不得修改 */
+    private boolean sharedFilters = false;
+
     /** 要由该链执行的Servlet实例 */
     private Servlet servlet = null;
 
@@ -163,8 +169,13 @@ public final class ApplicationFilterChain implements FilterChain {
      * 释放对该链执行的过滤器和包装器的引用
      */
     public void release() {
-        for (int i = 0; i < n; i++) {
-            filters[i] = null;
+        if (sharedFilters) {
+            filters = EMPTY_FILTERS;
+            sharedFilters = false;
+        } else {
+            for (int i = 0; i < n; i++) {
+                filters[i] = null;
+            }
         }
         n = 0;
         pos = 0;
@@ -219,7 +230,8 @@ public final class ApplicationFilterChain implements FilterChain {
             if(filter==filterConfig)
                 return;
 
-        if (n == filters.length) {
+        if (sharedFilters || n == filters.length) {
+            sharedFilters = false;
             ApplicationFilterConfig[] newFilters = new ApplicationFilterConfig[n + INCREMENT];
             System.arraycopy(filters, 0, newFilters, 0, n);
             filters = newFilters;
@@ -227,6 +239,17 @@ public final class ApplicationFilterChain implements FilterChain {
         filters[n++] = filterConfig;
     }
     
+    /**
+     * 使用已解析的过滤器作为此链执行的过滤器集，只复制数组的引用
+     *
+     * @param filters - 按执行顺序排列的共享过滤器数组，此链不会修改其内容
+     */
+    void setFilters(ApplicationFilterConfig[] filters) {
+        this.filters = filters;
+        this.n = filters.length;
+        this.sharedFilters = true;
+    }
+
     /**
      * 标识此过滤器链中不支持异步的过滤器(如果有的话)。
      *
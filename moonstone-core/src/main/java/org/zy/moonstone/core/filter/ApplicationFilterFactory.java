@@ -8,6 +8,8 @@ import org.zy.moonstone.core.interfaces.container.Wrapper;
 import javax.servlet.DispatcherType;
 import javax.servlet.Servlet;
 import javax.servlet.ServletRequest;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @dateTime 2022年11月17日;
@@ -15,6 +17,8 @@ import javax.servlet.ServletRequest;
  * @description 用于创建和缓存过滤器以及创建过滤器链的工厂
  */
 public final class ApplicationFilterFactory {
+    private static final ApplicationFilterConfig[] EMPTY_FILTERS = ApplicationFilterChain.EMPTY_FILTERS;
+
     private ApplicationFilterFactory() {}
     
     
@@ -54,14 +58,6 @@ public final class ApplicationFilterFactory {
         filterChain.setServlet(servlet);
         filterChain.setServletSupportsAsync(wrapper.isAsyncSupported());
 
-        // 获取此上下文的过滤器映射
-        StandardContext context = (StandardContext) wrapper.getParent();
-        FilterMap filterMaps[] = context.findFilterMaps();
-
-        // 如果没有过滤器映射，就算完成了
-        if ((filterMaps == null) || (filterMaps.length == 0))
-            return filterChain;
-
         // 获取匹配过滤器映射所需的信息
         DispatcherType dispatcher = (DispatcherType) request.getAttribute(Globals.DISPATCHER_TYPE_ATTR);
 
@@ -73,6 +69,46 @@ public final class ApplicationFilterFactory {
 
         String servletName = wrapper.getName();
 
+        // 先获取缓存实例再解析，过滤器映射在解析期间变化时结果只会写入已被替换的旧缓存
+        StandardContext context = (StandardContext) wrapper.getParent();
+        FilterChainCache filterChainCache = context.getFilterChainCache();
+        FilterChainCache.Key key = filterChainCache.createKey(servletName, dispatcher, requestPath);
+        ApplicationFilterConfig[] filters = filterChainCache.get(key);
+        if (filters == null) {
+            filters = resolveFilters(context, dispatcher, requestPath, servletName);
+            filterChainCache.put(key, filters);
+        }
+
+        if (filters.length > 0) {
+            filterChain.setFilters(filters);
+        }
+
+        // Return the completed filter chain
+        return filterChain;
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+
+    /**
+     * 按执行顺序解析与请求匹配的过滤器，先是与请求路径匹配的过滤器，其次是与servlet名称匹配的过滤器
+     *
+     * @param context - 请求所属的上下文
+     * @param dispatcher - 请求的调度类型
+     * @param requestPath - 此请求的上下文相对请求路径
+     * @param servletName - 处理请求的servlet名称
+     * @return 匹配的过滤器，没有则为空数组
+     */
+    private static ApplicationFilterConfig[] resolveFilters(StandardContext context, DispatcherType dispatcher, String requestPath, String servletName) {
+        FilterMap filterMaps[] = context.findFilterMaps();
+
+        // 如果没有过滤器映射，就算完成了
+        if ((filterMaps == null) || (filterMaps.length == 0))
+            return EMPTY_FILTERS;
+
+        List<ApplicationFilterConfig> filters = new ArrayList<>();
+
         // 将相关的路径映射过滤器添加到此过滤器链中
         for (FilterMap filterMap : filterMaps) {
             if (!matchDispatcher(filterMap, dispatcher)) {
@@ -80,11 +116,7 @@ public final class ApplicationFilterFactory {
             }
             if (!matchFiltersURL(filterMap, requestPath))
                 continue;
-            ApplicationFilterConfig filterConfig = (ApplicationFilterConfig)context.findFilterConfig(filterMap.getFilterName());
-            if (filterConfig == null) {
-                continue;
-            }
-            filterChain.addFilter(filterConfig);
+            addFilter(filters, context, filterMap);
         }
 
         // 其次添加与servlet名称匹配的过滤器
@@ -94,19 +126,27 @@ public final class ApplicationFilterFactory {
             }
             if (!matchFiltersServlet(filterMap, servletName))
                 continue;
-            ApplicationFilterConfig filterConfig = (ApplicationFilterConfig)context.findFilterConfig(filterMap.getFilterName());
-            if (filterConfig == null) {
-                continue;
-            }
-            filterChain.addFilter(filterConfig);
+            addFilter(filters, context, filterMap);
         }
 
-        // Return the completed filter chain
-        return filterChain;
+        return filters.isEmpty() ? EMPTY_FILTERS : filters.toArray(new ApplicationFilterConfig[filters.size()]);
     }
 
 
-    // -------------------------------------------------------- Private Methods
+    /**
+     * 添加过滤器映射对应的已初始化过滤器，防止同一过滤器被添加多次
+     */
+    private static void addFilter(List<ApplicationFilterConfig> filters, StandardContext context, FilterMap filterMap) {
+        ApplicationFilterConfig filterConfig = (ApplicationFilterConfig)context.findFilterConfig(filterMap.getFilterName());
+        if (filterConfig == null) {
+            return;
+        }
+        for (ApplicationFilterConfig filter : filters) {
+            if (filter == filterConfig)
+                return;
+        }
+        filters.add(filterConfig);
+    }
 
 
     /**
@@ -0,0 +1,221 @@
+package org.zy.moonstone.core.filter;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.DispatcherType;
+
+/**
+ * @dateTime 2023年1月8日;
+ * @author zy(azurite-Y);
+ * @description 过滤器链解析结果缓存，以 (Servlet 名称, 调度类型, 路径类别) 为键存储已按顺序解析的 {@link ApplicationFilterConfig } 数组。
+ * <p>
+ * 请求路径只通过过滤器的 URL 模式影响解析结果，所以不以原始路径为键，而是以路径匹配的模式作为其类别：
+ * 与路径相等的精确模式、匹配路径的最长路径模式("/.../*"，较短的路径模式是否匹配由其决定)以及匹配路径的扩展名模式。
+ * 类别相同的路径匹配相同的过滤器，缓存项数量只取决于 Servlet 与模式的数量，不会随 URL 的数量增长。
+ * <p>
+ * 缓存实例本身不会失效，过滤器映射或过滤器配置发生变化时由上下文整体替换为新实例，
+ * 所以在变化之前开始、之后才完成的解析结果只会写入已被丢弃的旧实例。
+ * 缓存的数组由所有请求共享，使用者不得修改其内容。缓存数量超过上限时清空重建
+ */
+public final class FilterChainCache {
+	/**
+	 * 最大缓存数，小于等于0则代表禁用缓存
+	 */
+	private final int maxSize;
+
+	private final Map<Key, ApplicationFilterConfig[]> cache;
+
+	/** 过滤器映射中的精确模式 */
+	private final Set<String> exactPatterns = new HashSet<>();
+
+	/** 过滤器映射中的路径模式去掉 "/*" 之后的前缀，不含匹配所有路径的 "/*" */
+	private final Set<String> prefixPatterns = new HashSet<>();
+
+	/** 过滤器映射中扩展名模式的扩展名 */
+	private final Set<String> extensionPatterns = new HashSet<>();
+
+
+	/**
+	 * @param maxSize - 最大缓存数，小于等于0则代表禁用缓存
+	 * @param filterMaps - 上下文当前的过滤器映射
+	 */
+	public FilterChainCache(int maxSize, FilterMap[] filterMaps) {
+		this.maxSize = maxSize;
+		this.cache = new ConcurrentHashMap<>(maxSize > 0 ? Math.min(maxSize, 256) : 16);
+
+		if (filterMaps != null) {
+			for (FilterMap filterMap : filterMaps) {
+				for (String pattern : filterMap.getURLPatterns()) {
+					addPattern(pattern);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * 创建请求的缓存键
+	 *
+	 * @param servletName - 处理请求的 Servlet 名称
+	 * @param dispatcher - 请求的调度类型
+	 * @param requestPath - 上下文相对请求路径，命名调度时为 null
+	 * @return 缓存键，禁用缓存时返回 null
+	 */
+	Key createKey(String servletName, DispatcherType dispatcher, String requestPath) {
+		if (maxSize <= 0) {
+			return null;
+		}
+		if (requestPath == null) {
+			return new Key(servletName, dispatcher, false, null, null, null);
+		}
+		return new Key(servletName, dispatcher, true, exactPatterns.contains(requestPath) ? requestPath : null,
+				findLongestPrefix(requestPath), findExtension(requestPath));
+	}
+
+	/**
+	 * 查找缓存的过滤器数组
+	 *
+	 * @param key - {@link #createKey(String, DispatcherType, String)} 创建的缓存键
+	 * @return 缓存的过滤器数组，未命中则返回 null
+	 */
+	ApplicationFilterConfig[] get(Key key) {
+		if (key == null) {
+			return null;
+		}
+		return cache.get(key);
+	}
+
+	/**
+	 * 缓存解析得到的过滤器数组
+	 *
+	 * @param key - {@link #createKey(String, DispatcherType, String)} 创建的缓存键
+	 * @param filters - 按执行顺序排列的过滤器
+	 */
+	void put(Key key, ApplicationFilterConfig[] filters) {
+		if (key == null) {
+			return;
+		}
+		if (cache.size() >= maxSize) {
+			cache.clear();
+		}
+		cache.put(key, filters);
+	}
+
+	public int size() {
+		return cache.size();
+	}
+
+
+	private void addPattern(String pattern) {
+		if (pattern == null) {
+			return;
+		}
+		if (pattern.equals("/*")) {
+			// 匹配所有路径，不影响路径类别
+			return;
+		}
+		if (pattern.endsWith("/*")) {
+			prefixPatterns.add(pattern.substring(0, pattern.length() - 2));
+		} else if (pattern.startsWith("*.")) {
+			extensionPatterns.add(pattern.substring(2));
+		} else {
+			exactPatterns.add(pattern);
+		}
+	}
+
+	/**
+	 * 查找匹配请求路径的最长路径模式前缀。路径模式 "/a/*" 匹配 "/a" 本身与以 "/a/" 开头的路径
+	 */
+	private String findLongestPrefix(String requestPath) {
+		if (prefixPatterns.isEmpty()) {
+			return null;
+		}
+		String candidate = requestPath;
+		while (true) {
+			if (prefixPatterns.contains(candidate)) {
+				return candidate;
+			}
+			int slash = candidate.lastIndexOf('/');
+			if (slash < 0) {
+				return null;
+			}
+			candidate = candidate.substring(0, slash);
+		}
+	}
+
+	/**
+	 * 查找与扩展名模式匹配的请求路径扩展名，规则与 {@link ApplicationFilterFactory } 的扩展名匹配相同
+	 */
+	private String findExtension(String requestPath) {
+		if (extensionPatterns.isEmpty()) {
+			return null;
+		}
+		int slash = requestPath.lastIndexOf('/');
+		int period = requestPath.lastIndexOf('.');
+		if (slash >= 0 && period > slash && period != requestPath.length() - 1) {
+			String extension = requestPath.substring(period + 1);
+			if (extensionPatterns.contains(extension)) {
+				return extension;
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * 缓存键
+	 */
+	static final class Key {
+		private final String servletName;
+		private final DispatcherType dispatcher;
+		/** 命名调度没有请求路径，"/*" 等模式不匹配 */
+		private final boolean hasPath;
+		private final String exact;
+		private final String prefix;
+		private final String extension;
+		private final int hashCode;
+
+		Key(String servletName, DispatcherType dispatcher, boolean hasPath, String exact, String prefix, String extension) {
+			this.servletName = servletName;
+			this.dispatcher = dispatcher;
+			this.hasPath = hasPath;
+			this.exact = exact;
+			this.prefix = prefix;
+			this.extension = extension;
+
+			int h = servletName == null ? 0 : servletName.hashCode();
+			h = 31 * h + (dispatcher == null ? 0 : dispatcher.ordinal() + 1);
+			h = 31 * h + (hasPath ? 1 : 0);
+			h = 31 * h + (exact == null ? 0 : exact.hashCode());
+			h = 31 * h + (prefix == null ? 0 : prefix.hashCode() + 1);
+			h = 31 * h + (extension == null ? 0 : extension.hashCode() + 2);
+			this.hashCode = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hashCode == other.hashCode && dispatcher == other.dispatcher && hasPath == other.hasPath
+					&& equals(servletName, other.servletName) && equals(exact, other.exact)
+					&& equals(prefix, other.prefix) && equals(extension, other.extension);
+		}
+
+		private static boolean equals(String s1, String s2) {
+			return s1 == null ? s2 == null : s1.equals(s2);
+		}
+	}
+}
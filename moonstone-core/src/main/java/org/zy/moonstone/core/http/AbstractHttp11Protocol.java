@@ -5,6 +5,7 @@ import org.zy.moonstone.core.Constants;
 import org.zy.moonstone.core.connector.CompressionConfig;
 import org.zy.moonstone.core.interfaces.connector.Processor;
 import org.zy.moonstone.core.interfaces.connector.UpgradeProtocol;
+import org.zy.moonstone.core.interfaces.http.CompressionCodec;
 import org.zy.moonstone.core.util.net.AbstractEndpoint;
 
 import java.util.*;
@@ -218,6 +219,12 @@ public abstract class AbstractHttp11Protocol<S> extends AbstractProtocol<S> {
 	protected int getCompressionLevel() {
 		return compressionConfig.getCompressionLevel();
 	}
+	public int getDeflateLevel() {
+		return compressionConfig.getDeflateLevel();
+	}
+	public void setDeflateLevel(int deflateLevel) {
+		compressionConfig.setDeflateLevel(deflateLevel);
+	}
 
 
 	public String getNoCompressionUserAgents() {
@@ -250,7 +257,24 @@ public abstract class AbstractHttp11Protocol<S> extends AbstractProtocol<S> {
 	}
 
 
-	public boolean useCompression(Request request, Response response) {
+	public String getCompressionLevels() {
+		return compressionConfig.getCompressionLevels();
+	}
+	public void setCompressionLevels(String compressionLevels) {
+		compressionConfig.setCompressionLevels(compressionLevels);
+	}
+	protected int getMimeTypeCompressionLevel(String contentType) {
+		return compressionConfig.getMimeTypeCompressionLevel(contentType);
+	}
+
+
+	protected CompressionConfig getCompressionConfig() {
+		return compressionConfig;
+	}
+	public CompressionCodec[] getCompressionCodecs() {
+		return compressionConfig.getCompressionCodecs();
+	}
+	public CompressionCodec useCompression(Request request, Response response) {
 		return compressionConfig.useCompression(request, response);
 	}
 
@@ -330,7 +354,7 @@ public abstract class AbstractHttp11Protocol<S> extends AbstractProtocol<S> {
 
 
 	/**
-	 * 要接受的请求正文的最大尺寸（2M）
+	 * 保持连接时，请求结束后最多跳过的应用未读取请求体字节数（2M）。超出则关闭连接，小于0则代表不限制
 	 */
 	private int maxSwallowSize = 2 * 1024 * 1024;
 	public int getMaxSwallowSize() { return maxSwallowSize; }
@@ -6,6 +6,7 @@ import org.zy.moonstone.core.interfaces.connector.Adapter;
 import org.zy.moonstone.core.interfaces.container.AsyncContextCallback;
 import org.zy.moonstone.core.util.ErrorState;
 import org.zy.moonstone.core.util.ExceptionUtils;
+import org.zy.moonstone.core.util.buf.ByteChunk;
 import org.zy.moonstone.core.util.http.ActionCode;
 import org.zy.moonstone.core.util.http.ActionHook;
 import org.zy.moonstone.core.util.net.AbstractEndpoint.Handler.SocketState;
@@ -341,11 +342,11 @@ public abstract class AbstractProcessor extends AbstractProcessorLight implement
 //				request.setAvailable(available(Boolean.TRUE.equals(param)));
 //				break;
 //			}
-//			case REQ_SET_BODY_REPLAY: {
-//				ByteChunk body = (ByteChunk) param;
-//				setRequestBody(body);
-//				break;
-//			}
+			case REQ_SET_BODY_REPLAY: {
+				ByteChunk body = (ByteChunk) param;
+				setRequestBody(body);
+				break;
+			}
 	
 			// Error handling
 			case IS_ERROR: {
@@ -590,7 +591,12 @@ public abstract class AbstractProcessor extends AbstractProcessorLight implement
 
 //	protected abstract int available(boolean doRead);
 
-//	protected abstract void setRequestBody(ByteChunk body);
+	/**
+	 * 设置需要重放的请求体，之后应用读取到的是此请求体数据
+	 * 
+	 * @param body - 保存的请求体数据
+	 */
+	protected abstract void setRequestBody(ByteChunk body);
 
 	/**
 	 * 防止进一步写入响应
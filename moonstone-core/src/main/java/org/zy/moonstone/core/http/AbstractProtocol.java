@@ -225,6 +225,13 @@ public abstract class AbstractProtocol<S> implements ProtocolHandler {
 		return endpoint.getConnectionCount();
 	}
 
+	public void setAcceptorThreadCount(int threadCount) {
+		endpoint.setAcceptorThreadCount(threadCount);
+	}
+	public int getAcceptorThreadCount() {
+		return endpoint.getAcceptorThreadCount();
+	}
+
 	public void setAcceptorThreadPriority(int threadPriority) {
 		endpoint.setAcceptorThreadPriority(threadPriority);
 	}
@@ -652,7 +659,10 @@ public abstract class AbstractProtocol<S> implements ProtocolHandler {
 			if (processor != null) {
 				getLogger().debug("重置Processor[" + processor + "]，添加缓存");
 				processor.recycle();
-				recycledProcessors.push(processor);
+				if (!recycledProcessors.push(processor)) {
+					// 缓存已满，处理器将被丢弃
+					processor.destroy();
+				}
 			}
 		}
 
@@ -720,6 +730,7 @@ public abstract class AbstractProtocol<S> implements ProtocolHandler {
 		public synchronized void clear() {
 			Processor next = pop();
 			while (next != null) {
+				next.destroy();
 				next = pop();
 			}
 			super.clear();
@@ -0,0 +1,81 @@
+package org.zy.moonstone.core.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.zy.moonstone.core.util.buf.ByteChunk;
+import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
+
+/**
+ * @dateTime 2022年12月20日;
+ * @author zy(azurite-Y);
+ * @description 重放已保存请求体的输入过滤器，如表单验证之后恢复原请求时使用。
+ * 激活之后应用读取到的是保存的请求体，而套接字中原有的请求体仍由管道中的上一个过滤器在请求结束时跳过
+ */
+public class BufferedInputFilter implements InputFilter {
+	/**
+	 * 保存的请求体
+	 */
+	private ByteBuffer body;
+
+
+	/**
+	 * 设置需要重放的请求体
+	 *
+	 * @param body - 保存的请求体数据
+	 */
+	public void setBody(ByteChunk body) {
+		this.body = ByteBuffer.wrap(body.getBytes(), body.getStart(), body.getLength());
+	}
+
+	@Override
+	public void setRequest(Request request) {
+		request.setContentLength(body == null ? 0 : body.remaining());
+	}
+
+	@Override
+	public int doRead(byte[] b, int off, int len) throws IOException {
+		if (isFinished()) {
+			return -1;
+		}
+		int n = Math.min(len, body.remaining());
+		body.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public int doRead(ByteBuffer to) throws IOException {
+		if (isFinished()) {
+			return -1;
+		}
+		int n = Math.min(to.remaining(), body.remaining());
+		int limit = body.limit();
+		body.limit(body.position() + n);
+		to.put(body);
+		body.limit(limit);
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return body == null ? 0 : body.remaining();
+	}
+
+	@Override
+	public long end() throws IOException {
+		return 0;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return body == null || !body.hasRemaining();
+	}
+
+	@Override
+	public void setBuffer(InputBuffer buffer) {}
+
+	@Override
+	public void recycle() {
+		body = null;
+	}
+}
@@ -0,0 +1,347 @@
+package org.zy.moonstone.core.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.zy.moonstone.core.Constants;
+import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
+
+/**
+ * @dateTime 2022年12月20日;
+ * @author zy(azurite-Y);
+ * @description 分块传输编码("Transfer-Encoding: chunked")的请求体解码过滤器。
+ * <p>
+ * 解码以流的方式进行，块头、块数据与块尾可以任意分布在多次套接字读取中，不需要预先缓存整个请求体。
+ * 尾部字段(trailer)在读取到最后一个块之后填充到 {@link Request#getTrailerFields() }
+ */
+public class ChunkedInputFilter implements InputFilter {
+	/**
+	 * 块扩展的最大字节数
+	 */
+	private static final int MAX_EXTENSION_SIZE = 8192;
+
+	/**
+	 * 尾部字段的最大总字节数
+	 */
+	private static final int MAX_TRAILER_SIZE = 8192;
+
+	/**
+	 * 过滤器管道中的上一个缓冲区
+	 */
+	protected InputBuffer buffer;
+
+	/**
+	 * 从上一个缓冲区读取的待解码数据，始终处于可读状态。只在其读取完毕之后才再次填充，
+	 * 所以其中剩余的数据总是上一个缓冲区最近一次读取的末尾部分
+	 */
+	protected final ByteBuffer readChunk;
+
+	/**
+	 * 当前块中尚未读取的数据字节数
+	 */
+	protected long remaining = 0;
+
+	/**
+	 * 当前块的数据读取完毕之后，是否还需解析其后的回车换行符
+	 */
+	protected boolean needCRLFParse = false;
+
+	/**
+	 * 是否已读取到最后一个块
+	 */
+	protected boolean endChunk = false;
+
+	/**
+	 * 解码过程中是否发生了错误
+	 */
+	private boolean error = false;
+
+	/**
+	 * 关联的请求对象
+	 */
+	private Request request;
+
+	/**
+	 * 解析尾部字段时存储单行数据的缓冲区
+	 */
+	private final byte[] trailerLine = new byte[MAX_TRAILER_SIZE];
+
+	/**
+	 * 请求结束时最多跳过的未读取请求体字节数，小于0则代表不限制
+	 */
+	private final int maxSwallowSize;
+
+
+	/**
+	 * @param maxSwallowSize - 请求结束时最多跳过的未读取请求体字节数，小于0则代表不限制
+	 */
+	public ChunkedInputFilter(int maxSwallowSize) {
+		this.maxSwallowSize = maxSwallowSize;
+		this.readChunk = ByteBuffer.allocate(8192);
+		this.readChunk.limit(0);
+	}
+
+	@Override
+	public void setRequest(Request request) {
+		this.request = request;
+	}
+
+	@Override
+	public int doRead(byte[] b, int off, int len) throws IOException {
+		if (!nextChunk()) {
+			return -1;
+		}
+		int n = (int) Math.min(len, remaining);
+		if (readChunk.hasRemaining()) {
+			n = Math.min(n, readChunk.remaining());
+			readChunk.get(b, off, n);
+		} else {
+			// 暂存数据已读完，当前块的数据直接读取到调用方的数组中
+			n = buffer.doRead(b, off, n);
+			if (n < 0) {
+				throwEOFException();
+			}
+		}
+		consume(n);
+		return n;
+	}
+
+	@Override
+	public int doRead(ByteBuffer to) throws IOException {
+		if (!nextChunk()) {
+			return -1;
+		}
+		if (!readChunk.hasRemaining()) {
+			fillReadChunk();
+		}
+		int n = (int) Math.min(Math.min(to.remaining(), remaining), readChunk.remaining());
+		int limit = readChunk.limit();
+		readChunk.limit(readChunk.position() + n);
+		to.put(readChunk);
+		readChunk.limit(limit);
+		consume(n);
+		return n;
+	}
+
+	@Override
+	public int available() {
+		if (endChunk || remaining <= 0) {
+			return 0;
+		}
+		int available = readChunk.hasRemaining() ? readChunk.remaining() : buffer.available();
+		return (int) Math.min(available, remaining);
+	}
+
+	@Override
+	public long end() throws IOException {
+		// 跳过剩余的块
+		long swallowed = 0;
+		while (nextChunk()) {
+			if (!readChunk.hasRemaining()) {
+				fillReadChunk();
+			}
+			int n = (int) Math.min(remaining, readChunk.remaining());
+			readChunk.position(readChunk.position() + n);
+			consume(n);
+			swallowed += n;
+			if (maxSwallowSize > -1 && swallowed > maxSwallowSize) {
+				// 不再跳过过大的请求体，由处理器关闭连接
+				throwIOException("未读取的请求体大于可跳过的限制值[" + maxSwallowSize + "]");
+			}
+		}
+		// 已读取但不属于当前请求体的数据
+		return readChunk.remaining();
+	}
+
+	@Override
+	public boolean isFinished() {
+		return endChunk;
+	}
+
+	@Override
+	public void setBuffer(InputBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	@Override
+	public void recycle() {
+		remaining = 0;
+		needCRLFParse = false;
+		endChunk = false;
+		error = false;
+		request = null;
+		readChunk.limit(0).position(0);
+	}
+
+	/**
+	 * 定位到下一段可读取的块数据。当前块读取完毕时解析其后的回车换行符与下一个块头，读取到最后一个块时解析尾部字段
+	 *
+	 * @return true则代表当前块还有数据可读，false则代表请求体已读取完毕
+	 * @throws IOException - 如果在读取期间发生异常或块格式无效
+	 */
+	private boolean nextChunk() throws IOException {
+		if (endChunk) {
+			return false;
+		}
+		if (error) {
+			throw new IOException("分块请求体解码已失败");
+		}
+		if (needCRLFParse) {
+			needCRLFParse = false;
+			parseCRLF();
+		}
+		if (remaining <= 0) {
+			parseChunkHeader();
+			if (remaining == 0) {
+				parseEndChunk();
+				endChunk = true;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void consume(int n) {
+		remaining -= n;
+		if (remaining == 0) {
+			needCRLFParse = true;
+		}
+	}
+
+	/**
+	 * 解析块头: chunk-size [ chunk-ext ] CRLF。块扩展会被忽略
+	 */
+	private void parseChunkHeader() throws IOException {
+		long size = 0;
+		boolean readDigit = false;
+		boolean digitEnd = false;
+		boolean extension = false;
+		int extensionSize = 0;
+
+		while (true) {
+			byte b = nextByte();
+			if (b == Constants.CR) {
+				// 回车符只能作为行结束符出现，单独的回车符可被用于请求走私
+				if (nextByte() != Constants.LF) {
+					throwIOException("块头中存在无效的回车符");
+				}
+				break;
+			} else if (b == Constants.LF) {
+				break;
+			} else if (extension) {
+				if (++extensionSize > MAX_EXTENSION_SIZE) {
+					throwIOException("块扩展长度大于限制值[" + MAX_EXTENSION_SIZE + "]");
+				}
+			} else if (b == Constants.SEMI_COLON) {
+				extension = true;
+			} else if (b == Constants.SP || b == Constants.HT) {
+				// 块大小之后的空白符
+				digitEnd = readDigit;
+			} else {
+				int digit = Character.digit(b, 16);
+				if (digit == -1 || digitEnd) {
+					throwIOException("无效的块大小");
+				}
+				if (size > (Long.MAX_VALUE >> 4)) {
+					throwIOException("块大小溢出");
+				}
+				size = (size << 4) + digit;
+				readDigit = true;
+			}
+		}
+
+		if (!readDigit) {
+			throwIOException("块头缺少块大小");
+		}
+		remaining = size;
+	}
+
+	/**
+	 * 解析块数据之后的回车换行符，兼容单独的换行符
+	 */
+	private void parseCRLF() throws IOException {
+		byte b = nextByte();
+		if (b == Constants.CR) {
+			b = nextByte();
+		}
+		if (b != Constants.LF) {
+			throwIOException("块数据之后缺少回车换行符");
+		}
+	}
+
+	/**
+	 * 解析最后一个块之后的尾部字段，直至空行
+	 */
+	private void parseEndChunk() throws IOException {
+		int total = 0;
+		while (true) {
+			int length = 0;
+			byte b;
+			while ((b = nextByte()) != Constants.LF) {
+				if (++total > MAX_TRAILER_SIZE) {
+					throwIOException("尾部字段长度大于限制值[" + MAX_TRAILER_SIZE + "]");
+				}
+				trailerLine[length++] = b;
+			}
+			if (length > 0 && trailerLine[length - 1] == Constants.CR) {
+				length--;
+			}
+			if (length == 0) {
+				return;
+			}
+			parseTrailerField(length);
+		}
+	}
+
+	private void parseTrailerField(int length) {
+		if (request == null || trailerLine[0] == Constants.SP || trailerLine[0] == Constants.HT) {
+			// 已废弃的折叠行(obs-fold)，忽略
+			return;
+		}
+		int colon = -1;
+		for (int i = 0; i < length; i++) {
+			if (trailerLine[i] == Constants.COLON) {
+				colon = i;
+				break;
+			}
+		}
+		if (colon <= 0) {
+			return;
+		}
+		String name = new String(trailerLine, 0, colon, StandardCharsets.ISO_8859_1).trim().toLowerCase(Locale.ENGLISH);
+		String value = new String(trailerLine, colon + 1, length - colon - 1, StandardCharsets.ISO_8859_1).trim();
+		request.getTrailerFields().put(name, value);
+	}
+
+	private byte nextByte() throws IOException {
+		if (!readChunk.hasRemaining()) {
+			fillReadChunk();
+		}
+		return readChunk.get();
+	}
+
+	/**
+	 * 从上一个缓冲区读取数据到暂存缓冲区，调用时暂存缓冲区中已没有剩余数据
+	 */
+	private void fillReadChunk() throws IOException {
+		readChunk.clear();
+		int nRead = buffer.doRead(readChunk);
+		readChunk.flip();
+		if (nRead <= 0) {
+			throwEOFException();
+		}
+	}
+
+	private void throwIOException(String msg) throws IOException {
+		error = true;
+		throw new IOException(msg);
+	}
+
+	private void throwEOFException() throws IOException {
+		error = true;
+		throw new EOFException("读取分块请求体时到达流末尾");
+	}
+}
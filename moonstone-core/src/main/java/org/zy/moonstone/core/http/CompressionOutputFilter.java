@@ -0,0 +1,15 @@
+package org.zy.moonstone.core.http;
+
+/**
+ * @dateTime 2023年1月10日;
+ * @author zy(azurite-Y);
+ * @description 压缩响应体的输出过滤器，由 {@link org.zy.moonstone.core.interfaces.http.CompressionCodec } 创建
+ */
+public interface CompressionOutputFilter extends OutputFilter {
+	/**
+	 * 设置当前响应的压缩级别，在过滤器写入数据之前调用
+	 *
+	 * @param level - 压缩级别，含义由具体编码决定，小于 0 则使用过滤器的默认级别
+	 */
+	public void setLevel(int level);
+}
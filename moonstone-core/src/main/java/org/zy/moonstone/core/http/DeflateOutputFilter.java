@@ -0,0 +1,265 @@
+package org.zy.moonstone.core.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zy.moonstone.core.util.net.interfaces.HttpOutputBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * @dateTime 2023年1月10日;
+ * @author zy(azurite-Y);
+ * @description 以 deflate(zlib 格式，RFC 1950)编码压缩响应体的输出过滤器，也是 {@link GzipOutputFilter } 的基础实现。
+ * <p>
+ * 直接使用 {@link Deflater } 将数据压缩到过滤器持有的输出缓冲区，缓冲区填满时整块交给下一个 {@link HttpOutputBuffer }。
+ * 过滤器随处理器一起复用，Deflater 与缓冲区在 {@link #recycle()} 时重置而不是重新创建，避免每个响应分配原生压缩资源，
+ * 处理器被丢弃时由 {@link #destroy()} 释放。
+ * 子类通过 {@link #writeHeader(byte[])}、{@link #update(byte[], int, int)} 与 {@link #writeTrailer(byte[], int, long)} 包装其他格式
+ */
+public class DeflateOutputFilter implements CompressionOutputFilter {
+	protected static final Logger logger = LoggerFactory.getLogger(DeflateOutputFilter.class);
+
+	/** 压缩输入与输出缓冲区的大小 */
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * 调用链中的下一个 {@link HttpOutputBuffer }
+	 */
+	protected HttpOutputBuffer httpOutputBuffer;
+
+	/** 默认压缩级别，取值范围 -1~9，-1 为 {@link Deflater#DEFAULT_COMPRESSION } */
+	private final int defaultLevel;
+
+	/** 当前响应使用的压缩级别 */
+	private int level;
+
+	/** 为 true 则不输出 zlib 头部与校验和，由子类自行包装 */
+	private final boolean nowrap;
+
+	/** 首次写入时创建 */
+	private Deflater deflater;
+
+	private final byte[] outputBytes = new byte[BUFFER_SIZE];
+
+	/** 包装 {@link #outputBytes} 的缓冲区，每次写出时调整其位置与界限 */
+	private final ByteBuffer outputBuffer = ByteBuffer.wrap(outputBytes);
+
+	/** 复制非数组支持缓冲区(如直接缓冲区)数据的中转数组，按需创建 */
+	private byte[] inputBytes;
+
+	/** 当前响应是否已开始压缩 */
+	private boolean started = false;
+
+
+	public DeflateOutputFilter() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param level - 默认压缩级别，取值范围 -1~9
+	 */
+	public DeflateOutputFilter(int level) {
+		this(level, false);
+	}
+
+	/**
+	 * @param level - 默认压缩级别，取值范围 -1~9
+	 * @param nowrap - 为 true 则只输出原始的 deflate 数据
+	 */
+	protected DeflateOutputFilter(int level, boolean nowrap) {
+		this.defaultLevel = level;
+		this.level = level;
+		this.nowrap = nowrap;
+	}
+
+
+	@Override
+	public void setLevel(int level) {
+		this.level = level < 0 ? defaultLevel : Math.min(level, Deflater.BEST_COMPRESSION);
+	}
+
+	@Override
+	public int doWrite(ByteBuffer chunk) throws IOException {
+		start();
+
+		int len = chunk.remaining();
+		if (chunk.hasArray()) {
+			deflate(chunk.array(), chunk.arrayOffset() + chunk.position(), len);
+			chunk.position(chunk.limit());
+		} else {
+			if (inputBytes == null) {
+				inputBytes = new byte[BUFFER_SIZE];
+			}
+			while (chunk.hasRemaining()) {
+				int n = Math.min(chunk.remaining(), inputBytes.length);
+				chunk.get(inputBytes, 0, n);
+				deflate(inputBytes, 0, n);
+			}
+		}
+		return len;
+	}
+
+	@Override
+	public void end() throws IOException {
+		start();
+
+		int trailerLength = getTrailerLength();
+		deflater.finish();
+		while (true) {
+			int n = deflater.deflate(outputBytes, 0, outputBytes.length);
+			if (!deflater.finished()) {
+				writeOutput(n);
+				continue;
+			}
+			// 尽量将尾部与最后一块压缩数据一同写出
+			if (n + trailerLength <= outputBytes.length) {
+				writeTrailer(outputBytes, n, deflater.getBytesRead());
+				writeOutput(n + trailerLength);
+			} else {
+				writeOutput(n);
+				writeTrailer(outputBytes, 0, deflater.getBytesRead());
+				writeOutput(trailerLength);
+			}
+			break;
+		}
+		httpOutputBuffer.end();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (started) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("刷新压缩流");
+			}
+			// 同步刷新使已写入的数据全部输出，客户端无需等待响应结束即可解压
+			int n;
+			do {
+				n = deflater.deflate(outputBytes, 0, outputBytes.length, Deflater.SYNC_FLUSH);
+				writeOutput(n);
+			} while (n == outputBytes.length);
+		}
+		httpOutputBuffer.flush();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return httpOutputBuffer.getBytesWritten();
+	}
+
+	@Override
+	public void setResponse(Response response) {
+		// 在此过滤器中不需要来自响应的参数
+	}
+
+	@Override
+	public void recycle() {
+		if (deflater != null) {
+			deflater.reset();
+		}
+		level = defaultLevel;
+		started = false;
+	}
+
+	@Override
+	public void setHttpOutputBuffer(HttpOutputBuffer buffer) {
+		this.httpOutputBuffer = buffer;
+	}
+
+	/**
+	 * 立即释放 Deflater 的原生内存，而不是等待其被垃圾回收
+	 */
+	@Override
+	public void destroy() {
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+		started = false;
+	}
+
+
+	// -------------------------------------------------------------------------------------
+	// 子类扩展方法
+	// -------------------------------------------------------------------------------------
+	/**
+	 * 在压缩数据之前写入格式头部
+	 *
+	 * @param buf - 输出数组
+	 * @return 写入的字节数
+	 */
+	protected int writeHeader(byte[] buf) {
+		return 0;
+	}
+
+	/**
+	 * 压缩之前检查原始数据，如计算校验和
+	 */
+	protected void update(byte[] b, int off, int len) {}
+
+	/**
+	 * @return 格式尾部的字节数
+	 */
+	protected int getTrailerLength() {
+		return 0;
+	}
+
+	/**
+	 * 在压缩数据之后写入格式尾部
+	 *
+	 * @param buf - 输出数组
+	 * @param offset - 写入位置
+	 * @param bytesRead - 原始数据的总字节数
+	 */
+	protected void writeTrailer(byte[] buf, int offset, long bytesRead) {}
+
+
+	// -------------------------------------------------------------------------------------
+	// 私有方法
+	// -------------------------------------------------------------------------------------
+	/**
+	 * 开始压缩当前响应，写出格式头部
+	 */
+	private void start() throws IOException {
+		if (started) {
+			return;
+		}
+		if (deflater == null) {
+			deflater = new Deflater(level, nowrap);
+		} else {
+			// 重置后尚未输入数据，新的级别对整个响应生效
+			deflater.setLevel(level);
+		}
+		started = true;
+		writeOutput(writeHeader(outputBytes));
+	}
+
+	/**
+	 * 压缩给定数据，Deflater 只持有输入数组的引用，所以返回前必须消费完所有输入
+	 */
+	private void deflate(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Deflate Compress. original: {}", len);
+		}
+		update(b, off, len);
+		deflater.setInput(b, off, len);
+		while (!deflater.needsInput()) {
+			writeOutput(deflater.deflate(outputBytes, 0, outputBytes.length, Deflater.NO_FLUSH));
+		}
+	}
+
+	/**
+	 * 将输出数组的前 len 个字节写到下一个缓冲区
+	 */
+	private void writeOutput(int len) throws IOException {
+		if (len <= 0) {
+			return;
+		}
+		outputBuffer.limit(len).position(0);
+		httpOutputBuffer.doWrite(outputBuffer);
+	}
+}
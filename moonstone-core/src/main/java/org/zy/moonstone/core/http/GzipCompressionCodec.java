@@ -0,0 +1,21 @@
+package org.zy.moonstone.core.http;
+
+import org.zy.moonstone.core.connector.CompressionConfig;
+import org.zy.moonstone.core.interfaces.http.CompressionCodec;
+
+/**
+ * @dateTime 2023年1月10日;
+ * @author zy(azurite-Y);
+ * @description 基于 JDK {@link java.util.zip.Deflater } 的 gzip(RFC 1952) 压缩编码，默认压缩级别取自 {@link CompressionConfig#getDeflateLevel() }
+ */
+public class GzipCompressionCodec implements CompressionCodec {
+	@Override
+	public String getEncoding() {
+		return "gzip";
+	}
+
+	@Override
+	public CompressionOutputFilter createOutputFilter(CompressionConfig compressionConfig) {
+		return new GzipOutputFilter(compressionConfig.getDeflateLevel());
+	}
+}
@@ -1,129 +1,68 @@
 package org.zy.moonstone.core.http;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.zy.moonstone.core.util.net.interfaces.HttpOutputBuffer;
-
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 /**
  * @dateTime 2022年12月6日;
  * @author zy(azurite-Y);
- * @description
+ * @description 以 gzip 格式压缩响应体的输出过滤器。在 {@link DeflateOutputFilter } 输出的原始 deflate 数据前后写出 gzip 头部与尾部(CRC32 与原始长度)
  */
-public class GzipOutputFilter implements OutputFilter {
-	protected static final Logger logger = LoggerFactory.getLogger(GzipOutputFilter.class);
+public class GzipOutputFilter extends DeflateOutputFilter {
+	/** gzip 头部：魔数、DEFLATE 压缩方法，不含可选字段 */
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
 
-	/**
-	 * 调用链中的下一个 {@link HttpOutputBuffer }
-	 */
-	protected HttpOutputBuffer httpOutputBuffer;
+	/** 原始数据的校验和 */
+	private final CRC32 crc = new CRC32();
 
-	/**
-	 * 压缩数据输出流
-	 */
-	protected GZIPOutputStream compressionStream = null;
+
+	public GzipOutputFilter() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
 
 	/**
-	 * 假内部输出流，接收 {@link #compressionStream} 的数据，并将数据写入到 {@link #httpOutputBuffer }
+	 * @param level - 默认压缩级别，取值范围 -1~9
 	 */
-	protected final OutputStream fakeOutputStream = new FakeOutputStream();
-
-
-	@Override
-	public int doWrite(ByteBuffer chunk) throws IOException {
-		if (compressionStream == null) {
-			compressionStream = new GZIPOutputStream(fakeOutputStream, true);
-		}
-		int len = chunk.remaining();
-		if (logger.isDebugEnabled()) {
-			logger.debug("Gzip Compress. original: {}", len);
-		}
-		
-		if (chunk.hasArray()) {
-			compressionStream.write(chunk.array(), chunk.arrayOffset() + chunk.position(), len);
-		} else {
-			byte[] bytes = new byte[len];
-			chunk.put(bytes);
-			compressionStream.write(bytes, 0, len);
-		}
-		return len;
+	public GzipOutputFilter(int level) {
+		super(level, true);
 	}
 
-	@Override
-	public void end() throws IOException {
-		if (compressionStream == null) {
-			compressionStream = new GZIPOutputStream(fakeOutputStream, true);
-		}
-		compressionStream.finish();
-		compressionStream.close();
-		httpOutputBuffer.end();
-	}
 
 	@Override
-	public void flush() throws IOException {
-		if (compressionStream != null) {
-            try {
-                if (logger.isDebugEnabled()) {
-                	logger.debug("刷新压缩流");
-                }
-                compressionStream.flush();
-            } catch (IOException e) {
-                if (logger.isDebugEnabled()) {
-                	logger.debug("在刷新gzip过滤器时忽略异常", e);
-                }
-            }
-        }
-        httpOutputBuffer.flush();
+	public void recycle() {
+		super.recycle();
+		crc.reset();
 	}
-	
+
 	@Override
-	public long getBytesWritten() {
-		return httpOutputBuffer.getBytesWritten();
+	protected int writeHeader(byte[] buf) {
+		System.arraycopy(GZIP_HEADER, 0, buf, 0, GZIP_HEADER.length);
+		return GZIP_HEADER.length;
 	}
 
 	@Override
-	public void setResponse(Response response) {
-		// 在此过滤器中不需要来自响应的参数
+	protected void update(byte[] b, int off, int len) {
+		crc.update(b, off, len);
 	}
 
 	@Override
-	public void recycle() {
-        compressionStream = null;
+	protected int getTrailerLength() {
+		return 8;
 	}
 
+	/**
+	 * 写入原始数据的 CRC32 与长度(模 2^32)，均为小端序
+	 */
 	@Override
-	public void setHttpOutputBuffer(HttpOutputBuffer buffer) {
-		this.httpOutputBuffer = buffer;
+	protected void writeTrailer(byte[] buf, int offset, long bytesRead) {
+		writeInt(buf, (int) crc.getValue(), offset);
+		writeInt(buf, (int) bytesRead, offset + 4);
 	}
 
-	protected class FakeOutputStream extends OutputStream {
-		protected final ByteBuffer outputChunk = ByteBuffer.allocate(1);
-		protected long writeByteLength = 0;
-		
-		@Override
-		public void write(int b) throws IOException {
-			// 不应该用于良好的性能，但是需兼容 Sun JDK 1.4.0
-			outputChunk.put(0, (byte) (b & 0xff));
-			writeByteLength += httpOutputBuffer.doWrite(outputChunk);
-		}
-
-		@Override
-		public void write(byte[] b, int off, int len) throws IOException {
-			writeByteLength += httpOutputBuffer.doWrite(ByteBuffer.wrap(b, off, len));
-		}
-
-		@Override
-		public void flush() throws IOException {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Gzip Compress. compressional: {}", writeByteLength);
-			}
-		}
-
-		@Override
-		public void close() throws IOException {}
+	private static void writeInt(byte[] buf, int value, int offset) {
+		buf[offset] = (byte) value;
+		buf[offset + 1] = (byte) (value >> 8);
+		buf[offset + 2] = (byte) (value >> 16);
+		buf[offset + 3] = (byte) (value >> 24);
 	}
 }
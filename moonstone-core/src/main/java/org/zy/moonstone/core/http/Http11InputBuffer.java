@@ -1,23 +1,22 @@
 package org.zy.moonstone.core.http;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.function.Supplier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zy.moonstone.core.Constants;
 import org.zy.moonstone.core.exceptions.CloseNowException;
 import org.zy.moonstone.core.util.RequestUtil;
-import org.zy.moonstone.core.util.buf.ByteArrayUtils;
+import org.zy.moonstone.core.util.buf.ByteChunk;
 import org.zy.moonstone.core.util.buf.MessageBytes;
 import org.zy.moonstone.core.util.http.MimeHeaders;
 import org.zy.moonstone.core.util.net.SocketWrapperBase;
 import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufAllocator;
-
 /**
  * @dateTime 2022年6月1日;
  * @author zy(azurite-Y);
@@ -32,20 +31,18 @@ public class Http11InputBuffer implements InputBuffer {
 	private final Request request;
 
 	/**
-	 * 是否拒绝非法请求头名称
+	 * 关联请求的请求头集合
 	 */
-//	private final boolean rejectIllegalHeaderName;
-
-	/** 记录HTTP请求行和请求头数据 */
-	StringBuilder requestHeaderBuilder = new StringBuilder();
+	private final MimeHeaders headers;
 
 	/**
-	 * 读取缓冲区，存储着请求头的数据
+	 * 是否拒绝非法请求头名称
 	 */
-	private ByteBuf byteBuf;
-	
+//	private final boolean rejectIllegalHeaderName;
+
 	/**
-	 * 可重用读取缓冲区
+	 * 可重用读取缓冲区，始终处于可读状态。[position, limit) 之间为已读取但尚未解析的数据。
+	 * 请求行和请求头的各项值以视图的形式直接引用此缓冲区的底层数组，所以在一次请求处理完成之前不会覆盖 [0, headerEnd) 之间的数据
 	 */
 	private ByteBuffer byteBuffer;
 
@@ -65,10 +62,46 @@ public class Http11InputBuffer implements InputBuffer {
 	private final int headerValueBufferSize;
 
 	/**
-	 * 解析请求行进度. [0-初始 1-请求行 2-请求头 3-请求体]
+	 * 请求行与请求头的最大字节数
+	 */
+	private final int headerBufferSize;
+
+	/**
+	 * 解析请求行进度. [0-初始 1-请求行 2-请求头 3-请求体]。
+	 * 0 代表尚未读取到当前请求的任何字节，其余值代表正在解析的部分
 	 */
 	private int parsingRequestLinePhase = 0;
 
+	/**
+	 * 是否仍在解析请求行或请求头，为 true 时缓冲区的可用空间限制为 {@link #headerBufferSize }
+	 */
+	private boolean parsingHeader = true;
+
+	/**
+	 * 请求头在缓冲区中的结束位置(不包含)，也即请求体数据的开始位置
+	 */
+	private int headerEnd = 0;
+
+	/**
+	 * 从缓冲区中读取原始请求体字节的底层输入缓冲区，位于过滤器管道的最前端
+	 */
+	private final InputBuffer socketInputBuffer;
+
+	/**
+	 * 用于处理请求体的过滤器数组
+	 */
+	private InputFilter[] filterLibrary;
+
+	/**
+	 * 当前请求使用的过滤器
+	 */
+	private InputFilter[] activeFilters;
+
+	/**
+	 * 最后一个活动过滤器的索引
+	 */
+	private int lastActiveFilter;
+
 	
 	// ----------------------------------------------------- 构造器 -----------------------------------------------------
 	/**
@@ -76,14 +109,24 @@ public class Http11InputBuffer implements InputBuffer {
 	 * @param request
 	 * @param headerNameBufferSize - 请求头参数名缓冲区极值
 	 * @param headerValueBufferSize - 请求头参数值缓冲区极值
+	 * @param maxHttpHeaderSize - 请求行与请求头的总字节极值
 	 */
 //	 * @param rejectIllegalHeaderName - 是否拒绝非法请求头名称
 	public Http11InputBuffer(Request request, int headerNameBufferSize, int headerValueBufferSize, int maxHttpHeaderSize) {
 		this.request = request;
+		this.headers = request.getMimeHeaders();
 		this.headerNameBufferSize = headerNameBufferSize;
 		this.headerValueBufferSize = headerValueBufferSize;
-        this.byteBuf = ByteBufAllocator.DEFAULT.buffer(1024, maxHttpHeaderSize);
-        this.byteBuffer = ByteBuffer.allocate(8192);
+		this.headerBufferSize = maxHttpHeaderSize;
+		// 在请求头之后预留出读取请求体的空间
+		this.byteBuffer = ByteBuffer.allocate(maxHttpHeaderSize + 8192);
+		this.byteBuffer.limit(0);
+		
+		filterLibrary = new InputFilter[0];
+		activeFilters = new InputFilter[0];
+		lastActiveFilter = -1;
+		
+		socketInputBuffer = new SocketInputBuffer();
 	}
 
 
@@ -94,337 +137,512 @@ public class Http11InputBuffer implements InputBuffer {
 	void recycle() {
 		socketWrapper = null;
 		request.recycle();
-		byteBuf.clear();
 		parsingRequestLinePhase = 0;
-		byteBuffer.clear();
-		requestHeaderBuilder.delete(0, requestHeaderBuilder.length());
+		parsingHeader = true;
+		headerEnd = 0;
+		byteBuffer.limit(0).position(0);
+		
+		for (int i = 0; i <= lastActiveFilter; i++) {
+			activeFilters[i].recycle();
+		}
+		lastActiveFilter = -1;
 	}
 
 	/**
-	 * 读取和解析请求字节。请求体字节数据后续按需读取
+	 * 读取和解析请求行与请求头。请求体字节数据后续按需读取。
+	 * <p>
+	 * 以行为单位在缓冲区中定位换行符，再对每一行按分隔符切分，解析结果以 {@link MessageBytes } 视图的形式直接引用缓冲区中的字节，
+	 * 解析过程中不会为请求行或请求头额外分配字节数组。
+	 * <p>
+	 * 套接字读取是非阻塞的。若当前已到达的数据不足以完成解析则返回 false，解析进度与已读取的数据都保存在此对象中，
+	 * 待套接字再次可读时调用此方法即可从中断处继续解析，而不会让工作线程阻塞等待慢速客户端
 	 * 
-	 * @return true则代表读取解析完成
+	 * @return true则代表读取解析完成，false则代表需要等待更多数据
 	 * @throws IOException - 如果在底层套接字读取操作期间发生异常
 	 * @since 1.1
 	 */
 	boolean readAndParseRequestBytes(boolean keptAlive, int connectionTimeout, int keepAliveTimeout) throws IOException {
-		if (keptAlive) {
-			this.socketWrapper.setKeepAliveLeft(keepAliveTimeout);
-		}
-
-		int nRead = 0;
 		if (this.socketWrapper == null) throw new CloseNowException();
 
-		RequestBufferEnhanceHanlder requestBufferEnhanceHanlder = new RequestBufferEnhanceHanlder();
-
-		boolean readding = true;
-		
 		if ( logger.isDebugEnabled() ) {
 			logger.debug("开始读取请求数据...");
 		}
 		
-		basic: while(readding) {
-			nRead += this.socketWrapper.read(true, this.byteBuffer);
-			this.byteBuffer.flip();
-			if (byteBuffer.remaining() == 0) {
-				return false;
-			}
-			while (byteBuffer.hasRemaining()) {
-				readding = requestBufferEnhanceHanlder.readAndParseRequestBytes(byteBuffer.get());
-				if (!readding) {
-					// 不继续处理缓冲区数据
-					break basic;
-				}
+		if (!parseRequestLine()) {
+			if (keptAlive && parsingRequestLinePhase == 0) {
+				// 尚未收到下一个请求的任何字节，以 keep-alive 超时等待
+				this.socketWrapper.setReadTimeout(keepAliveTimeout);
+			} else {
+				this.socketWrapper.setReadTimeout(connectionTimeout);
 			}
-			// 清空请求报文缓冲区，再此清空之后方便继续读取之后的请求报文
-			byteBuffer.clear();
-		}
-		
-		byteBuf.clear();
-		if ( logger.isDebugEnabled() ) {
-			logger.debug("Request Header: \n{}", requestHeaderBuilder.toString().trim());
+			return false;
 		}
 		
-		requestBufferEnhanceHanlder.prepareRequest(request);
-
 		/*
 		 * 至少已经接收到请求的一个字节。切换到套接字超时
 		 * 
 		 * 设置读取超时时间(毫秒)。值为-1表示无限超时，0或更小的值将被更改为1。
 		 */
 		this.socketWrapper.setReadTimeout(connectionTimeout);
+		
+		if (!parseHeaders()) {
+			return false;
+		}
+		
+		if ( logger.isDebugEnabled() ) {
+			logger.debug("Request Header: \n{}", new String(byteBuffer.array(), 0, headerEnd, StandardCharsets.ISO_8859_1).trim());
+		}
+		
+		prepareRequest();
+		
+		// 请求体的边界由处理器根据请求头选择的输入过滤器确定。读取到 get、head、delete时无需继续读取之后没有的请求体
+		if ( RequestUtil.hasRequestBody(request.method()) || request.getContentLengthLong() > 0 ) {
+			parsingRequestLinePhase = 3;
+		}
+		return true;
+	}
 
-		return nRead > 0 
-				? true 
-				: false ; // 未读到任何数据...
+	/**
+	 * 结束当前请求的读取。由各个活动过滤器跳过应用未读取的请求体数据，使缓冲区的读取位置指向下一个请求的开始
+	 * 
+	 * @throws IOException - 如果在底层套接字读取操作期间发生异常
+	 */
+	void endRequest() throws IOException {
+		for (int i = lastActiveFilter; i > 0; i--) {
+			activeFilters[i].end();
+		}
+		if (lastActiveFilter != -1) {
+			// 只有第一个过滤器直接从缓冲区读取，其多读取的字节属于下一个请求，需退回到缓冲区中
+			int extraBytes = (int) activeFilters[0].end();
+			byteBuffer.position(byteBuffer.position() - extraBytes);
+		}
 	}
 
+	/**
+	 * 为下一个请求做准备。已读取但尚未解析的数据(HTTP/1.1 管道化请求)会被移动到缓冲区的开始处保留下来
+	 */
 	public void nextRequest() {
-		socketWrapper = null;
-		parsingRequestLinePhase = 0;
-        request.recycle();
-        byteBuf.clear();
-        byteBuffer.clear();
-		requestHeaderBuilder.delete(0, requestHeaderBuilder.length());
+		request.recycle();
+		
+		if (byteBuffer.hasRemaining()) {
+			// 请求对象已回收，不再有视图引用缓冲区中的数据
+			byteBuffer.compact();
+			byteBuffer.flip();
+			// 已收到下一个请求的部分数据
+			parsingRequestLinePhase = 1;
+		} else {
+			byteBuffer.limit(0).position(0);
+			parsingRequestLinePhase = 0;
+		}
+		parsingHeader = true;
+		headerEnd = 0;
+		
+		for (int i = 0; i <= lastActiveFilter; i++) {
+			activeFilters[i].recycle();
+		}
+		lastActiveFilter = -1;
 	}
 	
-	void init(SocketWrapperBase<?> socketWrapper) {
-		this.socketWrapper = socketWrapper;
+	/**
+	 * Get filters.
+	 *
+	 * @return 包含所有可能过滤器的当前过滤器库
+	 */
+	InputFilter[] getFilters() {
+		return filterLibrary;
 	}
 	
-    int getParsingRequestLinePhase() {
-        return parsingRequestLinePhase;
-    }
+	/**
+	 * 将 InputFilter 添加到过滤器库。请注意，调用此方法会将 {@link #activeFilters 当前活动的过滤器 } 重置为None。
+	 *
+	 * @param filter - 添加的过滤器
+	 */
+	void addFilter(InputFilter filter) {
+		InputFilter[] newFilterLibrary = Arrays.copyOf(filterLibrary, filterLibrary.length + 1);
+		newFilterLibrary[filterLibrary.length] = filter;
+		filterLibrary = newFilterLibrary;
+		
+		activeFilters = new InputFilter[filterLibrary.length];
+	}
 	
 	/**
-	 * 延迟读取请求体数据
+	 * 将输入过滤器添加到当前请求的活动过滤器。
+	 * <p>
+	 * 一个过滤器只能添加到一个请求中一次。如果过滤器已经添加到此请求中，则此方法将是无操作的。
+	 * 
+	 * @param filter - 添加的Filter
 	 */
-	void deferredReadRequestBody() {
-		if (logger.isDebugEnabled()) {
-			logger.debug("InputStreamBuffer: [pos={} lim={} cap={}]", this.byteBuffer.position(), 
-					this.byteBuffer.limit(), this.byteBuffer.remaining());
+	void addActiveFilter(InputFilter filter) {
+		if (lastActiveFilter == -1) {
+			filter.setBuffer(socketInputBuffer);
+		} else {
+			for (int i = 0; i <= lastActiveFilter; i++) {
+				if (activeFilters[i] == filter)
+					return;
+			}
+			filter.setBuffer(activeFilters[lastActiveFilter]);
 		}
 		
-		Supplier<Byte> deferredSupplier = new Supplier<Byte>() {
-			
-			@Override
-			public Byte get() {
-				try {
-					if (!byteBuffer.hasRemaining()) {
-						// 清空缓冲区数据，使之变为可写状态
-						byteBuffer.clear();
-						socketWrapper.read(true, byteBuffer);
-						// 转换为可读状态
-						byteBuffer.flip();
-					}
-					return byteBuffer.get();
-					
-				} catch (IOException e) {
-					e.printStackTrace();
-					return null;
-				}
-			}
-		};
+		activeFilters[++lastActiveFilter] = filter;
 		
-		request.setRequestBodySupplier(deferredSupplier);
-//		
-//		while(this.byteBuffer.hasRemaining()) {
-//			System.out.print( (char)(byte)deferredSupplier.get() );
-//		}
+		filter.setRequest(request);
 	}
-
+	
 	/**
-	 * 读取和解析请求字节的内部类
-	 * @author Azurite-Y
-	 * @since 1.2
-	 *
+	 * @return 当前请求体是否使用分块传输编码
 	 */
-	private class RequestBufferEnhanceHanlder {
-		private byte[] method = null;
-
-		private byte[] uri = null;
-
-		private byte[] uriArgs = null;
-		private boolean uriArgsFlag = false;
-
-		/** {@linkplain Constants#QUESTION} 字节出现的索引下标 */
-		private int questionIndex = 0;
-
-		private byte[] protocol = null;
-		/**
-		 * 记录上次读取的字节索引
-		 */
-		private int laseEnd = 0;
-		/**
-		 * 记录单行请求数据中空格的出现次数
-		 */
-		private int space = 0;
-
-		private byte[] lineName = new byte[headerNameBufferSize];
-		private byte[] lineValue = new byte[headerValueBufferSize];
-		
-		/**
-		 *  每行请求头参数名字节的末尾索引
-		 */
-		private int lineNameIndex = 0;
-		/**
-		 *  每行请求头参数值字节的末尾索引
-		 */
-		private int lineValueIindex = 0;
-		/** 
-		 * 标识当前读取的字节是否是请求头名称的一部分
-		 */
-		private boolean nameByte = true;
-
-		/**
-		 * 记录最近已读的三个字节
-		 */
-		private byte[] lastByte = new byte[3];
-		/** 
-		 * 已记录的字节数量
-		 */
-		private byte lastByteCount = 0;
-
-		/**
-		 * 已解析请求的行数
-		 */
-		private int parsedLine = 1;
-
-		/**
-		 * 记录当前读取字节在缓冲区中的索引
-		 */
-		private int i;
-
-		private MimeHeaders mimeHeaders = request.getMimeHeaders();
-
-		public RequestBufferEnhanceHanlder() {
-			super();
+	boolean isChunking() {
+		for (int i = 0; i <= lastActiveFilter; i++) {
+			if (activeFilters[i] == filterLibrary[Constants.CHUNKED_INPUT_FILTER]) {
+				return true;
+			}
 		}
-
-		/**
-		 * 
-		 * @param readData - 当前读取的字节
-		 * @return true/false - 代表是否还需执行外层循环读取接下来的字节
-		 * @throws IOException 
-		 */
-		boolean readAndParseRequestBytes(byte readData) throws IOException {
-			if (byteBuf.writerIndex() == byteBuf.maxCapacity()) {
-				throw new IllegalArgumentException("请求头数据大于限制值[" + byteBuf.maxCapacity() + "]" );
+		return false;
+	}
+	
+	void init(SocketWrapperBase<?> socketWrapper) {
+		this.socketWrapper = socketWrapper;
+	}
+	
+	int getParsingRequestLinePhase() {
+		return parsingRequestLinePhase;
+	}
+	
+	/**
+	 * 解析请求行，解析完成之后 {@link #parsingRequestLinePhase } 为 2
+	 * 
+	 * @return true则代表请求行解析完成，false则代表已到达的数据不足一行
+	 * @throws IOException - 如果在底层套接字读取操作期间发生异常
+	 */
+	private boolean parseRequestLine() throws IOException {
+		byte[] buf = byteBuffer.array();
+		
+		while (parsingRequestLinePhase < 2) {
+			int lineStart = byteBuffer.position();
+			int lf = findLineEnd();
+			if (lf == -1) {
+				return false;
 			}
-			byteBuf.writeByte(readData);
-//			System.out.print((char)readData);
+			byteBuffer.position(lf + 1);
 			
-			i = byteBuf.writerIndex();
-
-			if ( logger.isDebugEnabled() ) {
-				requestHeaderBuilder.append((char)readData);
+			int lineEnd = trimLineEnd(buf, lineStart, lf);
+			if (lineEnd == lineStart) {
+				// RFC 7230: 请求行之前的空行应被忽略
+				continue;
 			}
 			
-			if (parsedLine == 1) { // 请求首行字节内容
-				if (space == 1 && readData == Constants.QUESTION) {
-					questionIndex = i + 1 ; // 加一是为了跳过当前问号字节而在下一次直接存储空问号之后的uri参数
-					uriArgsFlag = true;
-					return true;
-				}
-
-				if ( readData == Constants.SP ) { // " "
-					if (space == 0) {
-						// 存储行首到第一次出现空格之间的字符
-						method = new byte[i -1]; 
-						byteBuf.getBytes(0, method);
-					} else if (space == 1) {
-						if (uriArgsFlag) { // 解析url参数
-							uri = new byte[ questionIndex - laseEnd - 2];  // 存储第二次出现空格直接的字节，减去2是为了不读取当前的空格符和?字节
-							byteBuf.getBytes(laseEnd, uri); 
-							
-							uriArgs = new byte[i - questionIndex]; 
-							byteBuf.getBytes(questionIndex - 1 , uriArgs);  // 从?字节后读取
-						} else {
-							uri = new byte[ i - laseEnd -1];  // 存储第二次出现空格直接的字节
-							byteBuf.getBytes(laseEnd, uri); 
-						}
-					}
-					// 加一是为了跳过当前空格字节而在下一次直接存储空格之后的字节
-					laseEnd = i; 
-					space++;
-					return true;
-				} else if (readData == Constants.CR) { // "/r"，到此字节可以视为已读取到行末
-					// 存储第二次出现空格和回车之间的字节
-					protocol = new byte[i-laseEnd]; 
-					byteBuf.getBytes(laseEnd, protocol); 
-					parsingRequestLinePhase = 1;
-					return true;
-				}
-			} else if ( isReadNewLineByte(readData) ) { // 在一个换行符之后两位还是一个换行符，那么之后会存在一个空行
+			int methodEnd = ByteChunk.findByte(buf, lineStart, lineEnd, Constants.SP);
+			if (methodEnd == -1) {
+				throw new IllegalArgumentException("无效的请求行: " + new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.ISO_8859_1));
+			}
+			request.method().setBytes(buf, lineStart, methodEnd - lineStart);
+			
+			int uriStart = skipWhiteSpace(buf, methodEnd + 1, lineEnd);
+			int uriEnd = ByteChunk.findByte(buf, uriStart, lineEnd, Constants.SP);
+			if (uriEnd == -1) {
+				// HTTP/0.9 风格的请求行，没有协议部分
+				uriEnd = lineEnd;
+				request.protocol().setString("");
+			} else {
+				int protocolStart = skipWhiteSpace(buf, uriEnd + 1, lineEnd);
+				request.protocol().setBytes(buf, protocolStart, lineEnd - protocolStart);
+			}
+			if (uriEnd == uriStart) {
+				throw new IllegalArgumentException("无效的请求行，缺少请求URI");
+			}
+			
+			int question = ByteChunk.findByte(buf, uriStart, uriEnd, Constants.QUESTION);
+			if (question == -1) {
+				request.requestURI().setBytes(buf, uriStart, uriEnd - uriStart);
+			} else {
+				request.requestURI().setBytes(buf, uriStart, question - uriStart);
+				request.queryString().setBytes(buf, question + 1, uriEnd - question - 1);
+			}
+			parsingRequestLinePhase = 2;
+		}
+		return true;
+	}
+	
+	/**
+	 * 解析请求头，遇到空行之后解析完成，此时 {@link #parsingHeader } 为 false
+	 * 
+	 * @return true则代表请求头解析完成，false则代表已到达的数据不足一行
+	 * @throws IOException - 如果在底层套接字读取操作期间发生异常
+	 */
+	private boolean parseHeaders() throws IOException {
+		byte[] buf = byteBuffer.array();
+		
+		while (parsingHeader) {
+			int lineStart = byteBuffer.position();
+			int lf = findLineEnd();
+			if (lf == -1) {
+				return false;
+			}
+			byteBuffer.position(lf + 1);
+			
+			int lineEnd = trimLineEnd(buf, lineStart, lf);
+			if (lineEnd == lineStart) { // 空行，请求头读取完毕
 				if ( logger.isDebugEnabled() ) {
 					logger.debug("请求头读取完毕...");
 				}
-				parsingRequestLinePhase = 2;
-				// 读取到 get、head、delete时无需继续读取之后没有的请求体
-				if ( RequestUtil.hasRequestBody(method) ) {
-					parsingRequestLinePhase = 3;
-					deferredReadRequestBody();
-				}
+				headerEnd = byteBuffer.position();
+				parsingHeader = false;
+				break;
+			}
+			parseHeader(buf, lineStart, lineEnd);
+		}
+		return true;
+	}
+	
+	/**
+	 * 解析单行请求头。请求头名称在原缓冲区中转换为小写，请求头值去除两侧的空白符，只解析包含冒号的行
+	 * 
+	 * @param buf - 缓冲区底层数组
+	 * @param start - 行开始索引
+	 * @param end - 行结束索引(不包含回车换行符)
+	 */
+	private void parseHeader(byte[] buf, int start, int end) {
+		if (buf[start] == Constants.SP || buf[start] == Constants.HT) {
+			// 已废弃的折叠行(obs-fold)，忽略
+			return ;
+		}
+		
+		int colon = ByteChunk.findByte(buf, start, end, Constants.COLON);
+		if (colon == -1) {
+			return ;
+		}
+		
+		int nameEnd = trimWhiteSpace(buf, start, colon);
+		int nameLength = nameEnd - start;
+		if (nameLength > headerNameBufferSize) {
+			throw new IllegalArgumentException("请求头名称长度大于限制值[" + headerNameBufferSize + "]");
+		}
+		for (int i = start; i < nameEnd; i++) {
+			byte b = buf[i];
+			if (b > Constants.uppercaseByteMin && b < Constants.uppercaseByteMax) {
+				buf[i] = (byte) (b - Constants.LC_OFFSET);
+			}
+		}
+		
+		int valueStart = skipWhiteSpace(buf, colon + 1, end);
+		int valueEnd = trimWhiteSpace(buf, valueStart, end);
+		int valueLength = valueEnd - valueStart;
+		if (valueLength > headerValueBufferSize) {
+			throw new IllegalArgumentException("请求头值长度大于限制值[" + headerValueBufferSize + "]");
+		}
+		
+		MessageBytes valueMB = headers.addHeadNameValue(buf, start, nameLength);
+		valueMB.setBytes(buf, valueStart, valueLength);
+		
+		if ( equalsName(buf, start, nameLength, Constants.CONTENT_LENGTH_BYTES) ) {
+			request.setContentLength(valueMB.getLong());
+		} else if ( equalsName(buf, start, nameLength, Constants.CONTENT_TYPE_BYTES) ) {
+			request.setContentType(valueMB);
+		}
+	}
+	
+	/**
+	 * 从当前位置开始查找换行符，缓冲区中没有完整的行时以非阻塞方式从套接字中读取更多数据
+	 * 
+	 * @return 换行符在缓冲区中的索引，若套接字中暂无更多数据则返回 -1
+	 * @throws IOException - 如果在底层套接字读取操作期间发生异常
+	 */
+	private int findLineEnd() throws IOException {
+		int from = byteBuffer.position();
+		int lf;
+		while ((lf = ByteChunk.findByte(byteBuffer.array(), from, byteBuffer.limit(), Constants.LF)) == -1) {
+			// 已扫描过的数据无需再次扫描
+			from = byteBuffer.limit();
+			if (!fill(false)) {
+				return -1;
+			}
+		}
+		return lf;
+	}
+	
+	/**
+	 * 从套接字中读取数据追加到缓冲区已有数据之后，读取完成之后缓冲区的 position 保持不变
+	 * 
+	 * @param block - 是否阻塞读取
+	 * @return true则代表读取到了数据
+	 * @throws IOException - 如果在底层套接字读取操作期间发生异常
+	 */
+	private boolean fill(boolean block) throws IOException {
+		int readLimit;
+		if (parsingHeader) {
+			if (byteBuffer.limit() >= headerBufferSize) {
+				throw new IllegalArgumentException("请求头数据大于限制值[" + headerBufferSize + "]" );
+			}
+			readLimit = headerBufferSize;
+		} else {
+			readLimit = byteBuffer.capacity();
+		}
+		
+		byteBuffer.mark();
+		byteBuffer.position(byteBuffer.limit()).limit(readLimit);
+		int nRead = socketWrapper.read(block, byteBuffer);
+		byteBuffer.limit(byteBuffer.position()).reset();
+		
+		if (nRead > 0) {
+			if (parsingRequestLinePhase == 0) {
+				parsingRequestLinePhase = 1;
+			}
+			return true;
+		} else if (nRead == -1) {
+			throw new EOFException("读取请求数据时到达流末尾");
+		}
+		return false;
+	}
+	
+	/**
+	 * 填充解析到的相关请求参数
+	 */
+	private void prepareRequest() {
+		// 相对较早的解析 ContentType
+		request.parseContentType();
+		request.scheme().setString("http");
+	}
+	
+	@Override
+	public int doRead(byte[] b, int off, int len) throws IOException {
+		if (lastActiveFilter == -1) {
+			return socketInputBuffer.doRead(b, off, len);
+		} else {
+			return activeFilters[lastActiveFilter].doRead(b, off, len);
+		}
+	}
+	
+	@Override
+	public int doRead(ByteBuffer to) throws IOException {
+		if (lastActiveFilter == -1) {
+			return socketInputBuffer.doRead(to);
+		} else {
+			return activeFilters[lastActiveFilter].doRead(to);
+		}
+	}
+	
+	@Override
+	public int available() {
+		if (lastActiveFilter == -1) {
+			return socketInputBuffer.available();
+		} else {
+			return activeFilters[lastActiveFilter].available();
+		}
+	}
+	
+	@Override
+	public boolean isFinished() {
+		if (lastActiveFilter == -1) {
+			// 没有确定请求体边界的过滤器时视为没有请求体
+			return true;
+		} else {
+			return activeFilters[lastActiveFilter].isFinished();
+		}
+	}
+	
+	/**
+	 * 以阻塞方式读取请求体数据到缓冲区中。请求头之前的数据仍被引用，所以只复用请求头之后的空间
+	 * 
+	 * @throws IOException - 如果在底层套接字读取操作期间发生异常或在请求体读取完之前到达流末尾
+	 */
+	private void fillBody() throws IOException {
+		byteBuffer.limit(headerEnd).position(headerEnd);
+		if (!fill(true)) {
+			throw new EOFException("读取请求体时到达流末尾");
+		}
+	}
+	
+	/**
+	 * @return 去除行尾回车符之后的结束索引
+	 */
+	private static int trimLineEnd(byte[] buf, int start, int lf) {
+		return (lf > start && buf[lf - 1] == Constants.CR) ? lf - 1 : lf;
+	}
+	
+	/**
+	 * @return 从 start 开始第一个非空白符的索引，若都为空白符则返回 end
+	 */
+	private static int skipWhiteSpace(byte[] buf, int start, int end) {
+		while (start < end && (buf[start] == Constants.SP || buf[start] == Constants.HT)) {
+			start++;
+		}
+		return start;
+	}
+	
+	/**
+	 * @return 去除 end 之前的尾部空白符之后的结束索引(不包含)
+	 */
+	private static int trimWhiteSpace(byte[] buf, int start, int end) {
+		while (end > start && (buf[end - 1] == Constants.SP || buf[end - 1] == Constants.HT)) {
+			end--;
+		}
+		return end;
+	}
+	
+	/**
+	 * 比较缓冲区中的请求头名称与给定的小写名称字节
+	 */
+	private static boolean equalsName(byte[] buf, int start, int length, byte[] name) {
+		if (length != name.length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buf[start + i] != name[i]) {
 				return false;
-			} else if (parsedLine > 1 && readData != Constants.LF  && readData != Constants.CR && readData != Constants.SP) { // 只解析请求头中包含冒号的行，且忽略空格、、回车、换行符
-				if (nameByte) {
-					if (readData == Constants.COLON) { // 读取到冒号之后意味着之后的字节是请求头参数值
-						parsingRequestLinePhase = 2;
-						nameByte = false;
-					} else {
-						if (readData >= Constants.uppercaseByteMin && readData <= Constants.uppercaseByteMax) {
-							readData -= Constants.LC_OFFSET;
-						}
-
-						lineName[lineNameIndex++] = readData;
-					}
-				} else  {
-					lineValue[lineValueIindex++] = readData;
-				}
-				return true;
 			}
+		}
+		return true;
+	}
 
-			if (readData == Constants.LF ) { // 解析到换行符则意味着当前行已读取完成
-				parsedLine++;
-				if (lineNameIndex> 0) { // 确保已写入数据
-					nameByte = true;
-					MessageBytes messageByte = mimeHeaders.addHeadNameValue(lineName, 0, lineNameIndex);
-					// 有时字节数组中存储的数据并未充满整个数组
-					messageByte.setBytes(lineValue, 0, lineValueIindex);
-
-					
-					if ( ByteArrayUtils.equalsByte(lineName, Constants.CONTENT_LENGTH_BYTES) ) {
-						request.setContentLength(messageByte.getLong());
-					} else if ( ByteArrayUtils.equalsByte(lineName, Constants.CONTENT_TYPE_BYTES) ) {
-						request.setContentType(messageByte);
-					}
-
-					lineName = new byte[headerNameBufferSize];
-					lineValue = new byte[headerValueBufferSize];
-					lineNameIndex = 0;
-					lineValueIindex = 0;
+	
+	// ----------------------------------------------------- 内部类 -----------------------------------------------------
+	/**
+	 * 读取请求头之后的原始请求体字节，不处理请求体的边界。请求体的边界由其后的输入过滤器确定
+	 */
+	protected class SocketInputBuffer implements InputBuffer {
+
+		@Override
+		public int doRead(byte[] b, int off, int len) throws IOException {
+			int n;
+			if (byteBuffer.hasRemaining()) {
+				n = Math.min(len, byteBuffer.remaining());
+				byteBuffer.get(b, off, n);
+			} else if (len >= byteBuffer.capacity() - headerEnd) {
+				// 缓冲区已无数据且待读数据量较大，直接读取到调用方的数组中以避免一次复制
+				n = socketWrapper.read(true, b, off, len);
+				if (n <= 0) {
+					throw new EOFException("读取请求体时到达流末尾");
 				}
+			} else {
+				fillBody();
+				n = Math.min(len, byteBuffer.remaining());
+				byteBuffer.get(b, off, n);
 			}
-
-			return true;
+			return n;
 		}
 
-		/**
-		 * 是否已读取到空行
-		 * @param readData - 当前读取的字节
-		 * @return true表示着已读取到请求内容的空行
-		 */
-		boolean isReadNewLineByte(byte readData) {
-			if (lastByteCount <= 2) { // 一开始的数据填充阶段
-				lastByte[lastByteCount++] = readData;
-			} else { // 已记录了已读过的3个字节
-				lastByte[0] = lastByte[1];
-				lastByte[1] = lastByte[2];
-				lastByte[2] = readData;
-
-				if (readData == Constants.LF && lastByte[1] == Constants.CR && lastByte[0] == Constants.LF ) {
-					return true;
-				}
+		@Override
+		public int doRead(ByteBuffer to) throws IOException {
+			if (!byteBuffer.hasRemaining()) {
+				fillBody();
 			}
+			
+			int n = Math.min(to.remaining(), byteBuffer.remaining());
+			int limit = byteBuffer.limit();
+			byteBuffer.limit(byteBuffer.position() + n);
+			to.put(byteBuffer);
+			byteBuffer.limit(limit);
+			return n;
+		}
 
-			return false;
+		@Override
+		public int available() {
+			return byteBuffer.remaining();
 		}
-		
-		/**
-		 * 填充解析到的相关请求参数
-		 * @param request
-		 */
-		void prepareRequest(Request request) {
-			// 相对较早的解析 ContentType
-			request.parseContentType();
-			
-			request.scheme().setString("http");
-			request.method().setBytes(method);
-			
-			request.protocol().setBytes(protocol);
-			
-			request.requestURI().setBytes(uri);
-			if (uriArgsFlag) request.queryString().setBytes(uriArgs);
+
+		@Override
+		public boolean isFinished() {
+			return false;
 		}
 	}
 }
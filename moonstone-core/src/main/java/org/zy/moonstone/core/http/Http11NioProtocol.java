@@ -18,6 +18,26 @@ public class Http11NioProtocol extends AbstractHttp11JsseProtocol<NioChannel> {
 		super(new NioEndpoint());
 	}
 
+	// ------------------------------------------------------------- 属性 -------------------------------------------------------------
+	/**
+	 * 设置轮询器线程数，新建立的连接以轮询的方式分配到各个轮询器上
+	 * 
+	 * @param count - 轮询器线程数，小于 1 时视为 1
+	 */
+	public void setPollerThreadCount(int count) {
+		((NioEndpoint)getEndpoint()).setPollerThreadCount(count);
+	}
+	public int getPollerThreadCount() {
+		return ((NioEndpoint)getEndpoint()).getPollerThreadCount();
+	}
+
+	public void setPollerThreadPriority(int threadPriority) {
+		((NioEndpoint)getEndpoint()).setPollerThreadPriority(threadPriority);
+	}
+	public int getPollerThreadPriority() {
+		return ((NioEndpoint)getEndpoint()).getPollerThreadPriority();
+	}
+
 	@Override
 	protected Logger getLogger() {
 		return logger;
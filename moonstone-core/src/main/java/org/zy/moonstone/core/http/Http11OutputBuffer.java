@@ -14,6 +14,8 @@ import org.zy.moonstone.core.util.net.interfaces.HttpOutputBuffer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @dateTime 2022年7月20日;
@@ -23,6 +25,42 @@ import java.util.Arrays;
 public class Http11OutputBuffer implements HttpOutputBuffer {
 	private static final Logger logger = LoggerFactory.getLogger(Http11OutputBuffer.class);
 
+	/**
+	 * 预编码的状态行("HTTP/1.1 xxx \r\n")，以状态码为索引。原因短语(reason phrase)是可选的，但它前面的空格不是(RFC 7230)
+	 */
+	private static final byte[][] STATUS_LINES = new byte[600][];
+
+	/**
+	 * 预编码的常用响应头名称，以设置响应头时使用的名称字符串为键
+	 */
+	private static final Map<String, byte[]> COMMON_HEADER_NAMES = new HashMap<>();
+
+	/**
+	 * long 类型数值各位数的上限，用于计算数值的位数
+	 */
+	private static final long[] LONG_DIGIT_BOUNDS = new long[18];
+
+	static {
+		for (int status = 100; status < STATUS_LINES.length; status++) {
+			STATUS_LINES[status] = ByteChunk.convertToBytes(Constants.HTTP_11 + " " + status + " " + Constants.CRLF);
+		}
+
+		String[] headerNames = {
+				"Content-Type", "Content-Length", "Content-Language", "Content-Encoding",
+				Constants.TRANSFERENCODING, "Date", "Server", "server", Constants.CONNECTION, "Connection",
+				"Location", "Set-Cookie", "Cache-Control", "Expires",
+				"Last-Modified", "ETag", "Vary", "Accept-Ranges", "Content-Range", "Content-Disposition", "Trailer" };
+		for (String headerName : headerNames) {
+			COMMON_HEADER_NAMES.put(headerName, ByteChunk.convertToBytes(headerName));
+		}
+
+		long bound = 10;
+		for (int i = 0; i < LONG_DIGIT_BOUNDS.length; i++) {
+			LONG_DIGIT_BOUNDS[i] = bound;
+			bound *= 10;
+		}
+	}
+
 	/**
 	 * 提供对底层套接字访问的包装器
 	 */
@@ -143,6 +181,15 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
         socketWrapper = null;
     }
 
+    /**
+     * 释放所有过滤器持有的资源，在所属处理器被丢弃时调用
+     */
+    public void destroy() {
+        for (OutputFilter filter : filterLibrary) {
+            filter.destroy();
+        }
+    }
+
     /**
      * 如果在写响应头时发生错误，则重置响应头缓冲区，以便写入错误响应。
      */
@@ -159,6 +206,10 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
      * 注意：当前请求的所有字节应该已经被消耗掉了。 此方法仅重置所有指针，以便准备好解析下一个 HTTP 请求。
      */
     public void nextRequest() {
+        // 回收活动的过滤器，使其可用于下一个响应
+        for (int i = 0; i <= lastActiveFilter; i++) {
+            activeFilters[i].recycle();
+        }
         response.recycle();
         responseFinished = false;
         byteCount = 0;
@@ -179,30 +230,20 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
      * 发送响应状态行
      */
     public void sendStatus() {
-        // 写入协议名称
-        write(Constants.HTTP_11_BYTES);
-        headerBuffer.put(Constants.SP);
-
-        // 写入状态码
         int status = response.getStatus();
-        switch (status) {
-        case 200:
-            write(Constants._200_BYTES);
-            break;
-        case 400:
-            write(Constants._400_BYTES);
-            break;
-        case 404:
-            write(Constants._404_BYTES);
-            break;
-        default:
+        if (status >= 100 && status < STATUS_LINES.length) {
+            // 预编码的状态行
+            write(STATUS_LINES[status]);
+        } else {
+            // 写入协议名称
+            write(Constants.HTTP_11_BYTES);
+            headerBuffer.put(Constants.SP);
+            // 写入状态码
             write(status);
+            headerBuffer.put(Constants.SP);
+            // 原因短语(reason phrase) 是可选的，但它前面的空格不是。跳过发送原因短语。客户端应该忽略它(RFC 7230)，它只会浪费字节。
+            headerBuffer.put(Constants.CR).put(Constants.LF);
         }
-
-        headerBuffer.put(Constants.SP);
-//        headerBuffer.put("ok".getBytes());
-        // 原因短语(reason phrase) 是可选的，但它前面的空格不是。跳过发送原因短语。客户端应该忽略它(RFC 7230)，它只会浪费字节。
-        headerBuffer.put(Constants.CR).put(Constants.LF);
         
         
         if (logger.isDebugEnabled()) {
@@ -217,7 +258,12 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
      * @param value - 响应头值
      */
     public void sendHeader(MessageBytes name, MessageBytes value) {
-        write(name);
+        byte[] commonName = name.getType() == MessageBytes.T_STR ? COMMON_HEADER_NAMES.get(name.getString()) : null;
+        if (commonName != null) {
+            write(commonName);
+        } else {
+            write(name);
+        }
         headerBuffer.put(Constants.COLON).put(Constants.SP);
         write(value);
         headerBuffer.put(Constants.CR).put(Constants.LF);
@@ -359,37 +405,75 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
     }
     
 	/**
-	 * 此方法将把指定的消息字节缓冲区的内容写入输出流，而不进行过滤。该方法用于编写响应标头。
+	 * 此方法将把指定的消息字节缓冲区的内容写入输出流。该方法用于编写响应标头。
+	 * <p>
+	 * 写入时过滤掉除Tab以外的控制字符，不会修改消息字节本身。数值与 ASCII 字符串直接写入缓冲区，无需先转换为字节数组
 	 *
 	 * @param mb - 待写入数据
 	 */
 	private void write(MessageBytes mb) {
-		if (mb.getType() != MessageBytes.T_BYTES) {
-	        mb.toBytes();
-	        ByteChunk bc = mb.getByteChunk();
-	        // 需要过滤掉除Tab以外的ctl。ISO-8859-1和UTF-8值是可以的。使用其他编码的字符串可能被损坏。
-	        byte[] buffer = bc.getBuffer();
-	        for (int i = bc.getOffset(); i < bc.getLength(); i++) {
-	            // 这些值是无符号的。0到31是ctl，因此它们被过滤(除了TAB为9)。127是一个控制(DEL)。128 ~ 255都可以。将它们转换为有符号的结果是-128 = -1。
-	            if ((buffer[i] > -1 && buffer[i] <= 31 && buffer[i] != 9) || buffer[i] == 127) {
-	                buffer[i] = ' ';
-	            }
-	        }
-	    }
+		switch (mb.getType()) {
+		case MessageBytes.T_LONG:
+			write(mb.getLong());
+			return;
+		case MessageBytes.T_STR:
+			if (writeAscii(mb.getString())) {
+				return;
+			}
+			break;
+		case MessageBytes.T_BYTES:
+			ByteChunk bc = mb.getByteChunk();
+			write(bc.getBuffer(), bc.getStart(), bc.getLength());
+			return;
+		default:
+			break;
+		}
 		
-		if (mb.getType() != MessageBytes.T_BYTES) {
-	        mb.toBytes();
-	        ByteChunk bc = mb.getByteChunk();
-	        byte[] buffer = bc.getBuffer();
-	        for (int i = bc.getOffset(); i < bc.getLength(); i++) {
-	            // byte values are signed i.e. -128 to 127
-	            // 
-	            if ((buffer[i] > -1 && buffer[i] <= 31 && buffer[i] != 9) || buffer[i] == 127) {
-	                buffer[i] = ' ';
-	            }
-	        }
-	    }
-	    write(mb.getByteChunk().getBuffer());
+		// 包含非 ASCII 字符的字符串或字符数组，按其字符集编码之后写入
+		mb.toBytes();
+		ByteChunk bc = mb.getByteChunk();
+		write(bc.getBuffer(), bc.getStart(), bc.getLength());
+	}
+
+	/**
+	 * 写入字节数组的指定部分，过滤掉除Tab以外的控制字符
+	 */
+	private void write(byte[] b, int off, int len) {
+		checkLengthBeforeWrite(len);
+		for (int i = off, end = off + len; i < end; i++) {
+			headerBuffer.put(filterControl(b[i]));
+		}
+	}
+
+	/**
+	 * 将只包含 ASCII 字符的字符串直接写入缓冲区，过滤掉除Tab以外的控制字符
+	 *
+	 * @return false则代表字符串包含非 ASCII 字符，缓冲区保持不变
+	 */
+	private boolean writeAscii(String s) {
+		int len = s.length();
+		checkLengthBeforeWrite(len);
+		int start = headerBuffer.position();
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			if (c > 127) {
+				headerBuffer.position(start);
+				return false;
+			}
+			headerBuffer.put(filterControl((byte) c));
+		}
+		return true;
+	}
+
+	/**
+	 * 需要过滤掉除Tab以外的ctl。ISO-8859-1和UTF-8值是可以的。使用其他编码的字符串可能被损坏。
+	 * 这些值是无符号的。0到31是ctl，因此它们被过滤(除了TAB为9)。127是一个控制(DEL)。128 ~ 255都可以。将它们转换为有符号的结果是-128 = -1。
+	 */
+	private static byte filterControl(byte b) {
+		if ((b > -1 && b <= 31 && b != 9) || b == 127) {
+			return ' ';
+		}
+		return b;
 	}
 
 	/**
@@ -398,16 +482,43 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
 	 * @param value - 要写入的数据
 	 */
 	private void write(int value) {
-	    String s = Integer.toString(value);
-	    int len = s.length();
-	    checkLengthBeforeWrite(len);
-	    for (int i = 0; i < len; i++) {
-	        char c = s.charAt (i);
-	        headerBuffer.put((byte) c);
-	    }
+		write((long) value);
 	}
 
 	/**
+	 * 将指定的数值以十进制形式直接写入缓冲区，不创建中间字符串
+	 *
+	 * @param value - 要写入的数据
+	 */
+	private void write(long value) {
+		if (value == Long.MIN_VALUE) {
+			write(ByteChunk.convertToBytes(Long.toString(value)));
+			return;
+		}
+		boolean negative = value < 0;
+		if (negative) {
+			value = -value;
+		}
+		int digits = 1;
+		while (digits <= LONG_DIGIT_BOUNDS.length && value >= LONG_DIGIT_BOUNDS[digits - 1]) {
+			digits++;
+		}
+		int len = negative ? digits + 1 : digits;
+		checkLengthBeforeWrite(len);
+
+		int start = headerBuffer.position();
+		if (negative) {
+			headerBuffer.put(start, (byte) '-');
+		}
+		// 从低位向高位逆序填充
+		for (int i = start + len - 1; i >= start + len - digits; i--) {
+			headerBuffer.put(i, (byte) ('0' + (value % 10)));
+			value /= 10;
+		}
+		headerBuffer.position(start + len);
+	}
+
+    /**
      * 此类是一个输出缓冲区，它将数据写入套接字
      */
     protected class SocketOutputBuffer implements HttpOutputBuffer {
@@ -6,14 +6,14 @@ import org.zy.moonstone.core.Constants;
 import org.zy.moonstone.core.Globals;
 import org.zy.moonstone.core.exceptions.HeadersTooLargeException;
 import org.zy.moonstone.core.interfaces.connector.Adapter;
+import org.zy.moonstone.core.interfaces.http.CompressionCodec;
 import org.zy.moonstone.core.util.ErrorState;
 import org.zy.moonstone.core.util.ExceptionUtils;
 import org.zy.moonstone.core.util.ServerInfo;
-import org.zy.moonstone.core.util.buf.ByteArrayUtils;
 import org.zy.moonstone.core.util.buf.ByteChunk;
 import org.zy.moonstone.core.util.buf.MessageBytes;
 import org.zy.moonstone.core.util.http.ActionCode;
-import org.zy.moonstone.core.util.http.FastHttpDateFormat;
+import org.zy.moonstone.core.util.http.HttpDateClock;
 import org.zy.moonstone.core.util.http.MimeHeaders;
 import org.zy.moonstone.core.util.net.AbstractEndpoint.Handler.SocketState;
 import org.zy.moonstone.core.util.net.*;
@@ -59,6 +59,11 @@ public class Http11Processor extends AbstractProcessor {
 	 */
 	private SendfileDataBase sendfileData = null;
 
+	/**
+	 * 可用的压缩编码，按服务端优先顺序排列
+	 */
+	private final CompressionCodec[] compressionCodecs;
+
 	/**
 	 * 请求的内容分隔符(如果为false，连接将在请求结束时关闭)。
 	 */
@@ -78,12 +83,22 @@ public class Http11Processor extends AbstractProcessor {
 		httpInputBuffer = new Http11InputBuffer(request, protocol.getMaxHttpHeaderNameSize(), protocol.getMaxHttpHeaderValueSize(), protocol.getMaxHttpHeaderSize());
 		request.setInputBuffer(httpInputBuffer);
 
+		httpInputBuffer.addFilter(new IdentityInputFilter(protocol.getMaxSwallowSize()));
+		httpInputBuffer.addFilter(new ChunkedInputFilter(protocol.getMaxSwallowSize()));
+		httpInputBuffer.addFilter(new VoidInputFilter());
+		httpInputBuffer.addFilter(new BufferedInputFilter());
+
 		httpOutputBuffer = new Http11OutputBuffer(response, protocol.getMaxHttpHeaderSize());
 		response.setHttpOutputBuffer(httpOutputBuffer);
 
 		//		httpOutputBuffer.addFilter(new IdentityOutputFilter());
 		httpOutputBuffer.addFilter(new ChunkedOutputFilter());
-		httpOutputBuffer.addFilter(new GzipOutputFilter());
+
+		// 每个压缩编码对应一个随处理器复用的输出过滤器，从 Constants.COMPRESSION_FILTER 开始按编码顺序排列
+		compressionCodecs = protocol.getCompressionCodecs();
+		for (CompressionCodec compressionCodec : compressionCodecs) {
+			httpOutputBuffer.addFilter(compressionCodec.createOutputFilter(protocol.getCompressionConfig()));
+		}
 
 	}
 
@@ -109,13 +124,20 @@ public class Http11Processor extends AbstractProcessor {
 				setErrorState(ErrorState.CLOSE_CLEAN, null);
 			} else {
 				keptAlive = true;
-				// 设置最大请求头数
-				request.getMimeHeaders().setLimit(protocol.getMaxHeaderCount());
-
-				// 读取请求数据，并解析请求头
-				if (!httpInputBuffer.readAndParseRequestBytes(keptAlive, protocol.getConnectionTimeout(), protocol.getKeepAliveTimeout())) {
-					handleIncompleteRequestLineRead();
-				} else {
+				/*
+				 * 循环处理缓冲区中的请求。一次读取中可能包含多个管道化(pipelining)请求，处理完当前请求之后若缓冲区中还有剩余数据，
+				 * 则在此继续解析处理下一个请求，而不是返回轮询器等待下一次读取事件
+				 */
+				while (!getErrorState().isError() && keepAlive && !isAsync() && !isUpgrade() && sendfileState == SendfileState.DONE && !protocol.isPaused()) {
+					rp.setStage(Globals.STAGE_PARSE);
+					// 设置最大请求头数
+					request.getMimeHeaders().setLimit(protocol.getMaxHeaderCount());
+
+					// 读取请求数据，并解析请求头
+					if (!httpInputBuffer.readAndParseRequestBytes(keptAlive, protocol.getConnectionTimeout(), protocol.getKeepAliveTimeout())) {
+						handleIncompleteRequestLineRead();
+						break;
+					}
 					/*
 					 * 请求正常处理之后才进行如下逻辑
 					 * 1. prepareRequest(): 解析请求头
@@ -212,8 +234,11 @@ public class Http11Processor extends AbstractProcessor {
 						rp.setStage(Globals.STAGE_KEEPALIVE);
 						sendfileState = processSendfile(socketWrapper);
 					}
+					/*
+					 * 继续解析下一个请求。缓冲区中没有管道化的请求时，下一次非阻塞读取不会读取到数据，
+					 * 由 handleIncompleteRequestLineRead() 保持连接并设置 keep-alive 超时之后返回轮询器
+					 */
 				}
-				
 			}
 		} catch (IOException e) {
 			if (logger.isDebugEnabled()) {
@@ -249,7 +274,8 @@ public class Http11Processor extends AbstractProcessor {
 					if (readComplete) {
 						return SocketState.OPEN;
 					} else {
-						return SocketState.END;
+						// 已读取部分请求数据，保持处理器与套接字关联，待套接字再次可读时继续解析
+						return SocketState.LONG;
 					}
 				} else {
 					return SocketState.CLOSED;
@@ -267,6 +293,20 @@ public class Http11Processor extends AbstractProcessor {
 			checkExpectationAndResponseStatus();
 		}
 
+		if (keepAlive && getErrorState().isIoAllowed()) {
+			try {
+				// 跳过未读取的请求体，以便正确定位到下一个管道化请求的开始。连接不再保持时无需跳过
+				httpInputBuffer.endRequest();
+			} catch (IOException e) {
+				setErrorState(ErrorState.CLOSE_CONNECTION_NOW, e);
+			} catch (Throwable t) {
+				ExceptionUtils.handleThrowable(t);
+				// 500 - 内部服务器错误
+				response.setStatus(500);
+				setErrorState(ErrorState.CLOSE_NOW, t);
+				logger.error("请求结束处理错误", t);
+			}
+		}
 		if (getErrorState().isIoAllowed()) {
 			try {
 				action(ActionCode.COMMIT, null);
@@ -320,9 +360,9 @@ public class Http11Processor extends AbstractProcessor {
 		}
 
 		// 检查压缩情况
-		boolean useCompression = false;
+		CompressionCodec compressionCodec = null;
 		if (entityBody && sendfileData == null) {
-			useCompression = protocol.useCompression(request, response);
+			compressionCodec = protocol.useCompression(request, response);
 		}
 
 		MimeHeaders headers = response.getMimeHeaders();
@@ -354,15 +394,21 @@ public class Http11Processor extends AbstractProcessor {
 			}
 		}
 
-		if (useCompression) {
-			httpOutputBuffer.addActiveFilter(outputFilters[Constants.GZIP_FILTER]);
-			headers.addHeadNameValue(Constants.CONTENT_ENCODING).setString(Constants.GZIP);
-			
+		// Content-Encoding 响应头已在协商压缩编码时设置
+		if (compressionCodec != null) {
+			for (int i = 0; i < compressionCodecs.length; i++) {
+				if (compressionCodecs[i] == compressionCodec) {
+					CompressionOutputFilter compressionFilter = (CompressionOutputFilter) outputFilters[Constants.COMPRESSION_FILTER + i];
+					compressionFilter.setLevel(protocol.getMimeTypeCompressionLevel(response.getContentType()));
+					httpOutputBuffer.addActiveFilter(compressionFilter);
+					break;
+				}
+			}
 		}
 
 		// 添加日期header头
 		if (headers.getValue("Date") == null) {
-			headers.addHeadNameValue("Date").setString(FastHttpDateFormat.getCurrentDate());
+			headers.addHeadNameValue("Date").setBytes(HttpDateClock.getCurrentDateBytes());
 		}
 
 		if ( (entityBody) && (!contentDelimitation) ) {
@@ -548,8 +594,19 @@ public class Http11Processor extends AbstractProcessor {
 
 	@Override
 	protected boolean isTrailerFieldsReady() {
-		// socket 输入流读取不支持对请求的chunked数据块解析
-		return false;
+		// 只有分块传输的请求体才有尾部字段，在读取到最后一个块之后就绪
+		if (httpInputBuffer.isChunking()) {
+			return httpInputBuffer.isFinished();
+		} else {
+			return true;
+		}
+	}
+
+	@Override
+	protected void setRequestBody(ByteChunk body) {
+		BufferedInputFilter savedBody = (BufferedInputFilter) httpInputBuffer.getFilters()[Constants.BUFFERED_INPUT_FILTER];
+		savedBody.setBody(body);
+		httpInputBuffer.addActiveFilter(savedBody);
 	}
 
 	/**
@@ -590,9 +647,9 @@ public class Http11Processor extends AbstractProcessor {
 		// 检查 connection 请求头
 		MessageBytes connectionValueMB = mimeHeaders.getValue(Constants.CONNECTION);
 		if (connectionValueMB != null && !connectionValueMB.isNull()) {
-			if (ByteArrayUtils.equalsByte(connectionValueMB.getByteChunk().getBuffer(), Constants.CLOSE_BYTES)) {
+			if (connectionValueMB.equalsIgnoreCase(Constants.CLOSE_TOKEN)) {
 				keepAlive = false;
-			} else if (ByteArrayUtils.equalsByte(connectionValueMB.getByteChunk().getBuffer(), Constants.KEEP_ALIVE_HEADER_VALUE_BYTES)) {
+			} else if (connectionValueMB.equalsIgnoreCase(Constants.KEEP_ALIVE_HEADER_VALUE_TOKEN)) {
 				keepAlive = true;
 			}
 		}
@@ -620,16 +677,59 @@ public class Http11Processor extends AbstractProcessor {
 		} else {
 			ByteChunk hostValueByteChunk = hostValueMB.getByteChunk();
 
+			// 请求头值是请求缓冲区中的视图，需从视图的开始索引处解析
 			byte[] buffer = hostValueByteChunk.getBuffer();
-			int leng = hostValueByteChunk.getEnd();
-			for (int i = 0; i < leng; i++) {
-				if (buffer[i] == Constants.COLON) {
-					request.setServerPort( Integer.valueOf(new String(buffer, i + 1, leng - i - 1).trim()) );
-					request.serverName().setBytes(buffer, 0 , i);
-					break;
+			int start = hostValueByteChunk.getStart();
+			int end = hostValueByteChunk.getEnd();
+			int colon = ByteChunk.findByte(buffer, start, end, Constants.COLON);
+			if (colon != -1) {
+				request.setServerPort( Integer.valueOf(new String(buffer, colon + 1, end - colon - 1).trim()) );
+				request.serverName().setBytes(buffer, start , colon - start);
+			}
+		}
+
+		// 根据请求头选择确定请求体边界的输入过滤器
+		InputFilter[] inputFilters = httpInputBuffer.getFilters();
+		boolean bodyDelimitation = false;
+
+		MessageBytes transferEncodingValueMB = mimeHeaders.getValue(Constants.TRANSFERENCODING);
+		if (transferEncodingValueMB != null && !transferEncodingValueMB.isNull()) {
+			// 只支持分块传输编码，其他传输编码无法确定请求体的边界
+			if (transferEncodingValueMB.toString().trim().equalsIgnoreCase(Constants.CHUNKED)) {
+				httpInputBuffer.addActiveFilter(inputFilters[Constants.CHUNKED_INPUT_FILTER]);
+				bodyDelimitation = true;
+			} else {
+				// 501 - 未实现
+				response.setStatus(501);
+				setErrorState(ErrorState.CLOSE_CLEAN, null);
+				if (logger.isDebugEnabled()) {
+					logger.debug("不支持的传输编码: {}", transferEncodingValueMB);
 				}
 			}
 		}
+
+		long contentLength = request.getContentLengthLong();
+		if (contentLength >= 0) {
+			if (bodyDelimitation) {
+				// RFC 7230 3.3.3: 同时存在 Transfer-Encoding 与 Content-Length 时忽略后者，并在请求结束后关闭连接
+				mimeHeaders.removeHeader("content-length");
+				request.setContentLength(-1);
+				keepAlive = false;
+			} else {
+				httpInputBuffer.addActiveFilter(inputFilters[Constants.IDENTITY_INPUT_FILTER]);
+				bodyDelimitation = true;
+			}
+		}
+
+		if (!bodyDelimitation) {
+			// 没有请求体
+			httpInputBuffer.addActiveFilter(inputFilters[Constants.VOID_INPUT_FILTER]);
+		}
+
+		// 告知 Servlet 此连接器可通过 sendfile 发送文件
+		if (protocol.getUseSendfile()) {
+			request.setAttribute(Constants.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+		}
 	}
 
 	private void badRequest(String errorKey) {
@@ -641,7 +741,10 @@ public class Http11Processor extends AbstractProcessor {
 	}
 
 	/**
-	 * 处理不完整的请求行读取
+	 * 处理不完整的请求行读取。
+	 * <p>
+	 * 若尚未读取到请求的任何数据(keep-alive 连接空闲)，则释放处理器并重新注册读取事件；
+	 * 若已读取到部分请求数据，则需保持处理器与套接字关联，以便在下一次读取事件时从中断处继续解析
 	 * @return
 	 */
 	private boolean handleIncompleteRequestLineRead() {
@@ -655,7 +758,7 @@ public class Http11Processor extends AbstractProcessor {
 			return false;
 		} 
 		
-		if (httpInputBuffer.getParsingRequestLinePhase() == 0) {
+		if (httpInputBuffer.getParsingRequestLinePhase() > 0) {
 			// 需要保持处理器与套接字关联
 			readComplete = false;
 		}
@@ -673,6 +776,11 @@ public class Http11Processor extends AbstractProcessor {
         sendfileData = null;
         sslSupport = null;
     }
+
+    @Override
+    public void destroy() {
+        httpOutputBuffer.destroy();
+    }
 	
 	/**
 	 * 确定是否必须因为 HTTP 状态码而断开连接。 使用与 Apache/httpd 相同的代码列表。
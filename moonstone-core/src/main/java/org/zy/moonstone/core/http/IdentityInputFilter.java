@@ -0,0 +1,130 @@
+package org.zy.moonstone.core.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
+
+/**
+ * @dateTime 2022年12月20日;
+ * @author zy(azurite-Y);
+ * @description 由 "Content-Length" 请求头确定请求体边界的输入过滤器
+ */
+public class IdentityInputFilter implements InputFilter {
+	/**
+	 * 跳过剩余请求体时使用的缓冲区大小
+	 */
+	private static final int SWALLOW_BUFFER_SIZE = 8192;
+
+	/**
+	 * 请求体的长度
+	 */
+	protected long contentLength = -1;
+
+	/**
+	 * 尚未读取的请求体字节数
+	 */
+	protected long remaining = 0;
+
+	/**
+	 * 过滤器管道中的上一个缓冲区
+	 */
+	protected InputBuffer buffer;
+
+	/**
+	 * 跳过剩余请求体时使用的缓冲区，按需创建
+	 */
+	private byte[] swallowBuffer;
+
+	/**
+	 * 请求结束时最多跳过的未读取请求体字节数，小于0则代表不限制
+	 */
+	private final int maxSwallowSize;
+
+
+	/**
+	 * @param maxSwallowSize - 请求结束时最多跳过的未读取请求体字节数，小于0则代表不限制
+	 */
+	public IdentityInputFilter(int maxSwallowSize) {
+		this.maxSwallowSize = maxSwallowSize;
+	}
+
+	@Override
+	public void setRequest(Request request) {
+		contentLength = request.getContentLengthLong();
+		remaining = contentLength;
+	}
+
+	@Override
+	public int doRead(byte[] b, int off, int len) throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int nRead = buffer.doRead(b, off, (int) Math.min(len, remaining));
+		if (nRead < 0) {
+			throw new EOFException("读取请求体时到达流末尾，尚有[" + remaining + "]字节未读取");
+		}
+		remaining -= nRead;
+		return nRead;
+	}
+
+	@Override
+	public int doRead(ByteBuffer to) throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int limit = to.limit();
+		if (to.remaining() > remaining) {
+			to.limit(to.position() + (int) remaining);
+		}
+		int nRead;
+		try {
+			nRead = buffer.doRead(to);
+		} finally {
+			to.limit(limit);
+		}
+		if (nRead < 0) {
+			throw new EOFException("读取请求体时到达流末尾，尚有[" + remaining + "]字节未读取");
+		}
+		remaining -= nRead;
+		return nRead;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(buffer.available(), Math.max(remaining, 0));
+	}
+
+	@Override
+	public long end() throws IOException {
+		if (maxSwallowSize > -1 && remaining > maxSwallowSize) {
+			// 不再跳过过大的请求体，由处理器关闭连接
+			throw new IOException("未读取的请求体[" + remaining + "]字节大于可跳过的限制值[" + maxSwallowSize + "]");
+		}
+		if (remaining > 0 && swallowBuffer == null) {
+			swallowBuffer = new byte[SWALLOW_BUFFER_SIZE];
+		}
+		while (remaining > 0) {
+			doRead(swallowBuffer, 0, swallowBuffer.length);
+		}
+		// 读取总是以剩余长度为界，不会多读
+		return 0;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return remaining <= 0;
+	}
+
+	@Override
+	public void setBuffer(InputBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	@Override
+	public void recycle() {
+		contentLength = -1;
+		remaining = 0;
+	}
+}
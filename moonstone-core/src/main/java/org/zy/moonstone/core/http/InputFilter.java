@@ -0,0 +1,42 @@
+package org.zy.moonstone.core.http;
+
+import java.io.IOException;
+
+import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
+
+/**
+ * @dateTime 2022年12月20日;
+ * @author zy(azurite-Y);
+ * @description 请求体的输入过滤器，与 {@link OutputFilter } 对应。过滤器按添加顺序串联，每个过滤器从管道中的上一个缓冲区读取数据
+ */
+public interface InputFilter extends InputBuffer {
+	/**
+	 * 有些Filter需要来自请求的附加参数。该方法在请求头解析完成后调用
+	 *
+	 * @param request - 要与此InputFilter关联的请求
+	 */
+	public void setRequest(Request request);
+
+
+	/**
+	 * 使Filter准备好处理下一个请求
+	 */
+	public void recycle();
+
+
+	/**
+	 * 设置过滤器管道中的上一个缓冲区
+	 *
+	 * @param buffer - 上一个缓冲区实例
+	 */
+	public void setBuffer(InputBuffer buffer);
+
+
+	/**
+	 * 结束当前请求，跳过应用未读取的请求体数据
+	 *
+	 * @return 从上一个缓冲区中多读取的字节数，即已读取但不属于当前请求体的字节数
+	 * @throws IOException - 如果在读取剩余请求体数据期间发生异常
+	 */
+	public long end() throws IOException;
+}
@@ -28,4 +28,10 @@ public interface OutputFilter extends HttpOutputBuffer {
      * @param buffer - 下一个缓冲区实例
      */
     public void setHttpOutputBuffer(HttpOutputBuffer buffer);
+
+
+    /**
+     * 释放过滤器持有的资源(如原生压缩资源)，在所属处理器被丢弃时调用，之后过滤器不再使用
+     */
+    default void destroy() {}
 }
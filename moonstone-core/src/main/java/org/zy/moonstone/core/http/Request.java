@@ -1,6 +1,7 @@
 package org.zy.moonstone.core.http;
 
 import org.zy.moonstone.core.Globals;
+import org.zy.moonstone.core.exceptions.RequestBodyTooLargeException;
 import org.zy.moonstone.core.util.buf.MessageBytes;
 import org.zy.moonstone.core.util.http.ActionCode;
 import org.zy.moonstone.core.util.http.ActionHook;
@@ -10,13 +11,15 @@ import org.zy.moonstone.core.util.http.parser.HttpParser;
 import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
 
 import javax.servlet.ReadListener;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Supplier;
 
 /**
  * @dateTime 2022年5月25日;
@@ -89,9 +92,6 @@ public final class Request {
 	@Deprecated
 	private byte[] requestBodyLine = null;
 	
-	/** 请求行数据的延迟提供者 */
-	private Supplier<Byte> deferredSupplier = null;
-	
 	/** 已从流中读取到的第一个请求体数据 */
 //	private byte firstBodyByte;
 	
@@ -248,30 +248,65 @@ public final class Request {
 		this.localPort = port;
 	}
 
-	protected void setRequestBodySupplier(Supplier<Byte> deferredSupplier) {
-		this.deferredSupplier = deferredSupplier;
-	}
-	
-	public Supplier<Byte> getRequestBodySupplier() {
-		if (requestBodyReaded) {
-			throw new IllegalStateException("请求体字节数据已在'getRequestBodyByte()'方法读取，不支持可重复读");
-		}
-		return deferredSupplier;
+	/**
+	 * 一次性读取全部请求体数据
+	 * 
+	 * @return 请求体数据
+	 * @throws IOException - 如果在读取过程中发生 I/O 错误或在读取完之前到达流末尾
+	 */
+	public byte[] getRequestBodyByte() throws IOException {
+		return getRequestBodyByte(-1);
 	}
 
-	public byte[] getRequestBodyByte() {
+	/**
+	 * 一次性读取全部请求体数据，读取的字节数超过给定限制时立即停止读取
+	 * 
+	 * @param maxSize - 允许的最大请求体字节数，小于0则代表不限制
+	 * @return 请求体数据
+	 * @throws RequestBodyTooLargeException - 如果请求体大于给定限制
+	 * @throws IOException - 如果在读取过程中发生 I/O 错误或在读取完之前到达流末尾
+	 */
+	public byte[] getRequestBodyByte(int maxSize) throws IOException {
 		if (requestBodyReaded) {
 			throw new IllegalStateException("请求体字节数据不支持可重复读");
 		}
 		requestBodyReaded = true;
 
-		byte[] arr = new byte[(int) contentLength];
-    	
-		for (int j = 0; j < contentLength; j++) {
-			arr[j] = deferredSupplier.get(); 
+		long contentLength = getContentLengthLong();
+		if (contentLength >= 0) {
+			if (maxSize >= 0 && contentLength > maxSize) {
+				throw new RequestBodyTooLargeException(contentLength, maxSize);
+			}
+			byte[] arr = new byte[(int) contentLength];
+			int off = 0;
+			while (off < arr.length) {
+				int n = doRead(arr, off, arr.length - off);
+				if (n < 0) {
+					throw new EOFException("请求体数据不完整，期望[" + arr.length + "]字节，实际读取[" + off + "]字节");
+				}
+				off += n;
+			}
+			return arr;
 		}
 		
-		return arr;
+		// 请求体长度未知(如分块传输编码)，读取直至请求体末尾。数组最多扩容到限制值加一，以便发现超出限制的请求体
+		byte[] arr = new byte[maxSize >= 0 ? (int) Math.min(8192, maxSize + 1L) : 8192];
+		int off = 0;
+		int n;
+		while ((n = doRead(arr, off, arr.length - off)) >= 0) {
+			off += n;
+			if (maxSize >= 0 && off > maxSize) {
+				throw new RequestBodyTooLargeException(off, maxSize);
+			}
+			if (off == arr.length) {
+				int newLength = arr.length << 1;
+				if (maxSize >= 0) {
+					newLength = (int) Math.min(newLength, maxSize + 1L);
+				}
+				arr = Arrays.copyOf(arr, newLength);
+			}
+		}
+		return Arrays.copyOf(arr, off);
 	}
 	
 	@Deprecated
@@ -526,6 +561,38 @@ public final class Request {
 //		}
 //		return n;
 //	}
+	
+	/**
+	 * 从输入缓冲区批量读取请求体数据到给定的字节数组中，读取的字节数不会超过 "Content-Length" 请求头指定的长度
+	 *
+	 * @param b - 存储数据的字节数组
+	 * @param off - 开始写入的偏移量
+	 * @param len - 最多读取的字节数
+	 * @return 实际读取的字节数，或 -1 表示请求体已读取完毕
+	 * @throws IOException - 如果在读取过程中发生 I/O 错误
+	 */
+	public int doRead(byte[] b, int off, int len) throws IOException {
+		int n = inputBuffer.doRead(b, off, len);
+		if (n > 0) {
+			bytesRead+=n;
+		}
+		return n;
+	}
+	
+	/**
+	 * 从输入缓冲区批量读取请求体数据到给定的 ByteBuffer 中，读取的字节数不会超过 "Content-Length" 请求头指定的长度
+	 *
+	 * @param to - 存储数据的缓冲区，处于可写状态
+	 * @return 实际读取的字节数，或 -1 表示请求体已读取完毕
+	 * @throws IOException - 如果在读取过程中发生 I/O 错误
+	 */
+	public int doRead(ByteBuffer to) throws IOException {
+		int n = inputBuffer.doRead(to);
+		if (n > 0) {
+			bytesRead+=n;
+		}
+		return n;
+	}
 
 	@Override
 	public String toString() { // 应用于debug
@@ -603,7 +670,6 @@ public final class Request {
 
 		startTime = -1;
 		
-		deferredSupplier = null;
 		requestBodyLine = null;
 		requestBodyReaded = false;
 	}
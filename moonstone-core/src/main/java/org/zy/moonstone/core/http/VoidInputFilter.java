@@ -0,0 +1,48 @@
+package org.zy.moonstone.core.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
+
+/**
+ * @dateTime 2022年12月20日;
+ * @author zy(azurite-Y);
+ * @description 用于没有请求体的请求的输入过滤器，读取时总是返回流末尾
+ */
+public class VoidInputFilter implements InputFilter {
+
+	@Override
+	public void setRequest(Request request) {}
+
+	@Override
+	public int doRead(byte[] b, int off, int len) throws IOException {
+		return -1;
+	}
+
+	@Override
+	public int doRead(ByteBuffer to) throws IOException {
+		return -1;
+	}
+
+	@Override
+	public int available() {
+		return 0;
+	}
+
+	@Override
+	public long end() throws IOException {
+		return 0;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return true;
+	}
+
+	@Override
+	public void setBuffer(InputBuffer buffer) {}
+
+	@Override
+	public void recycle() {}
+}
@@ -9,14 +9,15 @@ import org.zy.moonstone.core.interfaces.http.fileupload.RequestContext;
 import org.zy.moonstone.core.util.ArraysUtils;
 import org.zy.moonstone.core.util.http.parser.HttpParser;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.Supplier;
 
 /**
  * @dateTime 2022年11月22日;
@@ -168,8 +169,12 @@ public class ServletFileUpload {
      * @throws FileUploadException - 如果读取/解析请求或存储文件存在问题
      */
     public List<FileItem> parseRequest(RequestContext ctx) throws FileUploadException {
-    	RequestBodyParseHandle requestBodyParseHandle = new RequestBodyParseHandle(ctx);
-		return requestBodyParseHandle.handle();
+    	try {
+    		RequestBodyParseHandle requestBodyParseHandle = new RequestBodyParseHandle(ctx);
+    		return requestBodyParseHandle.handle();
+		} catch (IOException e) {
+			throw new FileUploadException("读取请求体数据失败", e);
+		}
     }
     
     /**
@@ -203,15 +208,22 @@ public class ServletFileUpload {
     	// 存储表单提交数据
 		private OutputStream formValueOutputStream = null;
 		
-		private Supplier<Byte> requestBodySupplier;
+		/** 请求体输入流 */
+		private InputStream requestBodyInputStream;
+		/** 从请求体输入流批量读取的数据 */
+		private final byte[] readBuffer = new byte[8192];
+		/** 下一个待解析字节在 readBuffer 中的索引 */
+		private int readPos = 0;
+		/** readBuffer 中有效数据的结束索引 */
+		private int readEnd = 0;
 
 //		private RequestContext ctx;
 		
 		
-		public RequestBodyParseHandle(RequestContext ctx) {
+		public RequestBodyParseHandle(RequestContext ctx) throws IOException {
 			super();
 //			this.ctx = ctx;
-			requestBodySupplier = ctx.getRequestBodySupplier();
+			requestBodyInputStream = ctx.getInputStream();
 
 			boundaryBytes = ctx.getBoundaryArray();
 			assumeBoundaryByte = new byte[boundaryBytes.length];
@@ -295,7 +307,25 @@ public class ServletFileUpload {
 			}
 		}
 		
-	    List<FileItem> handle() {
+	    /**
+	     * 读取下一个请求体字节。数据以块为单位从请求体输入流中批量读取
+	     * 
+	     * @return 下一个请求体字节
+	     * @throws IOException - 如果读取失败或在请求体解析完成之前到达流末尾
+	     */
+	    private byte nextByte() throws IOException {
+	    	if (readPos == readEnd) {
+	    		int n = requestBodyInputStream.read(readBuffer, 0, readBuffer.length);
+	    		if (n <= 0) {
+	    			throw new EOFException("请求体数据不完整");
+	    		}
+	    		readPos = 0;
+	    		readEnd = n;
+	    	}
+	    	return readBuffer[readPos++];
+	    }
+	    
+	    List<FileItem> handle() throws IOException {
 			byte bodyByte = 0;
 			// 在开始读取请求体提交数据时为true, 检测到边界时为false。
 			boolean checkBoundary = false;
@@ -304,7 +334,7 @@ public class ServletFileUpload {
 				if (checkBoundary) {
 					checkBoundary = false;
 				} else {
-					bodyByte = requestBodySupplier.get();
+					bodyByte = nextByte();
 				}
 //				System.out.print("[" + (char)bodyByte + "]");
 
@@ -330,7 +360,7 @@ public class ServletFileUpload {
 						}
 						
 						i += 1;
-						assumeBoundaryByte[++boundaryIndex] = bodyByte = requestBodySupplier.get();
+						assumeBoundaryByte[++boundaryIndex] = bodyByte = nextByte();
 						if ( bodyByte != boundaryBytes[j] ) {
 							boundary = false;
 							break ;
@@ -362,7 +392,7 @@ public class ServletFileUpload {
 
 					for (int j = 1; j < 4; j++) {
 						i += 1;
-						assumePredictionByte[++predictionIndex] = bodyByte = requestBodySupplier.get();
+						assumePredictionByte[++predictionIndex] = bodyByte = nextByte();
 						if ( bodyByte != predictionByteArr[j] ) {
 							break;
 						}
@@ -3,7 +3,8 @@ package org.zy.moonstone.core.http.fileupload;
 import org.zy.moonstone.core.connector.HttpRequest;
 import org.zy.moonstone.core.interfaces.http.fileupload.RequestContext;
 
-import java.util.function.Supplier;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * @dateTime 2022年11月22日;
@@ -42,10 +43,10 @@ public class ServletRequestContext implements RequestContext {
         return httpRequest.getContentLengthLong();
     }
 
-//    @Override
-//    public InputStream getInputStream() throws IOException {
-//        return httpRequest.getInputStream();
-//    }
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return httpRequest.getInputStream();
+    }
 
     /**
      * 返回此对象的字符串表示形式
@@ -61,10 +62,5 @@ public class ServletRequestContext implements RequestContext {
 	public byte[] getBoundaryArray() {
 		return this.httpRequest.getRequest().getBoundaryArray();
 	}
-	
-	@Override
-	public Supplier<Byte> getRequestBodySupplier() {
-		return this.httpRequest.getRequest().getRequestBodySupplier();
-	}
 
 }
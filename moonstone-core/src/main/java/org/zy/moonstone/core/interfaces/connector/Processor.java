@@ -59,6 +59,11 @@ public interface Processor {
      */
     void recycle();
 
+    /**
+     * 释放处理器持有的资源，在处理器不再被缓存复用时调用
+     */
+    default void destroy() {}
+
     /**
      * 设置此HTTP连接的SSL信息
      *
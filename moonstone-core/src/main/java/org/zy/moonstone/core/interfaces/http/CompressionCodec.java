@@ -0,0 +1,28 @@
+package org.zy.moonstone.core.interfaces.http;
+
+import org.zy.moonstone.core.connector.CompressionConfig;
+import org.zy.moonstone.core.http.CompressionOutputFilter;
+
+/**
+ * @dateTime 2023年1月10日;
+ * @author zy(azurite-Y);
+ * @description 响应体压缩编码的扩展点。
+ * <p>
+ * 内置 gzip 与 deflate 两种实现，其他编码(如 br、zstd)通过 {@link java.util.ServiceLoader } 发现：
+ * 在 META-INF/services/org.zy.moonstone.core.interfaces.http.CompressionCodec 中列出实现类的全限定名即可，实现类需要提供无参构造器。
+ * 发现的实现优先于内置实现参与协商，与内置实现编码相同时替换内置实现
+ */
+public interface CompressionCodec {
+	/**
+	 * @return 此编码在 Accept-Encoding 与 Content-Encoding 中使用的名称(小写)，如 gzip、br
+	 */
+	String getEncoding();
+
+	/**
+	 * 为一个处理器创建输出过滤器。过滤器随处理器一起复用，每个响应结束后会调用其 {@link CompressionOutputFilter#recycle() }
+	 *
+	 * @param compressionConfig - 连接器的压缩配置
+	 * @return 新的输出过滤器
+	 */
+	CompressionOutputFilter createOutputFilter(CompressionConfig compressionConfig);
+}
@@ -1,6 +1,7 @@
 package org.zy.moonstone.core.interfaces.http.fileupload;
 
-import java.util.function.Supplier;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * @dateTime 2022年11月22日;
@@ -22,11 +23,6 @@ public interface RequestContext {
      */
     String getContentType();
 
-	/**
-	 * @return 请求行数据的延迟提供者
-	 */
-	Supplier<Byte> getRequestBodySupplier();
-    
     /**
      * 检索请求的输入流
      *
@@ -34,7 +30,7 @@ public interface RequestContext {
      *
      * @throws IOException - 如果出现问题
      */
-//    InputStream getInputStream() throws IOException;
+    InputStream getInputStream() throws IOException;
     
 	/**
 	 * 检索请求的内容长度
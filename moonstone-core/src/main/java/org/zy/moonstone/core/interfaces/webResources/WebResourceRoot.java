@@ -240,6 +240,18 @@ public interface WebResourceRoot extends Lifecycle {
      */
     boolean isCachingAllowed();
 
+    /**
+     * 设置是否监听文件资源集目录的变化。监听时缓存项在文件实际变化时失效，不再在 TTL 到期后重新检查文件
+     *
+     * @param watchResources - true则启用监听
+     */
+    void setWatchResources(boolean watchResources);
+
+    /**
+     * @return 如果监听文件资源集目录的变化，则为 true
+     */
+    boolean isWatchResources();
+
     /**
      * 设置缓存条目的生存时间 (TTL)。
      *
@@ -282,6 +294,18 @@ public interface WebResourceRoot extends Lifecycle {
      */
     int getCacheObjectMaxSize();
 
+    /**
+     * 设置缓存资源内容的存储方式。使用堆外存储可避免大量长期存活的内容数组进入老年代
+     *
+     * @param cacheContentStorage - HEAP(默认，堆上字节数组)、DIRECT(直接内存) 或 MAPPED(文件以只读方式映射到内存)
+     */
+    void setCacheContentStorage(String cacheContentStorage);
+
+    /**
+     * @return 缓存资源内容的存储方式
+     */
+    String getCacheContentStorage();
+
     /**
      * 控制是否启用轨道锁定文件功能。 
      * 如果启用，所有对返回对象的方法的调用都会锁定文件并且需要关闭才能释放该锁定（例如 WebResource.getInputStream() 将执行许多额外的任务。
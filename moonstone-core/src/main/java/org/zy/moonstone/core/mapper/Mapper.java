@@ -2,7 +2,7 @@ package org.zy.moonstone.core.mapper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.zy.moonstone.core.Constants;
+import org.zy.moonstone.core.Globals;
 import org.zy.moonstone.core.interfaces.container.Context;
 import org.zy.moonstone.core.interfaces.container.Host;
 import org.zy.moonstone.core.interfaces.container.Wrapper;
@@ -15,7 +15,6 @@ import javax.servlet.http.MappingMatch;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * @dateTime 2022年8月16日;
@@ -25,15 +24,19 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class Mapper {
     private static final Logger logger = LoggerFactory.getLogger(Mapper.class);
 
-    /** 包含虚拟 Host 定义的数组 */
-    volatile MappedHost[] hosts = new MappedHost[0];
+    /** 请求映射结果最大缓存数 */
+    private static final int MAPPING_CACHE_SIZE = Integer.parseInt(System.getProperty(Globals.MAPPER_CACHE_SIZE, "1000"));
 
-    /** 默认 Host 名称 */
-    private volatile String defaultHostName = null;
-    /** 默认 Host */
-    private volatile MappedHost defaultHost = null;
+    /** Context 的全值匹配与通配符匹配 Wrapper 总数达到此值时使用 {@link WrapperTree } 匹配，小于等于0则禁用 */
+    private static final int WRAPPER_TREE_THRESHOLD = Integer.parseInt(System.getProperty(Globals.MAPPER_WRAPPER_TREE_THRESHOLD, "64"));
 
-    /** 从 Context 对象映射到 ContextVersion 以支持 RequestDispatcher 映射 */
+    /**
+     * 当前的映射状态快照。读取方只读取一次此引用，之后的整个映射过程都基于同一快照且无需加锁；
+     * 修改方在持有当前实例的锁时构建新快照并整体替换
+     */
+    private volatile MappingState state = new MappingState(new MappedHost[0], null, null);
+
+    /** 从 Context 对象映射到 ContextVersion 以支持 RequestDispatcher 映射，ContextVersion 被替换时同步更新 */
     private final Map<Context, ContextVersion> contextObjectToContextVersionMap = new ConcurrentHashMap<>();
     
 	// -------------------------------------------------------------------------------------
@@ -45,12 +48,7 @@ public class Mapper {
      * @param defaultHostName - 默认 Host 名称
      */
     public synchronized void setDefaultHostName(String defaultHostName) {
-        this.defaultHostName = renameWildcardHost(defaultHostName);
-        if (this.defaultHostName == null) {
-            defaultHost = null;
-        } else {
-            defaultHost = exactFind(hosts, this.defaultHostName);
-        }
+        publish(state.hosts, renameWildcardHost(defaultHostName));
     }
     
     /**
@@ -62,14 +60,12 @@ public class Mapper {
      */
     public synchronized void addHost(String name, String[] aliases, Host host) {
         name = renameWildcardHost(name);
+        MappedHost[] hosts = state.hosts;
         MappedHost[] newHosts = new MappedHost[hosts.length + 1];
         // 真实的 Host
         MappedHost realHost = new MappedHost(name, host);
         if (insertMap(hosts, newHosts, realHost)) {
             hosts = newHosts;
-            if (realHost.name.equals(defaultHostName)) {
-                defaultHost = realHost;
-            }
             if (logger.isDebugEnabled()) {
                 logger.debug("Host注册成功, by name: [{}]", name);
             }
@@ -90,15 +86,13 @@ public class Mapper {
         }
         
         // 添加别名
-        List<MappedHost> newAliases = new ArrayList<>(aliases.length);
         for (String alias : aliases) {
-            alias = renameWildcardHost(alias);
-            MappedHost newAlias = new MappedHost(alias, realHost);
-            if (addHostAliasImpl(newAlias)) {
-                newAliases.add(newAlias);
+            MappedHost[] aliasHosts = addHostAliasImpl(hosts, new MappedHost(renameWildcardHost(alias), realHost));
+            if (aliasHosts != null) {
+                hosts = aliasHosts;
             }
         }
-        realHost.addAliases(newAliases);
+        publish(hosts, state.defaultHostName);
     }
 
 
@@ -110,6 +104,7 @@ public class Mapper {
     public synchronized void removeHost(String name) {
         name = renameWildcardHost(name);
         // 找到并删除旧 Host
+        MappedHost[] hosts = state.hosts;
         MappedHost host = exactFind(hosts, name);
         if (host == null || host.isAlias()) {
             return;
@@ -118,11 +113,11 @@ public class Mapper {
         // 删除真实 Host 及其所有别名
         int j = 0;
         for (int i = 0; i < newHosts.length; i++) {
-            if (newHosts[i].getRealHost() != host) {
+            if (newHosts[i].object != host.object) {
                 newHosts[j++] = newHosts[i];
             }
         }
-        hosts = Arrays.copyOf(newHosts, j);
+        publish(Arrays.copyOf(newHosts, j), state.defaultHostName);
     }
 
     /**
@@ -132,41 +127,42 @@ public class Mapper {
      * @param alias - 添加的别名
      */
     public synchronized void addHostAlias(String name, String alias) {
+        MappedHost[] hosts = state.hosts;
         MappedHost realHost = exactFind(hosts, name);
         if (realHost == null) {
             // 不应该为不存在的 Host 添加别名，但只是以防万一..
             return;
         }
-        alias = renameWildcardHost(alias);
-        MappedHost newAlias = new MappedHost(alias, realHost);
-        if (addHostAliasImpl(newAlias)) {
-            realHost.addAlias(newAlias);
+        MappedHost[] newHosts = addHostAliasImpl(hosts, new MappedHost(renameWildcardHost(alias), realHost));
+        if (newHosts != null) {
+            publish(newHosts, state.defaultHostName);
         }
     }
 
-    private synchronized boolean addHostAliasImpl(MappedHost newAlias) {
+    /**
+     * 将别名插入给定的 Host 数组
+     * 
+     * @return 插入别名之后的新数组，未插入则返回 null
+     */
+    private MappedHost[] addHostAliasImpl(MappedHost[] hosts, MappedHost newAlias) {
         MappedHost[] newHosts = new MappedHost[hosts.length + 1];
         if (insertMap(hosts, newHosts, newAlias)) {
-            hosts = newHosts;
-            if (newAlias.name.equals(defaultHostName)) {
-                defaultHost = newAlias;
-            }
             if (logger.isDebugEnabled()) {
                 logger.debug("Host别名注册成功, by aliasName: [{}], reallHostName: [{}]", newAlias.name, newAlias.getRealHostName());
             }
-            return true;
+            return newHosts;
         } else {
             MappedHost duplicate = hosts[ find(hosts, newAlias.name) ];
-            if (duplicate.getRealHost() == newAlias.getRealHost()) {
+            if (duplicate.object == newAlias.object) {
                 // 同一 Host 的重复别名。一种无害的冗余。例如：
                 //<Host name="localhost"><Alias>localhost</Alias></Host>
                 if (logger.isDebugEnabled()) {
                     logger.debug("Host重复别名, by aliasName: [{}], reallHostName: [{}]", newAlias.name, newAlias.getRealHostName());
                 }
-                return false;
+                return null;
             }
             logger.debug("同别名Host已注册, by aliasName: [{}], aliasRealHostName:: [{}], reallHostName: [{}]", newAlias.name, newAlias.getRealHostName(), duplicate.getRealHostName());
-            return false;
+            return null;
         }
     }
 
@@ -177,14 +173,14 @@ public class Mapper {
     public synchronized void removeHostAlias(String alias) {
         alias = renameWildcardHost(alias);
         // 查找和删除别名
+        MappedHost[] hosts = state.hosts;
         MappedHost hostMapping = exactFind(hosts, alias);
         if (hostMapping == null || !hostMapping.isAlias()) {
             return;
         }
         MappedHost[] newHosts = new MappedHost[hosts.length - 1];
         if (removeMap(hosts, newHosts, alias)) {
-            hosts = newHosts;
-            hostMapping.getRealHost().removeAlias(hostMapping);
+            publish(newHosts, state.defaultHostName);
         }
     }
     
@@ -200,14 +196,14 @@ public class Mapper {
      * @param resources - Context 的静态资源
      * @param wrappers - 有关 Wrapper 映射的信息
      */
-    public void addContextVersion(String hostName, Host host, String path, String version, Context context, String[] welcomeResources, 
+    public synchronized void addContextVersion(String hostName, Host host, String path, String version, Context context, String[] welcomeResources, 
     		WebResourceRoot resources, Collection<WrapperMappingInfo> wrappers) {
         hostName = renameWildcardHost(hostName);
 
-        MappedHost mappedHost  = exactFind(hosts, hostName);
+        MappedHost mappedHost  = exactFind(state.hosts, hostName);
         if (mappedHost == null) {
             addHost(hostName, new String[0], host);
-            mappedHost = exactFind(hosts, hostName);
+            mappedHost = exactFind(state.hosts, hostName);
             if (mappedHost == null) {
                 logger.error("添加Context无关联Host. by hostName: [{}]", hostName);
                 return;
@@ -218,42 +214,38 @@ public class Mapper {
             return;
         }
         int slashCount = slashCount(path);
-        synchronized (mappedHost) {
-            ContextVersion newContextVersion = new ContextVersion(version, path, slashCount, context, resources, welcomeResources);
-            if (wrappers != null) {
-                addWrappers(newContextVersion, wrappers);
-            }
+        ContextVersion newContextVersion = new ContextVersion(version, path, slashCount, context, resources, welcomeResources);
+        if (wrappers != null) {
+            newContextVersion = addWrappers(newContextVersion, wrappers);
+        }
 
-            ContextList contextList = mappedHost.contextList;
+        ContextList contextList = mappedHost.contextList;
+        ContextList newContextList;
+        
+        MappedContext mappedContext = exactFind(contextList.contexts, path);
+        if (mappedContext == null) {
+            newContextList = contextList.addContext(new MappedContext(path, new ContextVersion[] { newContextVersion }), slashCount);
+        } else {
+        	// Context 路径已映射有 MappedContext
+            ContextVersion[] contextVersions = mappedContext.versions;
             
-            MappedContext mappedContext = exactFind(contextList.contexts, path);
-            if (mappedContext == null) {
-                mappedContext = new MappedContext(path, newContextVersion);
-                ContextList newContextList = contextList.addContext(mappedContext, slashCount);
-                if (newContextList != null) {
-                	// 由新 mappedContext 替换旧值之后
-                    updateContextList(mappedHost, newContextList);
-                    contextObjectToContextVersionMap.put(context, newContextVersion);
-                }
-            } else {
-            	// Context 路径已映射有 MappedContext
-                ContextVersion[] contextVersions = mappedContext.versions;
-                
-                ContextVersion[] newContextVersions = new ContextVersion[contextVersions.length + 1];
-                // 尝试追加新的 ContextVersion 到在已有 MappedContext
-                if (insertMap(contextVersions, newContextVersions, newContextVersion)) {
-                	// 由新 ContextVersion 替换旧值之后
-                    mappedContext.versions = newContextVersions;
-                    contextObjectToContextVersionMap.put(context, newContextVersion);
-                } else {
-                    // Context.reload() 后重新注册, 将 ContextVersion 替换为新的
-                    int pos = find(contextVersions, version);
-                    if (pos >= 0 && contextVersions[pos].name.equals(version)) {
-                        contextVersions[pos] = newContextVersion;
-                        contextObjectToContextVersionMap.put(context, newContextVersion);
-                    }
+            ContextVersion[] newContextVersions = new ContextVersion[contextVersions.length + 1];
+            // 尝试追加新的 ContextVersion 到在已有 MappedContext
+            if (!insertMap(contextVersions, newContextVersions, newContextVersion)) {
+                // Context.reload() 后重新注册, 将 ContextVersion 替换为新的
+                int pos = find(contextVersions, version);
+                if (pos < 0 || !contextVersions[pos].name.equals(version)) {
+                    return;
                 }
+                newContextVersions = contextVersions.clone();
+                newContextVersions[pos] = newContextVersion;
             }
+            newContextList = contextList.replaceContext(new MappedContext(path, newContextVersions));
+        }
+        if (newContextList != null) {
+            // 由新 mappedContext 替换旧值之后
+            updateContextList(mappedHost, newContextList);
+            contextObjectToContextVersionMap.put(context, newContextVersion);
         }
     }
 
@@ -265,36 +257,35 @@ public class Mapper {
      * @param path - Context 路径
      * @param version - Context 版本
      */
-    public void removeContextVersion(Context ctxt, String hostName, String path, String version) {
+    public synchronized void removeContextVersion(Context ctxt, String hostName, String path, String version) {
         hostName = renameWildcardHost(hostName);
         contextObjectToContextVersionMap.remove(ctxt);
 
-        MappedHost host = exactFind(hosts, hostName);
+        MappedHost host = exactFind(state.hosts, hostName);
         if (host == null || host.isAlias()) {
             return;
         }
 
-        synchronized (host) {
-            ContextList contextList = host.contextList;
-            
-            // 查找 Context 路径映射的 MappedContext
-            MappedContext context = exactFind(contextList.contexts, path);
-            if (context == null) {
-                return;
-            }
+        ContextList contextList = host.contextList;
+        
+        // 查找 Context 路径映射的 MappedContext
+        MappedContext context = exactFind(contextList.contexts, path);
+        if (context == null) {
+            return;
+        }
 
-            ContextVersion[] contextVersions = context.versions;
-            ContextVersion[] newContextVersions = new ContextVersion[contextVersions.length - 1];
-            if (removeMap(contextVersions, newContextVersions, version)) {
-                if (newContextVersions.length == 0) {
-                    // 移除 context
-                    ContextList newContextList = contextList.removeContext(path);
-                    if (newContextList != null) {
-                        updateContextList(host, newContextList);
-                    }
-                } else {
-                    context.versions = newContextVersions;
-                }
+        ContextVersion[] contextVersions = context.versions;
+        ContextVersion[] newContextVersions = new ContextVersion[contextVersions.length - 1];
+        if (removeMap(contextVersions, newContextVersions, version)) {
+            ContextList newContextList;
+            if (newContextVersions.length == 0) {
+                // 移除 context
+                newContextList = contextList.removeContext(path);
+            } else {
+                newContextList = contextList.replaceContext(new MappedContext(path, newContextVersions));
+            }
+            if (newContextList != null) {
+                updateContextList(host, newContextList);
             }
         }
     }
@@ -310,13 +301,13 @@ public class Mapper {
      * @param wrapper - Wrapper 对象
      * @param resourceOnly - 如果此包装器始终期望存在物理资源（例如 JSP），则为 true
      */
-	public void addWrapper(String hostName, String contextPath, String version, String path, Wrapper wrapper, boolean resourceOnly) {
+	public synchronized void addWrapper(String hostName, String contextPath, String version, String path, Wrapper wrapper, boolean resourceOnly) {
 		hostName = renameWildcardHost(hostName);
 		ContextVersion contextVersion = findContextVersion(hostName, contextPath, version, false);
 		if (contextVersion == null) {
 			return;
 		}
-		addWrapper(contextVersion, path, wrapper, resourceOnly);
+		replaceContextVersion(hostName, contextVersion, addWrapper(contextVersion, path, wrapper, resourceOnly));
 	}
     
     /**
@@ -327,13 +318,13 @@ public class Mapper {
      * @param version - Context 版本
      * @param wrappers
      */
-    public void addWrappers(String hostName, String contextPath, String version, Collection<WrapperMappingInfo> wrappers) {
+    public synchronized void addWrappers(String hostName, String contextPath, String version, Collection<WrapperMappingInfo> wrappers) {
         hostName = renameWildcardHost(hostName);
         ContextVersion contextVersion = findContextVersion(hostName, contextPath, version, false);
         if (contextVersion == null) {
             return;
         }
-        addWrappers(contextVersion, wrappers);
+        replaceContextVersion(hostName, contextVersion, addWrappers(contextVersion, wrappers));
     }
     
     /**
@@ -343,60 +334,56 @@ public class Mapper {
      * @param path - Wrapper 映射
      * @param wrapper - Wrapper 对象
      * @param resourceOnly - 如果此 Wrapper 始终期望存在物理资源（例如Html），则为 true
+     * @return 添加 Wrapper 之后的新 Context，未添加则返回给定的 Context
      */
-    protected void addWrapper(ContextVersion context, String path, Wrapper wrapper, boolean resourceOnly) {
-        synchronized (context) {
-            if (path.endsWith("/*")) {
-                // 通配符 wrapper
-                String name = path.substring(0, path.length() - 2); // Context 路径截除末尾 “/*”
-                MappedWrapper newWrapper = new MappedWrapper(name, wrapper, resourceOnly);
-                
-                MappedWrapper[] oldWrappers = context.wildcardWrappers;
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
-                
-                if (insertMap(oldWrappers, newWrappers, newWrapper)) {
-                	// 由新 wrapper 替换旧值后，更新 Context 中的通配符 wrapper
-                    context.wildcardWrappers = newWrappers;
-                    int slashCount = slashCount(newWrapper.name);
-                    if (slashCount > context.nesting) {
-                        context.nesting = slashCount;
-                    }
-                }
-            } else if (path.startsWith("*.")) {
-                // 扩展 wrapper
-                String name = path.substring(2); // Context 路径截除头部 “*.”
-                MappedWrapper newWrapper = new MappedWrapper(name, wrapper, resourceOnly);
-                
-                MappedWrapper[] oldWrappers = context.extensionWrappers;
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
-                
-                if (insertMap(oldWrappers, newWrappers, newWrapper)) {
-                	// 由新 wrapper 替换旧值后，更新 Context 中的扩展 wrapper
-                    context.extensionWrappers = newWrappers;
-                }
-            } else if ("/".equals(path)) {
-                // 根路径上下文，设置默认 wrapper
-                context.defaultWrapper = new MappedWrapper("", wrapper, resourceOnly);
+    protected ContextVersion addWrapper(ContextVersion context, String path, Wrapper wrapper, boolean resourceOnly) {
+        if (path.endsWith("/*")) {
+            // 通配符 wrapper
+            String name = path.substring(0, path.length() - 2); // Context 路径截除末尾 “/*”
+            MappedWrapper newWrapper = new MappedWrapper(name, wrapper, resourceOnly);
+            
+            MappedWrapper[] oldWrappers = context.wildcardWrappers;
+            MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
+            
+            if (insertMap(oldWrappers, newWrappers, newWrapper)) {
+            	// 由新 wrapper 替换旧值后，更新 Context 中的通配符 wrapper
+                return context.withWrappers(context.defaultWrapper, context.exactWrappers, newWrappers, context.extensionWrappers);
+            }
+        } else if (path.startsWith("*.")) {
+            // 扩展 wrapper
+            String name = path.substring(2); // Context 路径截除头部 “*.”
+            MappedWrapper newWrapper = new MappedWrapper(name, wrapper, resourceOnly);
+            
+            MappedWrapper[] oldWrappers = context.extensionWrappers;
+            MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
+            
+            if (insertMap(oldWrappers, newWrappers, newWrapper)) {
+            	// 由新 wrapper 替换旧值后，更新 Context 中的扩展 wrapper
+                return context.withWrappers(context.defaultWrapper, context.exactWrappers, context.wildcardWrappers, newWrappers);
+            }
+        } else if ("/".equals(path)) {
+            // 根路径上下文，设置默认 wrapper
+            return context.withWrappers(new MappedWrapper("", wrapper, resourceOnly), context.exactWrappers, context.wildcardWrappers, context.extensionWrappers);
+        } else {
+            // 精准 wrapper
+            final String name;
+            if (path.isEmpty()) {
+                // Context 根映射的特殊情况，它被视为精确匹配
+                name = "/";
             } else {
-                // 精准 wrapper
-                final String name;
-                if (path.isEmpty()) {
-                    // Context 根映射的特殊情况，它被视为精确匹配
-                    name = "/";
-                } else {
-                    name = path;
-                }
-                MappedWrapper newWrapper = new MappedWrapper(name, wrapper, resourceOnly);
-                
-                MappedWrapper[] oldWrappers = context.exactWrappers;
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
-                
-                if (insertMap(oldWrappers, newWrappers, newWrapper)) {
-                	// 由新 wrapper 替换旧值后，更新 Context 中的精准 wrapper
-                    context.exactWrappers = newWrappers;
-                }
+                name = path;
+            }
+            MappedWrapper newWrapper = new MappedWrapper(name, wrapper, resourceOnly);
+            
+            MappedWrapper[] oldWrappers = context.exactWrappers;
+            MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
+            
+            if (insertMap(oldWrappers, newWrappers, newWrapper)) {
+            	// 由新 wrapper 替换旧值后，更新 Context 中的精准 wrapper
+                return context.withWrappers(context.defaultWrapper, newWrappers, context.wildcardWrappers, context.extensionWrappers);
             }
         }
+        return context;
     }
     
     /**
@@ -407,73 +394,71 @@ public class Mapper {
      * @param version - 此 Wrapper 所属的 Context 版本
      * @param path - Wrapper 映射
      */
-    public void removeWrapper(String hostName, String contextPath, String version, String path) {
+    public synchronized void removeWrapper(String hostName, String contextPath, String version, String path) {
         hostName = renameWildcardHost(hostName);
         ContextVersion contextVersion = findContextVersion(hostName, contextPath, version, true);
         if (contextVersion == null || contextVersion.isPaused()) {
             return;
         }
-        removeWrapper(contextVersion, path);
+        replaceContextVersion(hostName, contextVersion, removeWrapper(contextVersion, path));
     }
 
-    protected void removeWrapper(ContextVersion context, String path) {
+    /**
+     * 从 Context 中删除 Wrapper
+     *
+     * @param context - 要删除 Wrapper 的 Context
+     * @param path - Wrapper 映射
+     * @return 删除 Wrapper 之后的新 Context，未删除则返回给定的 Context
+     */
+    protected ContextVersion removeWrapper(ContextVersion context, String path) {
         if (logger.isDebugEnabled()) {
             logger.debug("Wrapper移除, by contextName: [{}], contextPath: [{}]", context.name, path);
         }
 
-        synchronized (context) {
-            if (path.endsWith("/*")) {
-                // 通配符 wrapper
-                String name = path.substring(0, path.length() - 2);
-                MappedWrapper[] oldWrappers = context.wildcardWrappers;
-                if (oldWrappers.length == 0) {
-                    return;
-                }
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length - 1];
-                if (removeMap(oldWrappers, newWrappers, name)) {
-                    // 重新计算 nesting
-                    context.nesting = 0;
-                    for (MappedWrapper newWrapper : newWrappers) {
-                        int slashCount = slashCount(newWrapper.name);
-                        if (slashCount > context.nesting) {
-                            context.nesting = slashCount;
-                        }
-                    }
-                    context.wildcardWrappers = newWrappers;
-                }
-            } else if (path.startsWith("*.")) {
-                // 扩展 wrapper
-                String name = path.substring(2);
-                MappedWrapper[] oldWrappers = context.extensionWrappers;
-                if (oldWrappers.length == 0) {
-                    return;
-                }
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length - 1];
-                if (removeMap(oldWrappers, newWrappers, name)) {
-                    context.extensionWrappers = newWrappers;
-                }
-            } else if ("/".equals(path)) {
-                // Default wrapper
-                context.defaultWrapper = null;
+        if (path.endsWith("/*")) {
+            // 通配符 wrapper
+            String name = path.substring(0, path.length() - 2);
+            MappedWrapper[] oldWrappers = context.wildcardWrappers;
+            if (oldWrappers.length == 0) {
+                return context;
+            }
+            MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length - 1];
+            if (removeMap(oldWrappers, newWrappers, name)) {
+                return context.withWrappers(context.defaultWrapper, context.exactWrappers, newWrappers, context.extensionWrappers);
+            }
+        } else if (path.startsWith("*.")) {
+            // 扩展 wrapper
+            String name = path.substring(2);
+            MappedWrapper[] oldWrappers = context.extensionWrappers;
+            if (oldWrappers.length == 0) {
+                return context;
+            }
+            MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length - 1];
+            if (removeMap(oldWrappers, newWrappers, name)) {
+                return context.withWrappers(context.defaultWrapper, context.exactWrappers, context.wildcardWrappers, newWrappers);
+            }
+        } else if ("/".equals(path)) {
+            // Default wrapper
+            return context.withWrappers(null, context.exactWrappers, context.wildcardWrappers, context.extensionWrappers);
+        } else {
+            // Exact wrapper
+            String name;
+            if (path.isEmpty()) {
+                // 上下文根映射的特殊情况，它被视为精确匹配
+                name = "/";
             } else {
-                // Exact wrapper
-                String name;
-                if (path.isEmpty()) {
-                    // 上下文根映射的特殊情况，它被视为精确匹配
-                    name = "/";
-                } else {
-                    name = path;
-                }
-                MappedWrapper[] oldWrappers = context.exactWrappers;
-                if (oldWrappers.length == 0) {
-                    return;
-                }
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length - 1];
-                if (removeMap(oldWrappers, newWrappers, name)) {
-                    context.exactWrappers = newWrappers;
-                }
+                name = path;
+            }
+            MappedWrapper[] oldWrappers = context.exactWrappers;
+            if (oldWrappers.length == 0) {
+                return context;
+            }
+            MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length - 1];
+            if (removeMap(oldWrappers, newWrappers, name)) {
+                return context.withWrappers(context.defaultWrapper, newWrappers, context.wildcardWrappers, context.extensionWrappers);
             }
         }
+        return context;
     }
 
     /**
@@ -484,7 +469,7 @@ public class Mapper {
      * @param version - 给定 Context 的版本
      * @param welcomeFile - 要添加的 Welcome 文件
      */
-    public void addWelcomeFile(String hostName, String contextPath, String version, String welcomeFile) {
+    public synchronized void addWelcomeFile(String hostName, String contextPath, String version, String welcomeFile) {
         hostName = renameWildcardHost(hostName);
         ContextVersion contextVersion = findContextVersion(hostName, contextPath, version, false);
         if (contextVersion == null) {
@@ -494,7 +479,7 @@ public class Mapper {
         String[] newWelcomeResources = new String[len];
         System.arraycopy(contextVersion.welcomeResources, 0, newWelcomeResources, 0, len - 1);
         newWelcomeResources[len - 1] = welcomeFile;
-        contextVersion.welcomeResources = newWelcomeResources;
+        replaceContextVersion(hostName, contextVersion, contextVersion.withWelcomeResources(newWelcomeResources));
     }
 
     /**
@@ -505,7 +490,7 @@ public class Mapper {
      * @param version - 给定 Context 的版本
      * @param welcomeFile - 要删除的 Welcome 文件
      */
-    public void removeWelcomeFile(String hostName, String contextPath, String version, String welcomeFile) {
+    public synchronized void removeWelcomeFile(String hostName, String contextPath, String version, String welcomeFile) {
         hostName = renameWildcardHost(hostName);
         ContextVersion contextVersion = findContextVersion(hostName, contextPath, version, false);
         if (contextVersion == null || contextVersion.isPaused()) {
@@ -525,7 +510,7 @@ public class Mapper {
             if (match < len) {
                 System.arraycopy(contextVersion.welcomeResources, match + 1, newWelcomeResources, match, len - match);
             }
-            contextVersion.welcomeResources = newWelcomeResources;
+            replaceContextVersion(hostName, contextVersion, contextVersion.withWelcomeResources(newWelcomeResources));
         }
     }
 
@@ -536,13 +521,13 @@ public class Mapper {
      * @param contextPath - 给定 Context 的路径
      * @param version - 给定 Context 的版本
      */
-    public void clearWelcomeFiles(String hostName, String contextPath, String version) {
+    public synchronized void clearWelcomeFiles(String hostName, String contextPath, String version) {
         hostName = renameWildcardHost(hostName);
         ContextVersion contextVersion = findContextVersion(hostName, contextPath, version, false);
         if (contextVersion == null) {
             return;
         }
-        contextVersion.welcomeResources = new String[0];
+        replaceContextVersion(hostName, contextVersion, contextVersion.withWelcomeResources(new String[0]));
     }
     
     /**
@@ -555,8 +540,10 @@ public class Mapper {
      * @throws IOException - 如果缓冲区太小而无法保存映射结果
      */
     public void map(MessageBytes host, MessageBytes uri, String version, MappingData mappingData) throws IOException {
+        // 整个映射过程只使用同一快照
+        MappingState state = this.state;
         if (host.isNull()) {
-            String defaultHostName = this.defaultHostName;
+            String defaultHostName = state.defaultHostName;
             if (defaultHostName == null) {
                 return;
             }
@@ -564,9 +551,17 @@ public class Mapper {
         }
         host.toChars();
         uri.toChars();
-        internalMap(host.getCharChunk(), uri.getCharChunk(), version, mappingData);
+        CharChunk hostCC = host.getCharChunk();
+        CharChunk uriCC = uri.getCharChunk();
+
+        // 缓存属于快照，映射发生变化时随快照一并替换
+        if (state.mappingCache.get(hostCC, uriCC, version, mappingData)) {
+            return;
+        }
+        internalMap(state, hostCC, uriCC, version, mappingData);
+        state.mappingCache.put(hostCC, uriCC, version, mappingData);
     }
-    
+
     /**
      * 将指定的URI相对于上下文映射，改变给定的映射数据。
      *
@@ -693,7 +688,7 @@ public class Mapper {
      * @return
      */
     private ContextVersion findContextVersion(String hostName, String contextPath, String version, boolean silent) {
-        MappedHost host = exactFind(hosts, hostName);
+        MappedHost host = exactFind(state.hosts, hostName);
         if (  host == null || host.isAlias() ) {
         	if ( !silent ) {
         		logger.error(host == null ? "未找到指定 Host" : "指定 Host 名称为别名" + ", by hostName: " + hostName);
@@ -730,12 +725,47 @@ public class Mapper {
     }
     
     /**
-     * 将 <code>realHost</code> 中的 {@link MappedHost#contextList} 字段及其所有别名替换为新值。
+     * 以给定的 Host 数组和默认 Host 名称构建并发布新的映射状态快照
+     */
+    private void publish(MappedHost[] hosts, String defaultHostName) {
+        MappedHost defaultHost = defaultHostName == null ? null : exactFind(hosts, defaultHostName);
+        state = new MappingState(hosts, defaultHostName, defaultHost);
+    }
+    
+    /**
+     * 将 <code>realHost</code> 及其所有别名替换为使用新 {@link MappedHost#contextList} 的实例，并发布新的快照
      */
 	private void updateContextList(MappedHost realHost, ContextList newContextList) {
-        realHost.contextList = newContextList;
-        for (MappedHost alias : realHost.getAliases()) {
-            alias.contextList = newContextList;
+        MappedHost[] newHosts = state.hosts.clone();
+        for (int i = 0; i < newHosts.length; i++) {
+            if (newHosts[i].object == realHost.object) {
+                newHosts[i] = newHosts[i].withContextList(newContextList);
+            }
+        }
+        publish(newHosts, state.defaultHostName);
+    }
+
+    /**
+     * 在所属 Host 的 Context 列表中以新的 ContextVersion 替换旧值，并发布新的快照
+     *
+     * @param hostName - 此 Context 所属的虚拟 Host 名称
+     * @param oldContextVersion - 被替换的 ContextVersion
+     * @param newContextVersion - 新的 ContextVersion
+     */
+    private void replaceContextVersion(String hostName, ContextVersion oldContextVersion, ContextVersion newContextVersion) {
+        if (oldContextVersion == newContextVersion) {
+            return;
+        }
+        MappedHost host = exactFind(state.hosts, hostName);
+        MappedContext context = exactFind(host.contextList.contexts, oldContextVersion.path);
+        ContextVersion[] newContextVersions = context.versions.clone();
+        for (int i = 0; i < newContextVersions.length; i++) {
+            if (newContextVersions[i] == oldContextVersion) {
+                newContextVersions[i] = newContextVersion;
+                updateContextList(host, host.contextList.replaceContext(new MappedContext(context.name, newContextVersions)));
+                contextObjectToContextVersionMap.replace(newContextVersion.object, oldContextVersion, newContextVersion);
+                return;
+            }
         }
     }
 	
@@ -744,29 +774,32 @@ public class Mapper {
      *
      * @param contextVersion - 添加 Wrapper 的 Context
      * @param wrappers - 有关 Wrapper 映射的信息
+     * @return 添加 Wrapper 之后的新 Context
      */
-    private void addWrappers(ContextVersion contextVersion, Collection<WrapperMappingInfo> wrappers) {
+    private ContextVersion addWrappers(ContextVersion contextVersion, Collection<WrapperMappingInfo> wrappers) {
         for (WrapperMappingInfo wrapper : wrappers) {
-            addWrapper(contextVersion, wrapper.getMapping(), wrapper.getWrapper(), wrapper.isResourceOnly());
+            contextVersion = addWrapper(contextVersion, wrapper.getMapping(), wrapper.getWrapper(), wrapper.isResourceOnly());
         }
+        return contextVersion;
     }
     
     /**
      * 映射指定的 URI
      * 
+     * @param state - 映射使用的状态快照
      * @param host - 虚拟 Host 名称
      * @param uri - URI
      * @param version - 要映射的请求中包含的版本（如果有）
      * @param mappingData - 该结构将包含映射操作的结果
      * @throws IOException - 如果缓冲区太小而无法保存映射结果
      */
-    private final void internalMap(CharChunk host, CharChunk uri, String version, MappingData mappingData) throws IOException {
+    private final void internalMap(MappingState state, CharChunk host, CharChunk uri, String version, MappingData mappingData) throws IOException {
         if (mappingData.host != null) {
             throw new AssertionError();
         }
 
         // 根据 HostName 查找已注册的 MappedHost
-        MappedHost[] hosts = this.hosts;
+        MappedHost[] hosts = state.hosts;
         MappedHost mappedHost = exactFindIgnoreCase(hosts, host);
         if (mappedHost == null) {
             // 注意：在内部，Mapper 不使用通配符主机上的前导 *。
@@ -782,7 +815,7 @@ public class Mapper {
                 }
             }
             if (mappedHost == null) {
-                mappedHost = defaultHost;
+                mappedHost = state.defaultHost;
                 if (mappedHost == null) {
                     return;
                 }
@@ -869,50 +902,13 @@ public class Mapper {
 	 * @param <T> - MapElement 元素封装的对象类型
 	 */
     private static final <T> int findIgnoreCase(MapElement<T>[] map, CharChunk name) {
-    	 char[] nameChars = name.getBuffer();
-    	 
-    	 char[] elementCharrs;
-    	 // 标识查询数组中数据的大小写，true代表此字符大写
-    	 boolean upperCaseA = false;
-    	 boolean upperCaseB = false;
-    	 char a = 0,b = 0;
-    	 
-    	 int nameEndIndex = name.getEnd() - 1;
-    	 
-    	 for (int i = 0; i < map.length; i++) {
-    		 elementCharrs = map[i].name.toCharArray();
-    		 if (elementCharrs.length != nameChars.length) { // 字符数不同则直接跳过
-    			 continue;
-    		 }
-    		 
-			for (int j = name.getOffset(); j < name.getEnd(); j++, upperCaseA = false, upperCaseB = false) {
-				// 全部转换为小写字符进行比较
-				if (elementCharrs[j] >= Constants.uppercaseByteMin && elementCharrs[j] <= Constants.uppercaseByteMax) {
-					upperCaseA = true;
-				}
-				if ( nameChars[j] >= Constants.uppercaseByteMin && nameChars[j] <= Constants.uppercaseByteMax) {
-					upperCaseB = true;
-				}
-				
-				if ( (upperCaseA && upperCaseB) || (!upperCaseA && !upperCaseB) ) {  // nameChars[j] 和 elementCharrs[j] 都是同样的大小写则直接比较
-					a = elementCharrs[j];
-					b = nameChars[j];
-				} else if (upperCaseA && !upperCaseB) {
-					a = (char) (elementCharrs[j] + Constants.LC_OFFSET); // 转换小写
-					b = nameChars[j];
-				} else if (!upperCaseA && upperCaseB) {
-					a = elementCharrs[j];
-					b = (char) (nameChars[j] + Constants.LC_OFFSET); // 转换小写
-				}
-				
-				if ( a != b ) {
-					break;
-				} else if (j == nameEndIndex) { // 一直比对到末尾字符都是相等
-					return i;
-				}
-			}
-		}
- 		return -1;
+    	// 只比较字符块中的有效数据，其缓冲区可能大于数据长度
+    	for (int i = 0; i < map.length; i++) {
+    		if (name.equalsIgnoreCase(map[i].name)) {
+    			return i;
+    		}
+    	}
+    	return -1;
     }
     
     /**
@@ -944,21 +940,10 @@ public class Mapper {
 	 * @param <T> - MapElement 元素封装的对象类型
 	 */
 	private static final <T> int find(MapElement<T>[] map, CharChunk name) {
-		char[] nameChars = name.getBuffer();
-		char[] elementCharrs;
-
+		// 只比较字符块中的有效数据，其缓冲区可能大于数据长度
 		for (int i = 0; i < map.length; i++) {
-			elementCharrs = map[i].name.toCharArray();
-			if (elementCharrs.length != nameChars.length) { // 字符数不同则直接跳过
-				continue;
-			}
-
-			for (int j = name.getOffset(); j <= name.getEnd(); j++) {
-				if (elementCharrs[j] != nameChars[j]) {
-					break;
-				} else if (j == name.getEnd()) { // 一直比对到末尾字符都是相等
-					return i;
-				}
+			if (name.equals(map[i].name)) {
+				return i;
 			}
 		}
 		return -1;
@@ -984,15 +969,25 @@ public class Mapper {
 		int servletPath = pathOffset + length;
 		uri.setOffset(servletPath);
 
+		WrapperTree wrapperTree = contextVersion.getWrapperTree();
+
 		// Rule 1 -- 全值匹配
-		MappedWrapper[] exactWrappers = contextVersion.exactWrappers;
-		// 匹配exactWrappers中Wrapper对象的name值是否有全值匹配的，若有则设置为匹配项
-		internalMapExactWrapper(exactWrappers, uri, mappingData);
+		if (wrapperTree != null) {
+			applyExactWrapper(wrapperTree.findExact(uri), uri, mappingData);
+		} else {
+			MappedWrapper[] exactWrappers = contextVersion.exactWrappers;
+			// 匹配exactWrappers中Wrapper对象的name值是否有全值匹配的，若有则设置为匹配项
+			internalMapExactWrapper(exactWrappers, uri, mappingData);
+		}
 
 		// Rule 2 – 通配符匹配
-		MappedWrapper[] wildcardWrappers = contextVersion.wildcardWrappers;
 		if (mappingData.wrapper == null) {
-			internalMapWildcardWrapper(wildcardWrappers, uri, mappingData);
+			if (wrapperTree != null) {
+				applyWildcardWrapper(wrapperTree.findWildcard(uri), uri, mappingData);
+			} else {
+				MappedWrapper[] wildcardWrappers = contextVersion.wildcardWrappers;
+				internalMapWildcardWrapper(wildcardWrappers, uri, mappingData);
+			}
 		}
 
 		if (mappingData.wrapper == null && noServletPath && contextVersion.object.getMapperContextRootRedirectEnabled()) {
@@ -1026,6 +1021,7 @@ public class Mapper {
 				String pathStr = uri.toString();
 				// Note: 首先检查重定向以节省不必要的 getResource() 调用. See BZ 62968.
 				if (contextVersion.object.getMapperDirectoryRedirectEnabled()) {
+					mappingData.resourceDependent = true;
 					WebResource file;
 					// 处理上下文根
 					if (pathStr.length() == 0) {
@@ -1060,11 +1056,21 @@ public class Mapper {
 	 * @param mappingData - 该结构将包含映射操作的结果
 	 */
 	private final void internalMapExactWrapper(MappedWrapper[] wrappers, CharChunk uri, MappingData mappingData) {
-		MappedWrapper wrapper = exactFind(wrappers, uri);
+		applyExactWrapper(exactFind(wrappers, uri), uri, mappingData);
+	}
+
+	/**
+	 * 设置全值匹配的结果
+	 * 
+	 * @param wrapper - 全值匹配的 Wrapper，为 null 则代表未匹配
+	 * @param uri - 指定查找的路径
+	 * @param mappingData - 该结构将包含映射操作的结果
+	 */
+	private final void applyExactWrapper(MappedWrapper wrapper, CharChunk uri, MappingData mappingData) {
 		if (wrapper != null) {
 			mappingData.requestPath.setString(wrapper.name);
 			mappingData.wrapper = wrapper.object;
-			if ("/".equals(uri)) {
+			if (uri.equals("/")) {
 				// Context 根映射 servlet 的特殊处理
 				mappingData.pathInfo.setString("/");
 				mappingData.wrapperPath.setString("");
@@ -1084,21 +1090,41 @@ public class Mapper {
      * @param mappingData - 该结构将包含映射操作的结果
 	 */
 	private final void internalMapWildcardWrapper(MappedWrapper[] wrappers, CharChunk uri, MappingData mappingData) {
+		char[] buf = uri.getBuffer();
+		MappedWrapper match = null;
 		for (int i = 0; i < wrappers.length; i++) {
-			if ( uri.startsWith(wrappers[i].name) && (uri.indexOf('/', wrappers[i].name.length() + 1) == -1) ) { // 前缀匹配uri之后又出现了一次"/"则视为不匹配
-				
-				mappingData.wrapperPath.setString(wrappers[i].name);
-				
-				int length = wrappers[i].name.length();
-				if (uri.getLength() > length) {
-					mappingData.pathInfo.setChars(uri.getBuffer(), uri.getOffset() + length, uri.getLength() - length);
+			String name = wrappers[i].name;
+			// "/xxx/*" 匹配路径 "/xxx" 及所有以 "/xxx/" 开头的路径，存在多个匹配时取最长的前缀
+			if ( uri.startsWith(name) && (uri.getLength() == name.length() || buf[uri.getStart() + name.length()] == '/') ) {
+				if (match == null || name.length() > match.name.length()) {
+					match = wrappers[i];
 				}
-				
-				mappingData.requestPath.setChars(uri.getBuffer(), uri.getOffset(), uri.getLength());
-				mappingData.wrapper = wrappers[i].object;
-				mappingData.matchType = MappingMatch.PATH;
 			}
 		}
+		applyWildcardWrapper(match, uri, mappingData);
+	}
+
+	/**
+	 * 设置通配符匹配的结果
+	 * 
+	 * @param wrapper - 匹配的通配符 Wrapper，为 null 则代表未匹配
+	 * @param uri - wrapper 路径              
+	 * @param mappingData - 该结构将包含映射操作的结果
+	 */
+	private final void applyWildcardWrapper(MappedWrapper wrapper, CharChunk uri, MappingData mappingData) {
+		if (wrapper == null) {
+			return;
+		}
+		mappingData.wrapperPath.setString(wrapper.name);
+		
+		int length = wrapper.name.length();
+		if (uri.getLength() > length) {
+			mappingData.pathInfo.setChars(uri.getBuffer(), uri.getOffset() + length, uri.getLength() - length);
+		}
+		
+		mappingData.requestPath.setChars(uri.getBuffer(), uri.getOffset(), uri.getLength());
+		mappingData.wrapper = wrapper.object;
+		mappingData.matchType = MappingMatch.PATH;
 	}
 	
 	/**
@@ -1162,17 +1188,36 @@ public class Mapper {
     }
     
     /**
-     * 封装 Host
+     * 映射状态快照，包含全部 Host 及通过其可达的 Context 与 Wrapper。快照及其引用的所有映射结构都不可变，
+     * 同时持有基于此快照的请求映射结果缓存
+     */
+    private static final class MappingState {
+    	/** 包含虚拟 Host 定义的数组 */
+    	final MappedHost[] hosts;
+    	/** 默认 Host 名称 */
+    	final String defaultHostName;
+    	/** 默认 Host */
+    	final MappedHost defaultHost;
+    	/** 基于此快照的请求映射结果缓存 */
+    	final MappingCache mappingCache;
+
+    	MappingState(MappedHost[] hosts, String defaultHostName, MappedHost defaultHost) {
+    		this.hosts = hosts;
+    		this.defaultHostName = defaultHostName;
+    		this.defaultHost = defaultHost;
+    		this.mappingCache = new MappingCache(MAPPING_CACHE_SIZE);
+    	}
+    }
+    
+    /**
+     * 封装 Host，真实 Host 与其别名共享同一 Host 对象与 Context 列表
      */
     protected static final class MappedHost extends MapElement<Host> {
     	/** Host 下关联的多个 Context 路径的 Context 信息 */
-        public volatile ContextList contextList;
+        public final ContextList contextList;
 
-        /** 链接到由所有别名共享的“真实”MappedHost */
-        private final MappedHost realHost;
-
-        /** 链接到所有已注册的别名，以便于枚举。 此字段仅在“真实”映射主机中可用。 在别名中，此字段为空 */
-        private final List<MappedHost> aliases;
+        /** “真实” Host 的名称，真实 Host 中即为其自身名称 */
+        private final String realHostName;
         
         /**
          * 使用真实 Host 的构造器
@@ -1181,10 +1226,7 @@ public class Mapper {
          * @param host - Host
          */
         public MappedHost(String name, Host host) {
-            super(name, host);
-            realHost = this;
-            contextList = new ContextList();
-            aliases = new CopyOnWriteArrayList<>();
+            this(name, host, new ContextList(), name);
         }
 
         /**
@@ -1194,65 +1236,40 @@ public class Mapper {
          * @param realHost - 别名指向的 Host
          */
         public MappedHost(String alias, MappedHost realHost) {
-            super(alias, realHost.object);
-            this.realHost = realHost;
-            this.contextList = realHost.contextList;
-            this.aliases = null;
+            this(alias, realHost.object, realHost.contextList, realHost.realHostName);
         }
 
-        /**
-         * @return true则此 MappedHost 为别名 Host
-         */
-        public boolean isAlias() {
-            return realHost != this;
-//            return aliases.isEmpty();
+        private MappedHost(String name, Host host, ContextList contextList, String realHostName) {
+            super(name, host);
+            this.contextList = contextList;
+            this.realHostName = realHostName;
         }
 
         /**
-         * @return 真实 Host
+         * @return true则此 MappedHost 为别名 Host
          */
-        public MappedHost getRealHost() {
-            return realHost;
+        public boolean isAlias() {
+            return !name.equals(realHostName);
         }
 
         /**
          * @return 真实 Host 名称
          */
         public String getRealHostName() {
-            return realHost.name;
-        }
-
-        /**
-         * @return Host 别名集合
-         */
-        public Collection<MappedHost> getAliases() {
-            return aliases;
+            return realHostName;
         }
 
         /**
-         * @param alias - 添加的别名 Host
+         * @param newContextList - 新的 Context 列表
+         * @return 使用新 Context 列表的 MappedHost
          */
-        public void addAlias(MappedHost alias) {
-            aliases.add(alias);
-        }
-
-        /**
-         * @param c - 添加的别名 Host 集合
-         */
-        public void addAliases(Collection<? extends MappedHost> c) {
-            aliases.addAll(c);
-        }
-
-        /**
-         * @param alias - 删除的别名 Host
-         */
-        public void removeAlias(MappedHost alias) {
-            aliases.remove(alias);
+        public MappedHost withContextList(ContextList newContextList) {
+            return new MappedHost(name, object, newContextList, realHostName);
         }
     }
     
     /**
-     * 封装 Context, 每一个 ContextVersion 都代表着一个不同版本的 Context
+     * 封装 Context, 每一个 ContextVersion 都代表着一个不同版本的 Context。Wrapper 与 Welcome 文件的修改都会创建新的实例
      */
     protected static final class ContextVersion extends MapElement<Context> {
     	/** Context 路径 */
@@ -1262,26 +1279,74 @@ public class Mapper {
         /** Context 资源 */
         public final WebResourceRoot resources;
         /** welcome 文件资源路径 */
-        public String[] welcomeResources;
+        public final String[] welcomeResources;
         /** 默认 Wrapper */
-        public MappedWrapper defaultWrapper = null;
+        public final MappedWrapper defaultWrapper;
         /** 全值匹配的 Wrapper（不属于通配符 Wrapper 和 扩展 Wrapper 的剩余 Wrapper） */
-        public MappedWrapper[] exactWrappers = new MappedWrapper[0];
+        public final MappedWrapper[] exactWrappers;
         /** 通配符 Wrapper（wrapper mapping 以“/*”结尾） */
-        public MappedWrapper[] wildcardWrappers = new MappedWrapper[0];
+        public final MappedWrapper[] wildcardWrappers;
         /** 扩展名 Wrapper（wrapper mapping 以 "*." 开头，如：*.html） */
-        public MappedWrapper[] extensionWrappers = new MappedWrapper[0];
+        public final MappedWrapper[] extensionWrappers;
         /** 嵌套数 */
-        public int nesting = 0;
+        public final int nesting;
         /** 暂停 */
         private volatile boolean paused;
+        /** 延迟构建的 Wrapper 映射树，Wrapper 数量未达到阈值时为 null */
+        private volatile WrapperTree wrapperTree;
+        /** 是否已尝试构建 Wrapper 映射树 */
+        private volatile boolean wrapperTreeBuilt;
 
         public ContextVersion(String version, String path, int slashCount, Context context, WebResourceRoot resources, String[] welcomeResources) {
+            this(version, path, slashCount, context, resources, welcomeResources, null, new MappedWrapper[0], new MappedWrapper[0], new MappedWrapper[0], false);
+        }
+
+        private ContextVersion(String version, String path, int slashCount, Context context, WebResourceRoot resources, String[] welcomeResources,
+        		MappedWrapper defaultWrapper, MappedWrapper[] exactWrappers, MappedWrapper[] wildcardWrappers, MappedWrapper[] extensionWrappers, boolean paused) {
             super(version, context);
             this.path = path;
             this.slashCount = slashCount;
             this.resources = resources;
             this.welcomeResources = welcomeResources;
+            this.defaultWrapper = defaultWrapper;
+            this.exactWrappers = exactWrappers;
+            this.wildcardWrappers = wildcardWrappers;
+            this.extensionWrappers = extensionWrappers;
+            int nesting = 0;
+            for (MappedWrapper wildcardWrapper : wildcardWrappers) {
+                nesting = Math.max(nesting, slashCount(wildcardWrapper.name));
+            }
+            this.nesting = nesting;
+            this.paused = paused;
+        }
+
+        /**
+         * @return 使用给定 Wrapper 的新 ContextVersion
+         */
+        public ContextVersion withWrappers(MappedWrapper defaultWrapper, MappedWrapper[] exactWrappers, MappedWrapper[] wildcardWrappers, MappedWrapper[] extensionWrappers) {
+            return new ContextVersion(name, path, slashCount, object, resources, welcomeResources, defaultWrapper, exactWrappers, wildcardWrappers, extensionWrappers, paused);
+        }
+
+        /**
+         * @return 使用给定 Welcome 文件的新 ContextVersion
+         */
+        public ContextVersion withWelcomeResources(String[] welcomeResources) {
+            return new ContextVersion(name, path, slashCount, object, resources, welcomeResources, defaultWrapper, exactWrappers, wildcardWrappers, extensionWrappers, paused);
+        }
+
+        /**
+         * 获得 Wrapper 映射树。映射树在首次映射时构建，避免批量注册 Wrapper 期间重复构建。并发构建的结果相同，无需加锁
+         *
+         * @return Wrapper 映射树，未达到阈值或不可使用映射树时返回 null
+         */
+        public WrapperTree getWrapperTree() {
+            if (!wrapperTreeBuilt) {
+                if (WRAPPER_TREE_THRESHOLD > 0 && exactWrappers.length + wildcardWrappers.length >= WRAPPER_TREE_THRESHOLD) {
+                    wrapperTree = WrapperTree.build(exactWrappers, wildcardWrappers);
+                }
+                wrapperTreeBuilt = true;
+            }
+            return wrapperTree;
         }
 
         public boolean isPaused() {
@@ -1297,12 +1362,12 @@ public class Mapper {
      * 内部持有 Context 路径名和 ContextVersion 数组的引用
      */
     protected static final class MappedContext extends MapElement<Void> {
-        public volatile ContextVersion[] versions;
+        public final ContextVersion[] versions;
         
         
-        public MappedContext(String name, ContextVersion firstVersion) {
+        public MappedContext(String name, ContextVersion[] versions) {
             super(name, null);
-            this.versions = new ContextVersion[] { firstVersion };
+            this.versions = versions;
         }
     }
     
@@ -1313,7 +1378,7 @@ public class Mapper {
         public final int nesting;
         
         /** 默认 Context 索引 */
-        public int defaultContextIndex = -1;
+        public final int defaultContextIndex;
         
         public ContextList() {
             this(new MappedContext[0], 0);
@@ -1322,13 +1387,15 @@ public class Mapper {
         private ContextList(MappedContext[] contexts, int nesting) {
             this.contexts = contexts;
             this.nesting = nesting;
+            int defaultContextIndex = -1;
             for (int i = 0; i < contexts.length; i++) {
 				MappedContext mappedContext = contexts[i];
 				if ("".equals(mappedContext.name)) {
-					this.defaultContextIndex = i;
+					defaultContextIndex = i;
 					break;
 				}
 			}
+            this.defaultContextIndex = defaultContextIndex;
         }
 
         /**
@@ -1345,6 +1412,21 @@ public class Mapper {
             return null;
         }
 
+        /**
+         * 以同名的 MappedContext 替换旧值
+         * @param mappedContext - 新的 MappedContext
+         * @return 保存着替换之后 MappedContext 数组的新 ContextList，若未找到同名的 MappedContext 则返回 null
+         */
+        public ContextList replaceContext(MappedContext mappedContext) {
+            int pos = find(contexts, mappedContext.name);
+            if (pos < 0 || !contexts[pos].name.equals(mappedContext.name)) {
+                return null;
+            }
+            MappedContext[] newContexts = contexts.clone();
+            newContexts[pos] = mappedContext;
+            return new ContextList(newContexts, nesting);
+        }
+
         /**
          * 删除指定 Context 路径的映射 MappedContext, 并更新嵌套数
          * @param path - Context 路径
@@ -0,0 +1,217 @@
+package org.zy.moonstone.core.mapper;
+
+import org.zy.moonstone.core.interfaces.container.Context;
+import org.zy.moonstone.core.interfaces.container.Host;
+import org.zy.moonstone.core.interfaces.container.Wrapper;
+import org.zy.moonstone.core.util.buf.Ascii;
+import org.zy.moonstone.core.util.buf.CharChunk;
+import org.zy.moonstone.core.util.buf.MessageBytes;
+
+import javax.servlet.http.MappingMatch;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @dateTime 2022年12月30日;
+ * @author zy(azurite-Y);
+ * @description 请求映射结果缓存，以 (Host 名称, 解码后的 URI, 版本) 为键存储已解析的 {@link MappingData } 快照。
+ * <p>
+ * 缓存实例本身不会失效，映射发生变化时由 {@link Mapper } 整体替换为新实例，
+ * 所以在映射变化之前开始、之后才完成的映射结果只会写入已被丢弃的旧实例。
+ * 缓存数量超过上限时清空重建，与 {@link org.zy.moonstone.core.util.http.FastHttpDateFormat } 的缓存策略相同
+ */
+final class MappingCache {
+	/**
+	 * 最大缓存数，小于等于0则代表禁用缓存
+	 */
+	private final int maxSize;
+
+	private final Map<Key, MappingResult> cache;
+
+
+	MappingCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.cache = new ConcurrentHashMap<>(maxSize > 0 ? maxSize : 16);
+	}
+
+
+	/**
+	 * 查找缓存的映射结果，命中时将其填充到给定的映射数据中
+	 *
+	 * @param host - 虚拟 Host 名称
+	 * @param uri - 解码后的 URI
+	 * @param version - 要映射的请求中包含的版本（如果有）
+	 * @param mappingData - 命中时填充的映射数据
+	 * @return true则代表缓存命中
+	 */
+	boolean get(CharChunk host, CharChunk uri, String version, MappingData mappingData) {
+		if (maxSize <= 0) {
+			return false;
+		}
+		MappingResult result = cache.get(new Key(host, uri, version, false));
+		if (result == null) {
+			return false;
+		}
+		result.applyTo(mappingData);
+		return true;
+	}
+
+	/**
+	 * 缓存映射结果。只缓存映射到 Wrapper 且无需重定向的结果，未找到的路径不会占用缓存。
+	 * 查找过静态资源的结果(如目录重定向检查)随资源变化而变化，不会被缓存
+	 *
+	 * @param host - 虚拟 Host 名称
+	 * @param uri - 解码后的 URI
+	 * @param version - 要映射的请求中包含的版本（如果有）
+	 * @param mappingData - 映射操作的结果
+	 */
+	void put(CharChunk host, CharChunk uri, String version, MappingData mappingData) {
+		if (maxSize <= 0 || mappingData.wrapper == null || !mappingData.redirectPath.isNull() || mappingData.resourceDependent) {
+			return;
+		}
+		if (cache.size() >= maxSize) {
+			cache.clear();
+		}
+		cache.put(new Key(host, uri, version, true), new MappingResult(mappingData));
+	}
+
+	int size() {
+		return cache.size();
+	}
+
+
+	/**
+	 * 缓存键。Host 名称忽略大小写比较。查找时直接引用请求的字符块，存入缓存时才复制其内容
+	 */
+	private static final class Key {
+		private final char[] host;
+		private final int hostOffset;
+		private final int hostLength;
+		private final char[] uri;
+		private final int uriOffset;
+		private final int uriLength;
+		private final String version;
+		private final int hashCode;
+
+		Key(CharChunk host, CharChunk uri, String version, boolean copy) {
+			this.hostLength = host.getLength();
+			this.uriLength = uri.getLength();
+			if (copy) {
+				this.host = new char[hostLength];
+				System.arraycopy(host.getBuffer(), host.getStart(), this.host, 0, hostLength);
+				this.hostOffset = 0;
+				this.uri = new char[uriLength];
+				System.arraycopy(uri.getBuffer(), uri.getStart(), this.uri, 0, uriLength);
+				this.uriOffset = 0;
+			} else {
+				this.host = host.getBuffer();
+				this.hostOffset = host.getStart();
+				this.uri = uri.getBuffer();
+				this.uriOffset = uri.getStart();
+			}
+			this.version = version;
+
+			int h = 0;
+			for (int i = hostOffset, end = hostOffset + hostLength; i < end; i++) {
+				h = 31 * h + Ascii.toLower(this.host[i]);
+			}
+			for (int i = uriOffset, end = uriOffset + uriLength; i < end; i++) {
+				h = 31 * h + this.uri[i];
+			}
+			if (version != null) {
+				h = 31 * h + version.hashCode();
+			}
+			this.hashCode = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (hashCode != other.hashCode || hostLength != other.hostLength || uriLength != other.uriLength) {
+				return false;
+			}
+			if (version == null ? other.version != null : !version.equals(other.version)) {
+				return false;
+			}
+			for (int i = 0; i < uriLength; i++) {
+				if (uri[uriOffset + i] != other.uri[other.uriOffset + i]) {
+					return false;
+				}
+			}
+			for (int i = 0; i < hostLength; i++) {
+				if (Ascii.toLower(host[hostOffset + i]) != Ascii.toLower(other.host[other.hostOffset + i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+
+	/**
+	 * 映射结果快照，路径以字符串保存，不引用请求的字符缓冲区
+	 */
+	private static final class MappingResult {
+		private final Host host;
+		private final Context context;
+		private final int contextSlashCount;
+		private final Context[] contexts;
+		private final Wrapper wrapper;
+		private final String requestPath;
+		private final String wrapperPath;
+		private final String pathInfo;
+		private final MappingMatch matchType;
+
+		MappingResult(MappingData mappingData) {
+			this.host = mappingData.host;
+			this.context = mappingData.context;
+			this.contextSlashCount = mappingData.contextSlashCount;
+			this.contexts = mappingData.contexts;
+			this.wrapper = mappingData.wrapper;
+			this.requestPath = snapshot(mappingData.requestPath);
+			this.wrapperPath = snapshot(mappingData.wrapperPath);
+			this.pathInfo = snapshot(mappingData.pathInfo);
+			this.matchType = mappingData.matchType;
+		}
+
+		void applyTo(MappingData mappingData) {
+			mappingData.host = host;
+			mappingData.context = context;
+			mappingData.contextSlashCount = contextSlashCount;
+			mappingData.contexts = contexts;
+			mappingData.wrapper = wrapper;
+			if (requestPath != null) {
+				mappingData.requestPath.setString(requestPath);
+			}
+			if (wrapperPath != null) {
+				mappingData.wrapperPath.setString(wrapperPath);
+			}
+			if (pathInfo != null) {
+				mappingData.pathInfo.setString(pathInfo);
+			}
+			mappingData.matchType = matchType;
+		}
+
+		private static String snapshot(MessageBytes mb) {
+			if (mb.isNull()) {
+				return null;
+			}
+			if (mb.getType() == MessageBytes.T_CHARS) {
+				CharChunk cc = mb.getCharChunk();
+				return new String(cc.getBuffer(), cc.getStart(), cc.getLength());
+			}
+			return mb.toString();
+		}
+	}
+}
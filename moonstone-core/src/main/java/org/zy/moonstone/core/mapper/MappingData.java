@@ -28,6 +28,9 @@ public class MappingData {
     // ApplicationMapping 用于实现 javax.servlet.http.HttpServletMapping 的字段
     public MappingMatch matchType = null;
 
+    // 映射结果取决于静态资源(如是否为目录)，资源可能随时变化，所以此结果不可缓存
+    public boolean resourceDependent = false;
+
     public void recycle() {
         host = null;
         context = null;
@@ -39,5 +42,6 @@ public class MappingData {
         pathInfo.recycle();
         redirectPath.recycle();
         matchType = null;
+        resourceDependent = false;
     }
 }
@@ -0,0 +1,224 @@
+package org.zy.moonstone.core.mapper;
+
+import org.zy.moonstone.core.mapper.Mapper.MappedWrapper;
+import org.zy.moonstone.core.util.buf.CharChunk;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @dateTime 2023年1月3日;
+ * @author zy(azurite-Y);
+ * @description 以路径段为节点的 Wrapper 映射树，用于 Wrapper 数量较多的 Context。
+ * <p>
+ * 全值匹配与通配符匹配(/xxx/*)的 Wrapper 按其路径段插入树中，请求路径只需沿树遍历一次即可得到全值匹配结果或最长的通配符前缀匹配结果。
+ * 子节点以有序数组保存并使用二分查找，遍历过程中直接比较请求的字符缓冲区，不创建子串。树构建之后不可变
+ */
+final class WrapperTree {
+	private static final String[] EMPTY_SEGMENTS = new String[0];
+	private static final Node[] EMPTY_NODES = new Node[0];
+
+	private final Node root;
+
+
+	private WrapperTree(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * 根据全值匹配与通配符匹配的 Wrapper 构建映射树
+	 *
+	 * @param exactWrappers - 全值匹配的 Wrapper
+	 * @param wildcardWrappers - 通配符匹配的 Wrapper，名称为去除末尾 "/*" 之后的路径
+	 * @return 映射树，若存在不以 "/" 开头的映射路径则返回 null，此时应继续使用数组匹配
+	 */
+	static WrapperTree build(MappedWrapper[] exactWrappers, MappedWrapper[] wildcardWrappers) {
+		Builder root = new Builder();
+		for (MappedWrapper wrapper : exactWrappers) {
+			if (!wrapper.name.startsWith("/")) {
+				return null;
+			}
+			root.descend(wrapper.name).exact = wrapper;
+		}
+		for (MappedWrapper wrapper : wildcardWrappers) {
+			if (!wrapper.name.isEmpty() && !wrapper.name.startsWith("/")) {
+				return null;
+			}
+			root.descend(wrapper.name).wildcard = wrapper;
+		}
+		return new WrapperTree(root.build());
+	}
+
+	/**
+	 * 查找与给定路径全值匹配的 Wrapper
+	 *
+	 * @param path - Servlet 路径
+	 * @return 匹配的 Wrapper，未找到则返回 null
+	 */
+	MappedWrapper findExact(CharChunk path) {
+		char[] buf = path.getBuffer();
+		int pos = path.getStart();
+		int end = path.getEnd();
+		if (pos == end || buf[pos] != '/') {
+			return null;
+		}
+
+		Node node = root;
+		while (pos < end) {
+			// 跳过 '/'
+			int segmentStart = pos + 1;
+			int segmentEnd = segmentEnd(buf, segmentStart, end);
+			node = node.child(buf, segmentStart, segmentEnd);
+			if (node == null) {
+				return null;
+			}
+			pos = segmentEnd;
+		}
+		return node.exact;
+	}
+
+	/**
+	 * 查找与给定路径匹配的最长通配符 Wrapper。"/xxx/*" 匹配路径 "/xxx" 及所有以 "/xxx/" 开头的路径
+	 *
+	 * @param path - Servlet 路径
+	 * @return 匹配的 Wrapper，未找到则返回 null
+	 */
+	MappedWrapper findWildcard(CharChunk path) {
+		char[] buf = path.getBuffer();
+		int pos = path.getStart();
+		int end = path.getEnd();
+
+		Node node = root;
+		MappedWrapper match = node.wildcard;
+		if (pos < end && buf[pos] != '/') {
+			return match;
+		}
+		while (pos < end) {
+			int segmentStart = pos + 1;
+			int segmentEnd = segmentEnd(buf, segmentStart, end);
+			node = node.child(buf, segmentStart, segmentEnd);
+			if (node == null) {
+				break;
+			}
+			if (node.wildcard != null) {
+				match = node.wildcard;
+			}
+			pos = segmentEnd;
+		}
+		return match;
+	}
+
+	private static int segmentEnd(char[] buf, int start, int end) {
+		int i = start;
+		while (i < end && buf[i] != '/') {
+			i++;
+		}
+		return i;
+	}
+
+
+	/**
+	 * 树节点，代表从根节点到此节点的路径段序列
+	 */
+	private static final class Node {
+		/** 有序的子节点路径段 */
+		private final String[] segments;
+		/** 与 segments 一一对应的子节点 */
+		private final Node[] children;
+		/** 全值匹配此路径的 Wrapper */
+		private final MappedWrapper exact;
+		/** 以此路径为前缀的通配符 Wrapper */
+		private final MappedWrapper wildcard;
+
+		Node(String[] segments, Node[] children, MappedWrapper exact, MappedWrapper wildcard) {
+			this.segments = segments;
+			this.children = children;
+			this.exact = exact;
+			this.wildcard = wildcard;
+		}
+
+		/**
+		 * 二分查找与字符区间 [start, end) 相同的子节点
+		 */
+		Node child(char[] buf, int start, int end) {
+			int low = 0;
+			int high = segments.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = compare(segments[mid], buf, start, end);
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					return children[mid];
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * 与 {@link String#compareTo(String) } 的顺序一致
+		 */
+		private static int compare(String segment, char[] buf, int start, int end) {
+			int len1 = segment.length();
+			int len2 = end - start;
+			int lim = Math.min(len1, len2);
+			for (int i = 0; i < lim; i++) {
+				char c1 = segment.charAt(i);
+				char c2 = buf[start + i];
+				if (c1 != c2) {
+					return c1 - c2;
+				}
+			}
+			return len1 - len2;
+		}
+	}
+
+	/**
+	 * 构建期间使用的可变节点
+	 */
+	private static final class Builder {
+		private final Map<String, Builder> children = new TreeMap<>();
+		private MappedWrapper exact;
+		private MappedWrapper wildcard;
+
+		/**
+		 * 沿以 "/" 开头的路径逐段下降，不存在的节点将被创建
+		 */
+		Builder descend(String path) {
+			Builder node = this;
+			int pos = 0;
+			while (pos < path.length()) {
+				int next = path.indexOf('/', pos + 1);
+				if (next == -1) {
+					next = path.length();
+				}
+				String segment = path.substring(pos + 1, next);
+				Builder child = node.children.get(segment);
+				if (child == null) {
+					child = new Builder();
+					node.children.put(segment, child);
+				}
+				node = child;
+				pos = next;
+			}
+			return node;
+		}
+
+		Node build() {
+			if (children.isEmpty()) {
+				return new Node(EMPTY_SEGMENTS, EMPTY_NODES, exact, wildcard);
+			}
+			String[] segments = new String[children.size()];
+			Node[] nodes = new Node[children.size()];
+			int i = 0;
+			for (Map.Entry<String, Builder> entry : children.entrySet()) {
+				segments[i] = entry.getKey();
+				nodes[i] = entry.getValue().build();
+				i++;
+			}
+			return new Node(segments, nodes, exact, wildcard);
+		}
+	}
+}
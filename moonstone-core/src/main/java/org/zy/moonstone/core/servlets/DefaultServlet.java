@@ -4,11 +4,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zy.moonstone.core.Constants;
 import org.zy.moonstone.core.Globals;
+import org.zy.moonstone.core.connector.RequestFacade;
+import org.zy.moonstone.core.connector.ResponseFacade;
+import org.zy.moonstone.core.connector.ServletByteOutputStream;
 import org.zy.moonstone.core.interfaces.webResources.WebResource;
 import org.zy.moonstone.core.interfaces.webResources.WebResourceRoot;
 import org.zy.moonstone.core.servlets.function.HttpServletServiceCallback;
 import org.zy.moonstone.core.servlets.function.HttpServletServiceGetCallback;
 import org.zy.moonstone.core.servlets.function.HttpServletServicePostCallback;
+import org.zy.moonstone.core.util.buf.ByteBufferInputStream;
+import org.zy.moonstone.core.util.http.FastHttpDateFormat;
+import org.zy.moonstone.core.util.http.parser.AcceptEncoding;
+import org.zy.moonstone.core.webResources.CachedResource;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
@@ -17,7 +24,9 @@ import javax.servlet.UnavailableException;
 import javax.servlet.http.*;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -51,6 +60,21 @@ public class DefaultServlet extends HttpServlet {
     /** 发送文件使用的最小大小(字节) */
     protected int sendfileSize = 48 * 1024;
     
+    /** 按优先顺序排列的预压缩文件格式，为空则不查找预压缩文件 */
+    protected CompressionFormat[] compressionFormats = new CompressionFormat[0];
+    
+    /** 是否为可压缩的资源在资源缓存中生成并缓存 gzip 压缩内容，使压缩只在首次请求时进行 */
+    protected boolean useGzipCache = false;
+    
+    /** 可压缩资源的 MIME 类型 */
+    protected String[] compressibleMimeTypes = { "text/html", "text/xml", "text/plain", "text/css", "text/javascript", "application/javascript", "application/json", "application/xml" };
+    
+    /** 合并重叠与相邻范围之后，单个请求允许的最大范围数，超出时忽略 Range 请求头并输出完整资源 */
+    protected int maxRanges = 16;
+    
+    /** 多范围响应(multipart/byteranges)各部分之间的分隔符 */
+    protected static final String MIME_SEPARATION = "MOONSTONE_MIME_BOUNDARY";
+    
     /** 全套web应用程序资源 */
     protected transient WebResourceRoot resources = null;
 
@@ -81,6 +105,12 @@ public class DefaultServlet extends HttpServlet {
         serveResource(req, resp, true, fileEncoding);
 	}
 	
+	@Override
+	protected void doHead(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		// 只提供请求资源的响应头
+		serveResource(req, resp, false, fileEncoding);
+	}
+	
 	@Override
 	protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		if (logger.isDebugEnabled()) {
@@ -125,13 +155,96 @@ public class DefaultServlet extends HttpServlet {
 		if (servletMapping == null) {
 			WebResource resource = this.resources.getResource(path);
 			if (resource.exists()) {
+				// 包含请求与错误页面不处理条件请求与范围请求
+				boolean conditional = dispatcherType != DispatcherType.INCLUDE && dispatcherType != DispatcherType.ERROR;
+				List<Range> ranges = null;
+				// 实际输出的资源，选中预压缩资源时为其同级的压缩文件
+				WebResource contentResource = resource;
+				// 资源缓存中的 gzip 压缩内容
+				byte[] gzipContent = null;
+				if (conditional) {
+					// 内容编码协商，条件请求与范围请求按协商得到的表示(representation)处理
+					String contentEncoding = null;
+					List<PrecompressedResource> precompressedResources = getAvailablePrecompressedResources(path);
+					boolean gzipCacheable = useGzipCache && resource instanceof CachedResource && isCompressible(resource.getMimeType());
+					boolean negotiated = !precompressedResources.isEmpty() || gzipCacheable;
+					if (negotiated) {
+						response.addHeader("Vary", "Accept-Encoding");
+						List<AcceptEncoding> acceptEncodings = parseAcceptEncoding(request);
+						PrecompressedResource bestResource = getBestPrecompressedResource(acceptEncodings, precompressedResources);
+						if (bestResource != null) {
+							contentEncoding = bestResource.format.encoding;
+							contentResource = bestResource.resource;
+						} else if (gzipCacheable && getQuality(acceptEncodings, "gzip") > 0) {
+							gzipContent = ((CachedResource) resource).getGzipContent();
+							if (gzipContent != null) {
+								contentEncoding = "gzip";
+							}
+						}
+					}
+					
+					// 各个编码的表示内容不同，强验证器必须各不相同(RFC 7232 第2.1节)
+					String eTag = encodedETag(resource.getETag(), contentEncoding);
+					if (!checkIfHeaders(request, response, resource, eTag)) {
+						return ;
+					}
+					if (eTag != null) {
+						response.setHeader("ETag", eTag);
+					}
+					response.setHeader("Last-Modified", resource.getLastModifiedHttp());
+					if (contentEncoding != null) {
+						response.setHeader("Content-Encoding", contentEncoding);
+					}
+					
+					// 缓存的压缩内容不支持范围请求，总是完整输出
+					if (gzipContent == null) {
+						response.setHeader("Accept-Ranges", "bytes");
+						/*
+						 * 各个表示的最后修改时间相同，无法区分客户端已有的部分内容属于哪个表示，
+						 * 所以存在多个表示时 If-Range 只接受 ETag
+						 */
+						long lastModified = negotiated ? -1 : resource.getLastModified();
+						ranges = parseRange(request, response, eTag, lastModified, contentResource.getContentLength());
+						if (ranges != null && ranges.isEmpty()) {
+							// 已响应 416
+							return ;
+						}
+					}
+				}
+				
 				/*
 				 * 参见 org.zy.moonstone.core.connector.HttpResponse#isAppCommitted() 
 				 * 设置了ContentLength之后就视为请求已提交。故而在此首先设置ContentType
 				 */
-				response.setContentType(resource.getMimeType());
-				response.setContentLengthLong(resource.getContentLength());
-				service(request, response, resource);
+				String contentType = resource.getMimeType();
+				if (gzipContent != null) {
+					response.setContentType(contentType);
+					response.setContentLength(gzipContent.length);
+					if (serveContent) {
+						response.getOutputStream().write(gzipContent);
+					}
+				} else if (ranges == null) {
+					response.setContentType(contentType);
+					response.setContentLengthLong(contentResource.getContentLength());
+					if (serveContent) {
+						service(request, response, contentResource);
+					}
+				} else if (ranges.size() == 1) {
+					Range range = ranges.get(0);
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setContentType(contentType);
+					response.setHeader("Content-Range", range.toContentRange());
+					response.setContentLengthLong(range.length());
+					if (serveContent) {
+						serveRange(request, response, contentResource, range);
+					}
+				} else {
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setContentType("multipart/byteranges; boundary=" + MIME_SEPARATION);
+					if (serveContent) {
+						serveRanges(response, contentResource, contentType, ranges);
+					}
+				}
 				return ;
 			}
 		} else if (servletMapping.isSendFile()) {
@@ -149,25 +262,24 @@ public class DefaultServlet extends HttpServlet {
 		service(request, response, resource);
 	}
 	
+	/**
+	 * 输出资源内容。大于 {@link #sendfileSize } 的文件交由连接器通过 sendfile 直接从文件通道传输到套接字，
+	 * 其余资源优先使用资源缓存中的字节数组，只有无法缓存的资源才通过输入流复制
+	 * 
+	 * @param req - 当前请求
+	 * @param resp - 当前响应，调用前已设置 ContentType 与 ContentLength
+	 * @param webResource - 要输出的资源
+	 */
 	public void  service(HttpServletRequest req, HttpServletResponse resp, WebResource webResource) {
-		// 获得输出流
-		byte[] sendFileByte = new byte[sendfileSize];
-		
-		InputStream inputStream = webResource.getInputStream();
-		int len = 0;
-
-		// 在开始写入数据之前设置ContentLength, 否则在写入数据时未确定contentLength则使用Chunked块传输
-		//	resp.setContentLengthLong(file.length());
-		
+		long contentLength = webResource.getContentLength();
 		try {
-			ServletOutputStream os = resp.getOutputStream();
-			while((len= inputStream.read(sendFileByte)) != -1) {
-				// 输出二进制数组
-				os.write(sendFileByte, 0, len);
+			if (contentLength >= 0 && checkSendfile(req, resp, webResource, 0, contentLength)) {
+				return ;
 			}
+			copy(resp.getOutputStream(), webResource, 0, contentLength);
 			if (logger.isDebugEnabled()) {
 				logger.debug("DefaultServlet#sendFIleToStream. by uri: [{}], canonicalPath: [{}], len: {}, mimeType: [{}]", 
-						req.getRequestURI(), webResource.getCanonicalPath(), webResource.getContentLength(), webResource.getMimeType());
+						req.getRequestURI(), webResource.getCanonicalPath(), contentLength, webResource.getMimeType());
 			}
 
 		} catch (IOException e) {
@@ -175,6 +287,606 @@ public class DefaultServlet extends HttpServlet {
 		}
 	}
 	
+	/**
+	 * 输出资源的单个字节范围，可能时使用 sendfile
+	 * 
+	 * @param req - 当前请求
+	 * @param resp - 当前响应，调用前已设置状态码、Content-Range 与 ContentLength
+	 * @param webResource - 要输出的资源
+	 * @param range - 要输出的字节范围
+	 */
+	protected void serveRange(HttpServletRequest req, HttpServletResponse resp, WebResource webResource, Range range) throws IOException {
+		if (checkSendfile(req, resp, webResource, range.start, range.end + 1)) {
+			return ;
+		}
+		copy(resp.getOutputStream(), webResource, range.start, range.length());
+	}
+	
+	/**
+	 * 以 multipart/byteranges 格式输出资源的多个字节范围。sendfile 只能传输一段连续的文件区间，所以多范围响应总是经由输出流写出
+	 * 
+	 * @param resp - 当前响应，调用前已设置状态码与 ContentType
+	 * @param webResource - 要输出的资源
+	 * @param mimeType - 各部分的 Content-Type
+	 * @param ranges - 要输出的字节范围
+	 */
+	protected void serveRanges(HttpServletResponse resp, WebResource webResource, String mimeType, List<Range> ranges) throws IOException {
+		ServletOutputStream os = resp.getOutputStream();
+		for (Range range : ranges) {
+			StringBuilder partHeader = new StringBuilder(128);
+			partHeader.append("\r\n--").append(MIME_SEPARATION).append("\r\n");
+			if (mimeType != null) {
+				partHeader.append("Content-Type: ").append(mimeType).append("\r\n");
+			}
+			partHeader.append("Content-Range: ").append(range.toContentRange()).append("\r\n\r\n");
+			os.write(partHeader.toString().getBytes(StandardCharsets.ISO_8859_1));
+			copy(os, webResource, range.start, range.length());
+		}
+		os.write(("\r\n--" + MIME_SEPARATION + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+	}
+	
+	/**
+	 * 将资源中从 start 开始的 length 个字节写入输出流。资源不大于 {@link #sendfileSize } 时使用资源缓存中的字节数组，否则通过输入流复制
+	 * 
+	 * @param os - 目标输出流
+	 * @param webResource - 要输出的资源
+	 * @param start - 起始偏移量
+	 * @param length - 要写入的字节数，小于0则代表写到资源末尾
+	 */
+	private void copy(ServletOutputStream os, WebResource webResource, long start, long length) throws IOException {
+		InputStream inputStream = null;
+		if (webResource instanceof CachedResource) {
+			ByteBuffer contentBuffer = ((CachedResource) webResource).getContentBuffer();
+			if (contentBuffer != null) {
+				contentBuffer.position((int) start);
+				if (length >= 0) {
+					contentBuffer.limit((int) (start + length));
+				}
+				if (os instanceof ServletByteOutputStream) {
+					// 堆外缓存的内容直接写出，无需复制到堆上
+					((ServletByteOutputStream) os).write(contentBuffer);
+					return ;
+				}
+				// 包装的输出流只接受字节数组，经由缓冲区的只读流分段写出
+				inputStream = new ByteBufferInputStream(contentBuffer);
+				start = 0;
+				length = -1;
+			}
+		}
+		
+		if (inputStream == null) {
+			long contentLength = webResource.getContentLength();
+			byte[] content = null;
+			if (contentLength >= 0 && contentLength <= sendfileSize) {
+				// 缓存资源直接返回缓存的字节数组
+				content = webResource.getContent();
+			}
+			if (content != null) {
+				int len = length < 0 ? content.length - (int) start : (int) length;
+				os.write(content, (int) start, len);
+				return ;
+			}
+			
+			inputStream = webResource.getInputStream();
+			if (inputStream == null) {
+				return ;
+			}
+		}
+		try {
+			long skip = start;
+			while (skip > 0) {
+				long skipped = inputStream.skip(skip);
+				if (skipped <= 0) {
+					return ;
+				}
+				skip -= skipped;
+			}
+			
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = length < 0 ? Long.MAX_VALUE : length;
+			int len = 0;
+			while(remaining > 0 && (len = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+				os.write(buffer, 0, len);
+				remaining -= len;
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+	
+	/**
+	 * 检查能否使用 sendfile 输出资源的 [start, end) 区间，可以则设置连接器所需的请求属性。
+	 * <p>
+	 * 只有连接器支持 sendfile、请求与响应未被包装(包含请求的响应会被包装)、资源为文件系统中的文件且输出的字节数大于 {@link #sendfileSize } 时才能使用
+	 * 
+	 * @param req - 当前请求
+	 * @param resp - 当前响应
+	 * @param webResource - 要输出的资源
+	 * @param start - 起始偏移量
+	 * @param end - 结束偏移量(不包括)
+	 * @return true则代表资源将由连接器通过 sendfile 输出，无需再写入响应体
+	 */
+	protected boolean checkSendfile(HttpServletRequest req, HttpServletResponse resp, WebResource webResource, long start, long end) {
+		if (sendfileSize <= 0 || end - start <= sendfileSize || !webResource.isFile()) {
+			return false;
+		}
+		if (!Boolean.TRUE.equals(req.getAttribute(Constants.SENDFILE_SUPPORTED_ATTR))) {
+			return false;
+		}
+		if (req.getClass() != RequestFacade.class || resp.getClass() != ResponseFacade.class) {
+			return false;
+		}
+		String canonicalPath = webResource.getCanonicalPath();
+		if (canonicalPath == null) {
+			return false;
+		}
+		
+		req.setAttribute(Constants.SENDFILE_FILENAME_ATTR, canonicalPath);
+		req.setAttribute(Constants.SENDFILE_FILE_START_ATTR, Long.valueOf(start));
+		req.setAttribute(Constants.SENDFILE_FILE_END_ATTR, Long.valueOf(end));
+		
+		if (logger.isDebugEnabled()) {
+			logger.debug("DefaultServlet#checkSendfile. by uri: [{}], canonicalPath: [{}], start: {}, end: {}", req.getRequestURI(), canonicalPath, start, end);
+		}
+		return true;
+	}
+	
+	/**
+	 * 按 RFC 7232 第6节的顺序检查请求的前置条件。条件不满足时此方法已发送 304 或 412 响应
+	 * 
+	 * @param req - 当前请求
+	 * @param resp - 当前响应
+	 * @param webResource - 请求的资源
+	 * @param eTag - 响应的表示的 ETag，内容编码后的表示与原始资源不同
+	 * @return true则代表应继续处理请求
+	 */
+	protected boolean checkIfHeaders(HttpServletRequest req, HttpServletResponse resp, WebResource webResource, String eTag) throws IOException {
+		long lastModified = webResource.getLastModified();
+		
+		Enumeration<String> ifMatch = req.getHeaders("If-Match");
+		if (ifMatch != null && ifMatch.hasMoreElements()) {
+			// If-Match 使用强比较
+			if (!matchEntityTag(ifMatch, eTag, false)) {
+				resp.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+				return false;
+			}
+		} else {
+			long ifUnmodifiedSince = getDateHeader(req, "If-Unmodified-Since");
+			if (ifUnmodifiedSince != -1 && lastModified >= 0 && lastModified / 1000 > ifUnmodifiedSince / 1000) {
+				resp.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+				return false;
+			}
+		}
+		
+		String method = req.getMethod();
+		boolean getOrHead = "GET".equals(method) || "HEAD".equals(method);
+		Enumeration<String> ifNoneMatch = req.getHeaders("If-None-Match");
+		if (ifNoneMatch != null && ifNoneMatch.hasMoreElements()) {
+			// If-None-Match 使用弱比较
+			if (matchEntityTag(ifNoneMatch, eTag, true)) {
+				if (getOrHead) {
+					notModified(resp, webResource, eTag);
+				} else {
+					resp.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+				}
+				return false;
+			}
+		} else if (getOrHead) {
+			long ifModifiedSince = getDateHeader(req, "If-Modified-Since");
+			if (ifModifiedSince != -1 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000) {
+				notModified(resp, webResource, eTag);
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void notModified(HttpServletResponse resp, WebResource webResource, String eTag) {
+		resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		if (eTag != null) {
+			resp.setHeader("ETag", eTag);
+		}
+		resp.setHeader("Last-Modified", webResource.getLastModifiedHttp());
+	}
+	
+	/**
+	 * 解析 Range 请求头
+	 * 
+	 * @param req - 当前请求
+	 * @param resp - 当前响应
+	 * @param eTag - 响应的表示的 ETag，与响应头中的 ETag 相同
+	 * @param lastModified - 用于比较 If-Range 日期的最后修改时间，小于0则代表只接受 ETag 形式的 If-Range
+	 * @param fileLength - 实际输出的资源长度
+	 * @return null则代表应输出完整资源(无 Range 请求头、格式无效或 If-Range 不匹配)；空列表则代表所有范围都无法满足，此方法已发送 416 响应
+	 */
+	protected List<Range> parseRange(HttpServletRequest req, HttpServletResponse resp, String eTag, long lastModified, long fileLength) throws IOException {
+		String rangeHeader = req.getHeader("Range");
+		if (rangeHeader == null || !"GET".equals(req.getMethod()) && !"HEAD".equals(req.getMethod())) {
+			return null;
+		}
+		if (fileLength <= 0) {
+			return null;
+		}
+		
+		String ifRange = req.getHeader("If-Range");
+		if (ifRange != null) {
+			ifRange = ifRange.trim();
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+				// If-Range 使用强比较，弱 ETag 总是不匹配
+				if (!matchEntityTag(Collections.enumeration(Collections.singletonList(ifRange)), eTag, false)) {
+					return null;
+				}
+			} else {
+				long ifRangeDate = FastHttpDateFormat.parseDate(ifRange);
+				if (ifRangeDate == -1 || lastModified < 0 || ifRangeDate / 1000 != lastModified / 1000) {
+					return null;
+				}
+			}
+		}
+		
+		if (!rangeHeader.regionMatches(true, 0, "bytes=", 0, 6)) {
+			return null;
+		}
+		
+		List<Range> ranges = parseRanges(rangeHeader.substring(6), fileLength, maxRanges);
+		if (ranges != null && ranges.isEmpty()) {
+			resp.setHeader("Content-Range", "bytes */" + fileLength);
+			resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		}
+		return ranges;
+	}
+	
+	/**
+	 * 解析 Range 请求头中 "bytes=" 之后的范围集合。可满足的范围按起始偏移量排序，重叠或相邻的范围合并为一个，
+	 * 所以重复请求同一区间(如 "0-,0-,0-")不会放大响应
+	 * 
+	 * @param rangeSet - 以逗号分隔的范围
+	 * @param fileLength - 资源长度
+	 * @param maxRanges - 合并之后允许的最大范围数
+	 * @return null则代表应输出完整资源(格式无效或合并之后范围数超出 maxRanges)；空列表则代表所有范围都无法满足
+	 */
+	static List<Range> parseRanges(String rangeSet, long fileLength, int maxRanges) {
+		List<Range> ranges = new ArrayList<>();
+		boolean hasSpec = false;
+		for (String spec : rangeSet.split(",")) {
+			spec = spec.trim();
+			if (spec.isEmpty()) {
+				continue;
+			}
+			hasSpec = true;
+			int dash = spec.indexOf('-');
+			if (dash == -1) {
+				return null;
+			}
+			long start;
+			long end;
+			if (dash == 0) {
+				// 后缀范围: -n 代表最后 n 个字节
+				long suffixLength = parseRangeNumber(spec.substring(1));
+				if (suffixLength < 0) {
+					return null;
+				}
+				if (suffixLength == 0) {
+					continue;
+				}
+				start = Math.max(0, fileLength - suffixLength);
+				end = fileLength - 1;
+			} else {
+				start = parseRangeNumber(spec.substring(0, dash));
+				// 省略结束位置则代表到资源末尾
+				end = dash == spec.length() - 1 ? Long.MAX_VALUE : parseRangeNumber(spec.substring(dash + 1));
+				if (start < 0 || end < start) {
+					return null;
+				}
+				if (start >= fileLength) {
+					continue;
+				}
+				end = Math.min(end, fileLength - 1);
+			}
+			ranges.add(new Range(start, end, fileLength));
+		}
+		
+		if (!hasSpec) {
+			return null;
+		}
+		if (ranges.size() > 1) {
+			ranges = mergeRanges(ranges);
+		}
+		if (ranges.size() > maxRanges) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("范围数超出限制, 忽略 Range 请求头. by size: {}, maxRanges: {}", ranges.size(), maxRanges);
+			}
+			return null;
+		}
+		return ranges;
+	}
+	
+	/**
+	 * 按起始偏移量排序并合并重叠或相邻的范围
+	 * 
+	 * @param ranges - 至少包含两个范围
+	 * @return 互不重叠且不相邻的有序范围
+	 */
+	private static List<Range> mergeRanges(List<Range> ranges) {
+		ranges.sort((r1, r2) -> Long.compare(r1.start, r2.start));
+		List<Range> merged = new ArrayList<>(ranges.size());
+		Range current = ranges.get(0);
+		for (int i = 1; i < ranges.size(); i++) {
+			Range next = ranges.get(i);
+			if (next.start <= current.end + 1) {
+				if (next.end > current.end) {
+					current = new Range(current.start, next.end, current.fileLength);
+				}
+			} else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		merged.add(current);
+		return merged;
+	}
+	
+	/**
+	 * @return 解析得到的非负整数，格式无效则返回 -1
+	 */
+	private static long parseRangeNumber(String value) {
+		int length = value.length();
+		if (length == 0 || length > 18) {
+			return -1;
+		}
+		long result = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+	
+	/**
+	 * 解析日期请求头，格式无效的日期视为不存在(RFC 7232)
+	 */
+	private static long getDateHeader(HttpServletRequest req, String name) {
+		try {
+			return req.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * 获得内容编码后的表示的 ETag，在原始 ETag 的引号内追加编码名称，例如 "123-456" 变为 "123-456-gzip"
+	 * 
+	 * @param eTag - 原始资源的 ETag
+	 * @param contentEncoding - 内容编码，为 null 则代表未编码
+	 * @return 表示的 ETag
+	 */
+	protected static String encodedETag(String eTag, String contentEncoding) {
+		if (eTag == null || contentEncoding == null || !eTag.endsWith("\"")) {
+			return eTag;
+		}
+		return eTag.substring(0, eTag.length() - 1) + "-" + contentEncoding + "\"";
+	}
+	
+	/**
+	 * 检查实体标签列表(If-Match、If-None-Match 请求头的值)是否与资源的 ETag 匹配
+	 * 
+	 * @param headerValues - 请求头的所有值，每个值为逗号分隔的实体标签列表或 "*"
+	 * @param eTag - 资源的 ETag
+	 * @param weakComparison - true则使用弱比较，否则使用强比较(任一方为弱 ETag 均不匹配)
+	 * @return true则代表匹配
+	 */
+	protected static boolean matchEntityTag(Enumeration<String> headerValues, String eTag, boolean weakComparison) {
+		while (headerValues.hasMoreElements()) {
+			String value = headerValues.nextElement();
+			int length = value.length();
+			int i = 0;
+			while (i < length) {
+				char c = value.charAt(i);
+				if (c == ' ' || c == '\t' || c == ',') {
+					i++;
+					continue;
+				}
+				if (c == '*') {
+					// 资源存在即满足
+					return true;
+				}
+				boolean weak = false;
+				if (c == 'W' && value.startsWith("W/", i)) {
+					weak = true;
+					i += 2;
+				}
+				if (i >= length || value.charAt(i) != '"') {
+					// 格式无效，忽略此请求头的剩余部分
+					break;
+				}
+				int close = value.indexOf('"', i + 1);
+				if (close == -1) {
+					break;
+				}
+				if (eTag != null) {
+					boolean eTagWeak = eTag.startsWith("W/");
+					int eTagOpaqueStart = eTagWeak ? 2 : 0;
+					int opaqueLength = close + 1 - i;
+					if ((weakComparison || !weak && !eTagWeak) && eTag.length() - eTagOpaqueStart == opaqueLength 
+							&& value.regionMatches(i, eTag, eTagOpaqueStart, opaqueLength)) {
+						return true;
+					}
+				}
+				i = close + 1;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * 查找请求资源的预压缩同级文件(如 app.js.br、app.js.gz)
+	 * 
+	 * @param path - 请求资源的路径
+	 * @return 存在的预压缩资源，按 {@link #compressionFormats } 的优先顺序排列
+	 */
+	protected List<PrecompressedResource> getAvailablePrecompressedResources(String path) {
+		if (compressionFormats.length == 0) {
+			return Collections.emptyList();
+		}
+		List<PrecompressedResource> result = new ArrayList<>(compressionFormats.length);
+		for (CompressionFormat format : compressionFormats) {
+			WebResource precompressedResource = resources.getResource(path + format.extension);
+			if (precompressedResource.exists() && precompressedResource.isFile()) {
+				result.add(new PrecompressedResource(precompressedResource, format));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * 根据客户端可接受的编码及其权重选择预压缩资源。权重相同时按服务端的优先顺序选择
+	 * 
+	 * @param acceptEncodings - 客户端可接受的编码
+	 * @param precompressedResources - 可用的预压缩资源
+	 * @return 选中的预压缩资源，客户端不接受任何可用编码则返回 null
+	 */
+	protected PrecompressedResource getBestPrecompressedResource(List<AcceptEncoding> acceptEncodings, List<PrecompressedResource> precompressedResources) {
+		PrecompressedResource bestResource = null;
+		double bestQuality = 0;
+		for (PrecompressedResource precompressedResource : precompressedResources) {
+			double quality = getQuality(acceptEncodings, precompressedResource.format.encoding);
+			if (quality > bestQuality) {
+				bestQuality = quality;
+				bestResource = precompressedResource;
+			}
+		}
+		return bestResource;
+	}
+	
+	/**
+	 * 解析请求的所有 Accept-Encoding 请求头
+	 */
+	private static List<AcceptEncoding> parseAcceptEncoding(HttpServletRequest req) {
+		Enumeration<String> headerValues = req.getHeaders("Accept-Encoding");
+		if (headerValues == null || !headerValues.hasMoreElements()) {
+			return Collections.emptyList();
+		}
+		List<AcceptEncoding> result = new ArrayList<>();
+		try {
+			while (headerValues.hasMoreElements()) {
+				result.addAll(AcceptEncoding.parse(headerValues.nextElement()));
+			}
+		} catch (IOException e) {
+			// 请求头无效则视为不接受任何压缩编码
+			return Collections.emptyList();
+		}
+		return result;
+	}
+	
+	/**
+	 * 获得客户端对指定编码的权重。未列出的编码使用 "*" 的权重
+	 * 
+	 * @return 权重，客户端不接受此编码则返回0
+	 */
+	private static double getQuality(List<AcceptEncoding> acceptEncodings, String encoding) {
+		double wildcardQuality = 0;
+		for (AcceptEncoding acceptEncoding : acceptEncodings) {
+			if (encoding.equalsIgnoreCase(acceptEncoding.getEncoding())) {
+				return acceptEncoding.getQuality();
+			} else if ("*".equals(acceptEncoding.getEncoding())) {
+				wildcardQuality = acceptEncoding.getQuality();
+			}
+		}
+		return wildcardQuality;
+	}
+	
+	/**
+	 * @return true则代表此 MIME 类型的资源可以压缩
+	 */
+	private boolean isCompressible(String mimeType) {
+		if (mimeType == null) {
+			return false;
+		}
+		for (String compressibleMimeType : compressibleMimeTypes) {
+			if (mimeType.startsWith(compressibleMimeType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * 解析 precompressed 初始化参数。"true" 代表依次查找 br 与 gzip 压缩文件，也可指定 "br=.br,gzip=.gz" 形式的编码与文件扩展名列表
+	 */
+	private static CompressionFormat[] parseCompressionFormats(String precompressed) {
+		if (precompressed == null || "false".equalsIgnoreCase(precompressed)) {
+			return new CompressionFormat[0];
+		}
+		if ("true".equalsIgnoreCase(precompressed)) {
+			return new CompressionFormat[] { new CompressionFormat(".br", "br"), new CompressionFormat(".gz", "gzip") };
+		}
+		List<CompressionFormat> result = new ArrayList<>();
+		for (String element : precompressed.split(",")) {
+			int equals = element.indexOf('=');
+			if (equals == -1) {
+				throw new IllegalArgumentException("无效的 precompressed 参数值: " + precompressed);
+			}
+			result.add(new CompressionFormat(element.substring(equals + 1).trim(), element.substring(0, equals).trim()));
+		}
+		return result.toArray(new CompressionFormat[0]);
+	}
+	
+	
+	/**
+	 * 预压缩文件的编码格式
+	 */
+	protected static final class CompressionFormat {
+		/** 压缩文件相对于原文件追加的扩展名，如 ".gz" */
+		final String extension;
+		/** Content-Encoding 响应头的值，如 "gzip" */
+		final String encoding;
+		
+		CompressionFormat(String extension, String encoding) {
+			this.extension = extension;
+			this.encoding = encoding;
+		}
+	}
+	
+	/**
+	 * 存在的预压缩资源及其编码格式
+	 */
+	protected static final class PrecompressedResource {
+		final WebResource resource;
+		final CompressionFormat format;
+		
+		PrecompressedResource(WebResource resource, CompressionFormat format) {
+			this.resource = resource;
+			this.format = format;
+		}
+	}
+	
+	/**
+	 * 请求的单个字节范围，start 与 end 均为包含的偏移量
+	 */
+	protected static final class Range {
+		final long start;
+		final long end;
+		final long fileLength;
+		
+		Range(long start, long end, long fileLength) {
+			this.start = start;
+			this.end = end;
+			this.fileLength = fileLength;
+		}
+		
+		long length() {
+			return end - start + 1;
+		}
+		
+		String toContentRange() {
+			return "bytes " + start + "-" + end + "/" + fileLength;
+		}
+	}
+	
 	
 	// -------------------------------------------------------------------------------------
 	// 生命周期方法
@@ -195,6 +907,21 @@ public class DefaultServlet extends HttpServlet {
             fileEncodingCharset = Charset.forName(fileEncoding);
         }
         
+        compressionFormats = parseCompressionFormats(getServletConfig().getInitParameter("precompressed"));
+        useGzipCache = Boolean.parseBoolean(getServletConfig().getInitParameter("gzipCache"));
+        if (getServletConfig().getInitParameter("compressibleMimeTypes") != null) {
+            compressibleMimeTypes = getServletConfig().getInitParameter("compressibleMimeTypes").split("\\s*,\\s*");
+        }
+        
+        if (getServletConfig().getInitParameter("maxRanges") != null) {
+            maxRanges = Integer.parseInt(getServletConfig().getInitParameter("maxRanges"));
+        }
+        
+        // 以 KB 为单位配置，小于等于0则禁用 sendfile
+        if (getServletConfig().getInitParameter("sendfileSize") != null) {
+            sendfileSize = Integer.parseInt(getServletConfig().getInitParameter("sendfileSize")) * 1024;
+        }
+        
         initServletMapping();
 	}
 	
@@ -0,0 +1,218 @@
+package org.zy.moonstone.core.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @dateTime 2023年1月9日;
+ * @author zy(azurite-Y);
+ * @description 向客户端推送 Server-Sent Events(text/event-stream)的辅助类。
+ * <p>
+ * 创建时设置响应头并立即提交响应，之后每个事件在本地编码完成后一次写出并刷新，
+ * 经由分块编码(以及 gzip 的同步刷新)立刻到达客户端。单个事件的编码大小受 {@link #getMaxEventSize()} 限制，
+ * 所以推送方不会在服务端堆积数据。各方法是同步的，可以从异步处理的任意线程调用
+ */
+public class ServerSentEventStream implements Closeable {
+	public static final String CONTENT_TYPE = "text/event-stream";
+
+	/** 默认的单个事件最大字节数 */
+	public static final int DEFAULT_MAX_EVENT_SIZE = 64 * 1024;
+
+	private static final byte[] NEW_LINE = { '\n' };
+
+	private final ServletOutputStream outputStream;
+
+	/** 单个事件的编码缓冲区，每次写出后重置 */
+	private final ByteArrayOutputStream eventBuffer = new ByteArrayOutputStream(256);
+
+	private final int maxEventSize;
+
+	private boolean closed = false;
+
+
+	public ServerSentEventStream(HttpServletResponse response) throws IOException {
+		this(response, DEFAULT_MAX_EVENT_SIZE);
+	}
+
+	/**
+	 * 设置事件流的响应头并提交响应
+	 *
+	 * @param response - 当前响应
+	 * @param maxEventSize - 单个事件编码后的最大字节数
+	 * @throws IOException - 如果提交响应时发生 I/O 错误
+	 * @throws IllegalStateException - 如果响应已提交
+	 */
+	public ServerSentEventStream(HttpServletResponse response, int maxEventSize) throws IOException {
+		if (response.isCommitted()) {
+			throw new IllegalStateException("响应已提交, 无法创建事件流");
+		}
+		if (maxEventSize <= 0) {
+			throw new IllegalArgumentException("maxEventSize 必须大于0, by value: " + maxEventSize);
+		}
+		this.maxEventSize = maxEventSize;
+
+		response.setContentType(CONTENT_TYPE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader("Cache-Control", "no-cache");
+		// 提示反向代理不要缓冲此响应
+		response.setHeader("X-Accel-Buffering", "no");
+		this.outputStream = response.getOutputStream();
+
+		// 立即发送响应头，客户端无需等待第一个事件即可确认连接已建立
+		response.flushBuffer();
+	}
+
+
+	public int getMaxEventSize() {
+		return maxEventSize;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * 推送一个只有数据的事件，客户端以 message 事件接收
+	 *
+	 * @param data - 事件数据，可包含换行符
+	 * @throws IOException - 如果写出时发生 I/O 错误，通常是客户端已断开连接
+	 */
+	public void send(String data) throws IOException {
+		send(null, null, data);
+	}
+
+	/**
+	 * 推送一个命名事件
+	 *
+	 * @param event - 事件名称，为 null 则为 message 事件
+	 * @param data - 事件数据，可包含换行符
+	 * @throws IOException - 如果写出时发生 I/O 错误，通常是客户端已断开连接
+	 */
+	public void send(String event, String data) throws IOException {
+		send(null, event, data);
+	}
+
+	/**
+	 * 推送一个事件
+	 *
+	 * @param id - 事件 ID，客户端重连时通过 Last-Event-ID 请求头回传，为 null 则不设置
+	 * @param event - 事件名称，为 null 则为 message 事件
+	 * @param data - 事件数据，可包含换行符
+	 * @throws IOException - 如果写出时发生 I/O 错误，通常是客户端已断开连接
+	 */
+	public synchronized void send(String id, String event, String data) throws IOException {
+		checkClosed();
+		if (id != null) {
+			writeField("id", checkSingleLine("id", id));
+		}
+		if (event != null) {
+			writeField("event", checkSingleLine("event", event));
+		}
+		writeData(data == null ? "" : data);
+		eventBuffer.write(NEW_LINE);
+		writeEvent();
+	}
+
+	/**
+	 * 推送一个注释行，客户端会忽略注释，通常用作保持连接的心跳
+	 *
+	 * @param comment - 注释内容
+	 * @throws IOException - 如果写出时发生 I/O 错误，通常是客户端已断开连接
+	 */
+	public synchronized void comment(String comment) throws IOException {
+		checkClosed();
+		eventBuffer.write(':');
+		eventBuffer.write(' ');
+		eventBuffer.write(checkSingleLine("comment", comment).getBytes(StandardCharsets.UTF_8));
+		eventBuffer.write(NEW_LINE);
+		eventBuffer.write(NEW_LINE);
+		writeEvent();
+	}
+
+	/**
+	 * 设置客户端断开后重新连接前等待的时间
+	 *
+	 * @param millis - 重连等待毫秒数
+	 * @throws IOException - 如果写出时发生 I/O 错误，通常是客户端已断开连接
+	 */
+	public synchronized void retry(long millis) throws IOException {
+		checkClosed();
+		writeField("retry", Long.toString(millis));
+		eventBuffer.write(NEW_LINE);
+		writeEvent();
+	}
+
+	/**
+	 * 结束事件流并关闭响应输出流
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		outputStream.close();
+	}
+
+
+	private void writeData(String data) throws IOException {
+		int start = 0;
+		int length = data.length();
+		for (int i = 0; i < length; i++) {
+			char c = data.charAt(i);
+			if (c == '\r' || c == '\n') {
+				writeField("data", data.substring(start, i));
+				if (c == '\r' && i + 1 < length && data.charAt(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		writeField("data", data.substring(start));
+	}
+
+	private void writeField(String name, String value) throws IOException {
+		eventBuffer.write(name.getBytes(StandardCharsets.US_ASCII));
+		eventBuffer.write(':');
+		eventBuffer.write(' ');
+		eventBuffer.write(value.getBytes(StandardCharsets.UTF_8));
+		eventBuffer.write(NEW_LINE);
+	}
+
+	/**
+	 * 写出并刷新已编码的事件
+	 */
+	private void writeEvent() throws IOException {
+		try {
+			if (eventBuffer.size() > maxEventSize) {
+				throw new IllegalArgumentException(String.format("事件大小超出限制, by size: %d, maxEventSize: %d", eventBuffer.size(), maxEventSize));
+			}
+			eventBuffer.writeTo(outputStream);
+			outputStream.flush();
+		} catch (IOException e) {
+			// 客户端已断开，后续事件不再写出
+			closed = true;
+			throw e;
+		} finally {
+			eventBuffer.reset();
+		}
+	}
+
+	private void checkClosed() {
+		if (closed) {
+			throw new IllegalStateException("事件流已关闭");
+		}
+	}
+
+	private static String checkSingleLine(String name, String value) {
+		if (value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0) {
+			throw new IllegalArgumentException(name + " 不能包含换行符, by value: " + value);
+		}
+		return value;
+	}
+}
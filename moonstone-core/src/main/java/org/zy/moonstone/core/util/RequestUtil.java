@@ -1,6 +1,7 @@
 package org.zy.moonstone.core.util;
 
 import org.zy.moonstone.core.Constants;
+import org.zy.moonstone.core.util.buf.MessageBytes;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -133,4 +134,13 @@ public class RequestUtil {
 		return ( ArraysUtils.equalsByte(method, Constants.HTTP_GET) ||  ArraysUtils.equalsByte(method, Constants.HTTP_HEAD) || ArraysUtils.equalsByte(method, Constants.HTTP_DELETE))
 				? false : true;
 	}
+	
+	/**
+	 * 判断当前方法时否为"GET"、"HEAD"、"DELETE"，直接比较请求方法所引用的字节视图而无需复制
+	 * @param method - 请求方法
+	 * @return 是则为true
+	 */
+	public static boolean hasRequestBody(MessageBytes method) {
+		return !(method.equals("GET") || method.equals("HEAD") || method.equals("DELETE"));
+	}
 }
@@ -0,0 +1,76 @@
+package org.zy.moonstone.core.util.buf;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * @dateTime 2023年1月11日;
+ * @author zy(azurite-Y);
+ * @description 从 {@link ByteBuffer } 读取数据的输入流。流持有给定缓冲区的只读副本，读取只移动副本的位置，
+ * 不会复制缓冲区内容，也不会影响原缓冲区。可用于以流的形式读取直接内存或内存映射中的数据
+ */
+public class ByteBufferInputStream extends InputStream {
+	private final ByteBuffer buffer;
+
+	/**
+	 * @param buffer - 数据来源，读取范围为其当前位置至界限之间的数据
+	 */
+	public ByteBufferInputStream(ByteBuffer buffer) {
+		this.buffer = buffer.asReadOnlyBuffer();
+	}
+
+
+	@Override
+	public int read() {
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		return buffer.get() & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		int n = Math.min(len, buffer.remaining());
+		buffer.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public long skip(long n) {
+		if (n <= 0) {
+			return 0;
+		}
+		int skipped = (int) Math.min(n, buffer.remaining());
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		buffer.mark();
+	}
+
+	@Override
+	public synchronized void reset() {
+		buffer.reset();
+	}
+}
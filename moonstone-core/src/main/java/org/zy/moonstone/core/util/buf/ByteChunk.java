@@ -552,7 +552,7 @@ public class ByteChunk extends AbstractChunk {
 
 	@Override
 	protected String getString() {
-		return isNull() ? null : new String(buff, start, end, getCharset()).trim();
+		return isNull() ? null : new String(buff, start, end - start, getCharset()).trim();
 	}
 	
 	// ----------------------------------------------------- 接口定义 -----------------------------------------------------
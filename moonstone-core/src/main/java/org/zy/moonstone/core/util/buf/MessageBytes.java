@@ -42,6 +42,9 @@ public class MessageBytes implements Cloneable, Serializable {
 
     private long longValue;
     private boolean hasLongValue=false;
+
+    /** 由 {@link #toChars() } 独占使用的字符缓冲区，在多次转换之间复用 */
+    private char[] charBuffer;
     
     /**
      * 创建一个新的、未初始化的 MessageBytes 对象。使用静态的newInstance()回调本构造器
@@ -237,12 +240,40 @@ public class MessageBytes implements Cloneable, Serializable {
             type = T_CHARS;
             return;
         }
+        if (type == T_BYTES && toAsciiChars()) {
+            type = T_CHARS;
+            return;
+        }
         toString();
         type = T_CHARS;
         char cc[] = strValue.toCharArray();
         charC.setChars(cc, 0, cc.length);
     }
 
+    /**
+     * 将只包含 ASCII 字符的字节直接扩展到复用的字符缓冲区中，不创建中间字符串
+     *
+     * @return false则代表字节中包含非 ASCII 字符，需按字符集解码
+     */
+    private boolean toAsciiChars() {
+        byte[] bytes = byteC.getBuffer();
+        int start = byteC.getStart();
+        int len = byteC.getLength();
+        for (int i = start, end = start + len; i < end; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        if (charBuffer == null || charBuffer.length < len) {
+            charBuffer = new char[Math.max(len, 64)];
+        }
+        for (int i = 0; i < len; i++) {
+            charBuffer[i] = (char) bytes[start + i];
+        }
+        charC.setChars(charBuffer, 0, len);
+        return true;
+    }
+
     /**
      * 返回原始缓冲区的长度。 请注意，以字节为单位的长度可能与以字符为单位的长度不同。
      * @return the length
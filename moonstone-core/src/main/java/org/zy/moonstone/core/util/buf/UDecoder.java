@@ -0,0 +1,65 @@
+package org.zy.moonstone.core.util.buf;
+
+import java.io.CharConversionException;
+
+/**
+ * @dateTime 2022年12月28日;
+ * @author zy(azurite-Y);
+ * @description 在字节层面原地解码 URI 中的百分号编码(%xx)，不创建中间字符串。
+ * <p>
+ * 与 {@link java.net.URLDecoder } 不同，路径中的 '+' 不会被解码为空格(RFC 3986)。解码得到的字节按 URI 字符集解释
+ */
+public final class UDecoder {
+
+	private UDecoder() {}
+
+
+	/**
+	 * 原地解码字节块中的百分号编码。不包含 '%' 的 URI 直接返回，不做任何修改
+	 *
+	 * @param bc - 待解码的字节块，解码后其结束位置会相应前移
+	 * @throws CharConversionException - 如果存在无效的百分号编码或解码得到空字符(%00)
+	 */
+	public static void convert(ByteChunk bc) throws CharConversionException {
+		byte[] buff = bc.getBuffer();
+		int start = bc.getStart();
+		int end = bc.getEnd();
+
+		int idx = ByteChunk.findByte(buff, start, end, (byte) '%');
+		if (idx < 0) {
+			return;
+		}
+
+		for (int j = idx; j < end; j++, idx++) {
+			byte b = buff[j];
+			if (b == '%') {
+				if (j + 2 >= end) {
+					throw new CharConversionException("无效的百分号编码: 不完整的转义序列");
+				}
+				int high = hexValue(buff[j + 1]);
+				int low = hexValue(buff[j + 2]);
+				if (high < 0 || low < 0) {
+					throw new CharConversionException("无效的百分号编码: 非十六进制字符");
+				}
+				b = (byte) ((high << 4) + low);
+				if (b == 0) {
+					throw new CharConversionException("无效的百分号编码: 空字符");
+				}
+				j += 2;
+			}
+			buff[idx] = b;
+		}
+		bc.setEnd(idx);
+	}
+
+	private static int hexValue(byte b) {
+		if (b >= '0' && b <= '9') {
+			return b - '0';
+		} else if (b >= 'a' && b <= 'f') {
+			return b - 'a' + 10;
+		} else if (b >= 'A' && b <= 'F') {
+			return b - 'A' + 10;
+		}
+		return -1;
+	}
+}
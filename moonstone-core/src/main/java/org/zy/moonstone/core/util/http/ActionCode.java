@@ -78,7 +78,7 @@ public enum ActionCode {
     /**
      * 设置表单验证体重放的回调
      */
-//    REQ_SET_BODY_REPLAY,
+    REQ_SET_BODY_REPLAY,
 
     /**
      * 用于获取可用字节数的回调
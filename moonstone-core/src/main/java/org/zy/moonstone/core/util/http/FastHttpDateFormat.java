@@ -39,17 +39,6 @@ public class FastHttpDateFormat {
     
     private static final ConcurrentDateFormat[] httpParseFormats;
 
-    /**
-     * 生成 currentDate 对象的瞬间
-     */
-    private static volatile long currentDateGenerated = 0L;
-
-    /**
-     * 当前格式化日期
-     */
-    private static String currentDate = null;
-    
-    
     static {
         // 所有使用时区的格式都使用 GMT
         TimeZone tz = TimeZone.getTimeZone("GMT");
@@ -66,14 +55,10 @@ public class FastHttpDateFormat {
     /**
      * 以 HTTP 格式获取当前日期
      * @return HTTP 格式的日期
+     * @see HttpDateClock#getCurrentDate()
      */
     public static final String getCurrentDate() {
-        long now = System.currentTimeMillis();
-        if ((now - currentDateGenerated) > 1000) {
-            currentDate = FORMAT_RFC5322.format(new Date(now));
-            currentDateGenerated = now;
-        }
-        return currentDate;
+        return HttpDateClock.getCurrentDate();
     }
     
 	/**
@@ -0,0 +1,144 @@
+package org.zy.moonstone.core.util.http;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * @dateTime 2022年12月26日;
+ * @author zy(azurite-Y);
+ * @description 粗粒度时钟。端点运行期间由一个守护线程在每秒开始时刷新当前时间，并重新生成 RFC 7231 格式(IMF-fixdate)的当前日期。
+ * <p>
+ * 当前日期以预编码的字节数组发布，所有响应共享同一个实例，调用方不得修改其内容。
+ * 时钟线程随端点启动与停止({@link #start()}、{@link #stop()})，没有运行中的端点时在读取时按秒惰性刷新
+ */
+public final class HttpDateClock {
+	private static final DateTimeFormatter IMF_FIXDATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+	/**
+	 * 粗粒度的当前时间(毫秒)，仅在时钟线程运行时有效
+	 */
+	private static volatile long currentTimeMillis;
+
+	/**
+	 * 当前日期，日期字符串与其字节数组总是一并发布
+	 */
+	private static volatile CurrentDate currentDate = new CurrentDate(System.currentTimeMillis() / 1000);
+
+	/**
+	 * 时钟线程，为 null 则表示未运行
+	 */
+	private static volatile Thread clockThread;
+
+	/**
+	 * 使用时钟的端点数
+	 */
+	private static int users = 0;
+
+	private HttpDateClock() {}
+
+
+	/**
+	 * 启动时钟线程，由端点启动时调用。多次调用需要对应次数的 {@link #stop()}
+	 */
+	public static synchronized void start() {
+		if (users++ > 0) {
+			return;
+		}
+		update(System.currentTimeMillis());
+
+		Thread clock = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Thread current = Thread.currentThread();
+				while (clockThread == current) {
+					try {
+						// 在下一秒开始时醒来，使日期与秒数同步变化
+						Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+					} catch (InterruptedException e) {
+						// 由 stop() 中断
+					}
+					update(System.currentTimeMillis());
+				}
+			}
+		}, "HttpDateClock");
+		clock.setDaemon(true);
+		clockThread = clock;
+		clock.start();
+	}
+
+	/**
+	 * 停止时钟线程，由端点停止时调用
+	 */
+	public static synchronized void stop() {
+		if (users == 0 || --users > 0) {
+			return;
+		}
+		Thread clock = clockThread;
+		clockThread = null;
+		clock.interrupt();
+	}
+
+	/**
+	 * 获得当前时间。时钟线程运行时返回其每秒刷新的粗粒度时间，否则返回系统时间。
+	 * <p>
+	 * 粗粒度时间的精度为一秒，最多比系统时间落后一秒，不能与系统时间混用，也不适用于读写超时等毫秒级的计时
+	 *
+	 * @return 当前时间(毫秒)
+	 */
+	public static long currentTimeMillis() {
+		return clockThread != null ? currentTimeMillis : System.currentTimeMillis();
+	}
+
+	/**
+	 * 获得 HTTP 格式的当前日期
+	 *
+	 * @return 当前日期字符串
+	 */
+	public static String getCurrentDate() {
+		return getCurrent().date;
+	}
+
+	/**
+	 * 获得预编码的 HTTP 格式当前日期，每秒至多生成一次。返回的数组是共享的，不得修改
+	 *
+	 * @return 当前日期的字节数组
+	 */
+	public static byte[] getCurrentDateBytes() {
+		return getCurrent().bytes;
+	}
+
+	private static CurrentDate getCurrent() {
+		if (clockThread == null) {
+			// 时钟未运行，秒数变化时才重新生成
+			return update(System.currentTimeMillis());
+		}
+		return currentDate;
+	}
+
+	private static CurrentDate update(long now) {
+		long second = now / 1000;
+		CurrentDate date = currentDate;
+		if (second != date.second) {
+			date = new CurrentDate(second);
+			currentDate = date;
+		}
+		currentTimeMillis = now;
+		return date;
+	}
+
+
+	private static final class CurrentDate {
+		private final long second;
+		private final String date;
+		private final byte[] bytes;
+
+		private CurrentDate(long second) {
+			this.second = second;
+			this.date = IMF_FIXDATE.format(Instant.ofEpochMilli(second * 1000));
+			this.bytes = date.getBytes(StandardCharsets.ISO_8859_1);
+		}
+	}
+}
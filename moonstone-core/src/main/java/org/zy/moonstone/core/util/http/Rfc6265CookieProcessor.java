@@ -62,29 +62,56 @@ public class Rfc6265CookieProcessor extends CookieProcessorBase {
 	}
 	
 	/**
-	 * 解析 cookie 请求头
+	 * 解析 cookie 请求头。以 ';' 分隔每个 cookie，以首个 '=' 分隔名称与值，并忽略两侧的空白符
 	 * @param bc
 	 * @param serverCookies
 	 */
 	private void parseCookie(ByteChunk bc, ServerCookies serverCookies) {
 		byte[] buffer = bc.getBuffer();
-		int lastEnd = 0;
+		int end = bc.getEnd();
+		int pos = bc.getStart();
 		
-		ServerCookie serverCookie = null;
-		for (int i = 0; i < bc.getEnd(); i++) {
-			byte b = buffer[i];
+		while (pos < end) {
+			int pairEnd = ByteChunk.findByte(buffer, pos, end, Constants.SEMI_COLON);
+			if (pairEnd == -1) {
+				pairEnd = end;
+			}
 			
-			if (b == Constants.EQUAL_COLON) {
-				serverCookie = serverCookies.addCookie();
-				serverCookie.getName().setBytes(buffer, lastEnd, i  - lastEnd);
-				lastEnd = i + 1;
-			} else if (b == Constants.SEMI_COLON) {
-				serverCookie.getValue().setBytes(buffer, lastEnd, i  - lastEnd);
-				lastEnd = i + 1;
-			} else if (i == bc.getEnd() - 1) {
-				serverCookie.getValue().setBytes(buffer, lastEnd, i  - lastEnd);
+			int equal = ByteChunk.findByte(buffer, pos, pairEnd, Constants.EQUAL_COLON);
+			if (equal != -1) {
+				int nameStart = skipWhiteSpace(buffer, pos, equal);
+				int nameEnd = trimWhiteSpace(buffer, nameStart, equal);
+				if (nameEnd > nameStart) {
+					int valueStart = skipWhiteSpace(buffer, equal + 1, pairEnd);
+					int valueEnd = trimWhiteSpace(buffer, valueStart, pairEnd);
+					
+					ServerCookie serverCookie = serverCookies.addCookie();
+					serverCookie.getName().setBytes(buffer, nameStart, nameEnd - nameStart);
+					serverCookie.getValue().setBytes(buffer, valueStart, valueEnd - valueStart);
+				}
 			}
+			pos = pairEnd + 1;
+		}
+	}
+	
+	/**
+	 * @return 从 start 开始第一个非空白符的索引，若都为空白符则返回 end
+	 */
+	private static int skipWhiteSpace(byte[] buffer, int start, int end) {
+		while (start < end && (buffer[start] == Constants.SP || buffer[start] == Constants.HT)) {
+			start++;
+		}
+		return start;
+	}
+	
+	/**
+	 * @return 去除 end 之前的尾部空白符之后的结束索引(不包含)
+	 */
+	private static int trimWhiteSpace(byte[] buffer, int start, int end) {
+		while (end > start && (buffer[end - 1] == Constants.SP || buffer[end - 1] == Constants.HT)) {
+			end--;
 		}
+		return end;
 	}
 
 	@Override
@@ -27,83 +27,57 @@ public class AcceptEncoding {
 	}
 
 	/**
-	 * 解析 accept-language 请求值
+	 * 解析 Accept-Encoding 请求头值，如: {@code br;q=1.0, gzip;q=0.8, *;q=0.1}。未指定权重的编码其权重为1，权重无效的编码将被忽略
 	 *
-	 * @param acceptEncodingValue - 解析的 accept-language 头值
+	 * @param acceptEncodingValue - 解析的 Accept-Encoding 头值
 	 */
 	public static List<AcceptEncoding> parse(String acceptEncodingValue) throws IOException {
 		List<AcceptEncoding> result = new ArrayList<>();
 
-		int indexOf = acceptEncodingValue.indexOf(",");
-		int indexOf2 = acceptEncodingValue.indexOf("=");
+		for (String element : acceptEncodingValue.split(",")) {
+			int semicolon = element.indexOf(';');
+			String encoding = (semicolon == -1 ? element : element.substring(0, semicolon)).trim();
+			if (encoding.isEmpty()) {
+				continue;
+			}
 
-		if (indexOf2 != -1) {
-			if (indexOf != -1) { // Accept-Encoding: gzip, compress, br
-				String[] acceptEncodings = acceptEncodingValue.split(",");
-				for (String acceptEncoding : acceptEncodings) {
-					result.add(new AcceptEncoding(acceptEncoding.trim(), 0));
+			double quality = 1;
+			if (semicolon != -1) {
+				quality = parseQuality(element.substring(semicolon + 1));
+				if (quality < 0) {
+					continue;
 				}
-			} else { // Accept-Encoding: gzip
-				result.add(new AcceptEncoding(acceptEncodingValue.trim(), 0));
 			}
-		} else {
-			parseForQuality(acceptEncodingValue, result);
+			result.add(new AcceptEncoding(encoding, quality));
 		}
 		return result;
 	}
 
-	private static void parseForQuality(String acceptEncodingValue, List<AcceptEncoding> result) {
-		//
-		char[] charArray = acceptEncodingValue.toCharArray();
-
-		List<String> acceptEncoding = new ArrayList<>();
-		int endIndex = charArray.length - 1;
-
-		int nameStart = 0, qualityStart = 0;
-		boolean isReady = false;
-		double quality = 0;
-		boolean create = false;
-
-		/*
-		 * Accept-Encoding: br;q=1.0, gzip;q=0.8, *;q=0.1 1.0-[br] 0.8-[gzip] 0.1-[*]
-		 */
-		for (int i = 0; i < charArray.length; i++) {
-			char data = charArray[i];
-
-			if (!isReady) {
-				switch (data) {
-				case ',':
-					acceptEncoding.add(acceptEncodingValue.substring(nameStart, i));
-					// 跳过当前 ","
-					nameStart = i + 1;
-					break;
-				case ';':
-					acceptEncoding.add(acceptEncodingValue.substring(nameStart, i));
-					isReady = true;
-					// 跳过 ";q="
-					i += 3;
-					qualityStart = i;
-					break;
-				}
-			} else {
-				if (endIndex == i) {
-					quality = Double.parseDouble(acceptEncodingValue.substring(qualityStart, i + 1));
-					create = true;
-				} else if (isReady && data == ',') {
-					quality = Double.parseDouble(acceptEncodingValue.substring(qualityStart, i));
-					create = true;
-					nameStart = i + 1;
-				}
-
-				if (create) {
-					for (String tag : acceptEncoding) {
-						result.add(new AcceptEncoding(tag, quality));
-					}
-					acceptEncoding.clear();
-					isReady = false;
-					create = false;
-				}
+	/**
+	 * 解析编码参数中的权重
+	 *
+	 * @param parameters - ';' 之后的参数部分
+	 * @return 权重值，无效则返回 -1
+	 */
+	private static double parseQuality(String parameters) {
+		double quality = 1;
+		for (String parameter : parameters.split(";")) {
+			int equals = parameter.indexOf('=');
+			if (equals == -1) {
+				continue;
+			}
+			if (!"q".equalsIgnoreCase(parameter.substring(0, equals).trim())) {
+				continue;
+			}
+			try {
+				quality = Double.parseDouble(parameter.substring(equals + 1).trim());
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+			if (quality < 0 || quality > 1) {
+				return -1;
 			}
 		}
+		return quality;
 	}
 }
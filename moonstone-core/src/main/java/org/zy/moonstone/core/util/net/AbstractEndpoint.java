@@ -54,9 +54,9 @@ public abstract class AbstractEndpoint<S,U> {
 	protected final SocketProperties socketProperties = new SocketProperties();
 
 	/**
-	 * 用于接受新连接并将其传递给工作线程的线程.
+	 * 用于接受新连接并将其传递给工作线程的线程, 数量由 {@link #acceptorThreadCount } 确定.
 	 */
-	protected Acceptor<U> acceptor;
+	protected List<Acceptor<U>> acceptors;
 
 	/**
 	 * SocketProcessor对象的缓存, 在调用init方法时被实例化
@@ -233,7 +233,8 @@ public abstract class AbstractEndpoint<S,U> {
 	 */
 	private void unlockAccept() {
 		// 仅在必要时尝试解锁接受器
-		if (acceptor == null || acceptor.getState() != AcceptorState.RUNNING) {
+		int runningAcceptors = getRunningAcceptorCount();
+		if (runningAcceptors == 0) {
 			return;
 		}
 
@@ -252,37 +253,40 @@ public abstract class AbstractEndpoint<S,U> {
 		try {
 			unlockAddress = getUnlockAddress(localAddress);
 
-			try (java.net.Socket s = new java.net.Socket()) {
-				int stmo = 2 * 1000;
-				int utmo = 2 * 1000;
-				if (getSocketProperties().getSoTimeout() > stmo)
-					stmo = getSocketProperties().getSoTimeout();
-				if (getSocketProperties().getUnlockTimeout() > utmo)
-					utmo = getSocketProperties().getUnlockTimeout();
-				s.setSoTimeout(stmo);
-				s.setSoLinger(getSocketProperties().getSoLingerOn(),getSocketProperties().getSoLingerTime());
-				if (getLogger().isDebugEnabled()) {
-					getLogger().debug("About to unlock socket for:" + unlockAddress);
-				}
-				s.connect(unlockAddress,utmo);
-				if (getDeferAccept()) {
-					/*
-					 * 在延迟接受/接受过滤器的情况下, 我们需要发送数据来唤醒accept。
-					 * 发送OPTIONS绕过BSD接受过滤器。Acceptor将丢弃它。
-					 */
-					OutputStreamWriter sw;
-
-					sw = new OutputStreamWriter(s.getOutputStream(), "ISO-8859-1");
-					sw.write("OPTIONS * HTTP/1.0\r\n" + "User-Agent: moonstone 唤醒连接\r\n\r\n");
-					sw.flush();
-				}
-				if (getLogger().isDebugEnabled()) {
-					getLogger().debug("Socket 解锁完成: {}", unlockAddress);
+			// 每个仍在运行的接收器都可能阻塞在同一个服务器套接字的 accept() 上, 每个虚假连接只能唤醒其中一个
+			for (int i = 0; i < runningAcceptors; i++) {
+				try (java.net.Socket s = new java.net.Socket()) {
+					int stmo = 2 * 1000;
+					int utmo = 2 * 1000;
+					if (getSocketProperties().getSoTimeout() > stmo)
+						stmo = getSocketProperties().getSoTimeout();
+					if (getSocketProperties().getUnlockTimeout() > utmo)
+						utmo = getSocketProperties().getUnlockTimeout();
+					s.setSoTimeout(stmo);
+					s.setSoLinger(getSocketProperties().getSoLingerOn(),getSocketProperties().getSoLingerTime());
+					if (getLogger().isDebugEnabled()) {
+						getLogger().debug("About to unlock socket for:" + unlockAddress);
+					}
+					s.connect(unlockAddress,utmo);
+					if (getDeferAccept()) {
+						/*
+						 * 在延迟接受/接受过滤器的情况下, 我们需要发送数据来唤醒accept。
+						 * 发送OPTIONS绕过BSD接受过滤器。Acceptor将丢弃它。
+						 */
+						OutputStreamWriter sw;
+
+						sw = new OutputStreamWriter(s.getOutputStream(), "ISO-8859-1");
+						sw.write("OPTIONS * HTTP/1.0\r\n" + "User-Agent: moonstone 唤醒连接\r\n\r\n");
+						sw.flush();
+					}
+					if (getLogger().isDebugEnabled()) {
+						getLogger().debug("Socket 解锁完成: {}", unlockAddress);
+					}
 				}
 			}
 			// 等待高达1000ms的接受线程解锁
 			long waitLeft = 1000;
-			while (waitLeft > 0 && acceptor.getState() == AcceptorState.RUNNING) {
+			while (waitLeft > 0 && getRunningAcceptorCount() > 0) {
 				Thread.sleep(5);
 				waitLeft -= 5;
 			}
@@ -295,6 +299,24 @@ public abstract class AbstractEndpoint<S,U> {
 	}
 
 
+	/**
+	 * @return 处于 {@link AcceptorState#RUNNING } 状态的接收器数
+	 */
+	private int getRunningAcceptorCount() {
+		List<Acceptor<U>> acceptors = this.acceptors;
+		if (acceptors == null) {
+			return 0;
+		}
+		int count = 0;
+		for (Acceptor<U> acceptor : acceptors) {
+			if (acceptor.getState() == AcceptorState.RUNNING) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
 	private static InetSocketAddress getUnlockAddress(InetSocketAddress localAddress) throws SocketException {
 		if (localAddress.getAddress().isAnyLocalAddress()) {
 			/*
@@ -423,16 +445,22 @@ public abstract class AbstractEndpoint<S,U> {
     }
 
     /**
-     * 启动 {@link Acceptor moonstone接收器} 
+     * 启动 {@link Acceptor moonstone接收器}. 多个接收器共享同一个服务器套接字, 由操作系统在阻塞于 accept() 的线程之间分配新连接
      */
     protected void startAcceptorThread() {
-        acceptor = new Acceptor<>(this);
-        String threadName = getName() + "-Acceptor";
-        acceptor.setThreadName(threadName);
-        Thread t = new Thread(acceptor, threadName);
-        t.setPriority(getAcceptorThreadPriority());
-        t.setDaemon(getDaemon());
-        t.start();
+        int count = getAcceptorThreadCount();
+        List<Acceptor<U>> acceptors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Acceptor<U> acceptor = new Acceptor<>(this);
+            String threadName = getName() + "-Acceptor-" + i;
+            acceptor.setThreadName(threadName);
+            acceptors.add(acceptor);
+            Thread t = new Thread(acceptor, threadName);
+            t.setPriority(getAcceptorThreadPriority());
+            t.setDaemon(getDaemon());
+            t.start();
+        }
+        this.acceptors = acceptors;
     }
 
     /**
@@ -565,6 +593,11 @@ public abstract class AbstractEndpoint<S,U> {
 		this.executorTerminationTimeoutMillis = executorTerminationTimeoutMillis;
 	}
 
+	public void setAcceptorThreadCount(int acceptorThreadCount) {
+		this.acceptorThreadCount = Math.max(1, acceptorThreadCount);
+	}
+	public int getAcceptorThreadCount() { return acceptorThreadCount; }
+
 	public void setAcceptorThreadPriority(int acceptorThreadPriority) {
 		this.acceptorThreadPriority = acceptorThreadPriority;
 	}
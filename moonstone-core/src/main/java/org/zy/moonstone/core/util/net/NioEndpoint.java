@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.zy.moonstone.core.util.ExceptionUtils;
 import org.zy.moonstone.core.util.collections.SynchronizedQueue;
 import org.zy.moonstone.core.util.collections.SynchronizedStack;
+import org.zy.moonstone.core.util.http.HttpDateClock;
 import org.zy.moonstone.core.util.net.AbstractEndpoint.Handler.SocketState;
 
 import java.io.File;
@@ -14,10 +15,13 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.channels.*;
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -65,9 +69,19 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 	private long selectorTimeout = 1000;
 
 	/**
-	 * 套接字轮询器
+	 * 轮询器线程数，默认为可用处理器数，但不超过 8
 	 */
-	private Poller poller = null;
+	private int pollerThreadCount = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * 套接字轮询器，每个轮询器拥有独立的选择器、事件队列与线程
+	 */
+	private volatile Poller[] pollers = null;
+
+	/**
+	 * 用于轮流选择轮询器的计数器
+	 */
+	private final AtomicInteger pollerRotater = new AtomicInteger(0);
 
 
 
@@ -75,6 +89,9 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 	public void setUseInheritedChannel(boolean useInheritedChannel) { this.useInheritedChannel = useInheritedChannel; }
 	public boolean getUseInheritedChannel() { return useInheritedChannel; }
 
+	public void setPollerThreadCount(int pollerThreadCount) { this.pollerThreadCount = Math.max(1, pollerThreadCount); }
+	public int getPollerThreadCount() { return pollerThreadCount; }
+
 	public void setPollerThreadPriority(int pollerThreadPriority) { this.pollerThreadPriority = pollerThreadPriority; }
 	public int getPollerThreadPriority() { return pollerThreadPriority; }
 
@@ -83,7 +100,19 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 
 	public void setSelectorPool(NioSelectorPool selectorPool) { this.selectorPool = selectorPool; }
 
-	protected Poller getPoller() { return poller; }
+	/**
+	 * 以轮询(round-robin)的方式返回下一个轮询器，新建立的连接据此均匀地分配到各个轮询器上
+	 * 
+	 * @return 下一个轮询器，端点未启动时返回 null
+	 */
+	protected Poller getPoller() {
+		Poller[] pollers = this.pollers;
+		if (pollers == null) {
+			return null;
+		}
+		int idx = Math.abs(pollerRotater.incrementAndGet() % pollers.length);
+		return pollers[idx];
+	}
 
 	protected NioSelectorPool getSelectorPool() { return selectorPool; }
 
@@ -128,7 +157,8 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 			socketWrapper.setWriteTimeout(getConnectionTimeout());
 			socketWrapper.setKeepAliveLeft(NioEndpoint.this.getMaxKeepAliveRequests());
 //			socketWrapper.setSecure(isSSLEnabled());
-			poller.register(nioChannel, socketWrapper);
+			// 套接字包装器在创建时已分配轮询器
+			socketWrapper.getPoller().register(nioChannel, socketWrapper);
 			return true;
 		} catch (Throwable t) {
 			ExceptionUtils.handleThrowable(t);
@@ -187,10 +217,15 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 	 * @return 当前处于保持活动状态等待套接字上接收下一个请求的套接字数
 	 */
 	public int getKeepAliveCount() {
-		if (poller == null) {
+		Poller[] pollers = this.pollers;
+		if (pollers == null) {
 			return 0;
 		} else {
-			return poller.getKeyCount();
+			int sum = 0;
+			for (Poller poller : pollers) {
+				sum += poller.getKeyCount();
+			}
+			return sum;
 		}
 	}
 
@@ -202,7 +237,8 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 	public void bind() throws Exception {
 		initServerSocket();
 
-		setStopLatch(new CountDownLatch(1));
+		// 每个轮询器线程退出时倒数一次
+		setStopLatch(new CountDownLatch(getPollerThreadCount()));
 
 		// 如果需要, 初始化SSL
 		initialiseSsl();
@@ -239,6 +275,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 		if (!running) {
 			running = true;
 			paused = false;
+			HttpDateClock.start();
 
 			//  {@link SocketProcessor } 对象缓存的尺寸
 			if (socketProperties.getProcessorCache() != 0) {
@@ -260,12 +297,16 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 			initializeConnectionLatch();
 
 			// 启动轮询线程
-			poller = new Poller();
-			String pollerThreadName = getName() + "-Poller";
-			Thread pollerThread = new Thread(poller, pollerThreadName);
-			pollerThread.setPriority(threadPriority);
-			pollerThread.setDaemon(true);
-			pollerThread.start();
+			Poller[] pollers = new Poller[getPollerThreadCount()];
+			for (int i = 0; i < pollers.length; i++) {
+				pollers[i] = new Poller();
+				String pollerThreadName = getName() + "-Poller-" + i;
+				Thread pollerThread = new Thread(pollers[i], pollerThreadName);
+				pollerThread.setPriority(getPollerThreadPriority());
+				pollerThread.setDaemon(true);
+				pollerThread.start();
+			}
+			this.pollers = pollers;
 
 			startAcceptorThread();
 		}
@@ -282,9 +323,12 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 		}
 		if (running) {
 			running = false;
-			if (poller != null) {
-				poller.destroy();
-				poller = null;
+			HttpDateClock.stop();
+			if (pollers != null) {
+				for (Poller poller : pollers) {
+					poller.destroy();
+				}
+				pollers = null;
 			}
 			try {
 				/**
@@ -478,12 +522,23 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 		/** 保存当前选择器上已经“准备就绪”的事件数 */
 		private volatile int keyCount = 0;
 
+		/**
+		 * 记录此轮询器上各连接读写超时截止时间的时间轮
+		 */
+		private final TimeoutWheel timeoutWheel;
+
+		/**
+		 * 每次超时检查中截止时间已到的连接，复用以免每次检查都创建集合
+		 */
+		private final List<NioSocketWrapper> expiredSockets = new ArrayList<>();
+
 		/**
 		 * 创建一个Poll对象, 并获得一个 Selector 对象
 		 * @throws IOException
 		 */
 		public Poller() throws IOException {
 			this.selector = Selector.open();
+			this.timeoutWheel = new TimeoutWheel(socketProperties.getTimeoutInterval(), System.currentTimeMillis());
 		}
 
 		public int getKeyCount() { return keyCount; }
@@ -562,6 +617,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
     					 * @param att - 所产生的密钥的附件;可能为空
     					 */
                         channel.getIOChannel().register(getSelector(), SelectionKey.OP_READ, socketWrapper);
+                        scheduleTimeout(socketWrapper);
                     } catch (Exception x) {
                         logger.error("Endpoint#events-OP_READ注册失败", x);
                     }
@@ -578,6 +634,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                                 int ops = key.interestOps() | interestOps;
                                 attachment.interestOps(ops);
                                 key.interestOps(ops);
+                                scheduleTimeout(attachment);
                             } catch (CancelledKeyException ckx) {
                                 cancelledKey(key, socketWrapper);
                             }
@@ -845,7 +902,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 								if (logger.isDebugEnabled()) {
 									logger.debug("发送文件连接在发送文件完成后正在关闭");
 								}
-								poller.cancelledKey(sk, socketWrapper);
+								cancelledKey(sk, socketWrapper);
 								break;
 							}
 							case PIPELINED: {
@@ -853,7 +910,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 									logger.debug("连接保持活动状态, 处理管道数据");
 								}
 								if (!processSocket(socketWrapper, SocketEvent.OPEN_READ, true)) {
-									poller.cancelledKey(sk, socketWrapper);
+									cancelledKey(sk, socketWrapper);
 								}
 								break;
 							}
@@ -862,6 +919,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 									logger.debug("连接保持活动状态, 重新注册 OP_READ");
 								}
 								regKey(sk, socketWrapper, SelectionKey.OP_READ);
+								scheduleTimeout(socketWrapper);
 								break;
 							}
 						}
@@ -875,6 +933,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 						add(socketWrapper, SelectionKey.OP_WRITE);
 					} else {
 						regKey(sk, socketWrapper, SelectionKey.OP_WRITE);
+						scheduleTimeout(socketWrapper);
 					}
 					return SendfileState.PENDING;
 				}
@@ -883,13 +942,13 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 					logger.debug("无法完成发送文件请求:", e);
 				}
 				if (!calledByProcessor && sc != null) {
-					poller.cancelledKey(sk, socketWrapper);
+					cancelledKey(sk, socketWrapper);
 				}
 				return SendfileState.ERROR;
 			} catch (Throwable t) {
 				logger.error("发送文件错误", t);
 				if (!calledByProcessor && sc != null) {
-					poller.cancelledKey(sk, socketWrapper);
+					cancelledKey(sk, socketWrapper);
 				}
 				return SendfileState.ERROR;
 			}
@@ -924,78 +983,165 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 		 * <li>轮询器设置的 {@code nextExpiration } 时间已过</li>
 		 * <li>服务器套接字正在关闭</li>
 		 * </ul>
+		 * 超时检查只处理时间轮中截止时间已到的连接，其开销与连接总数无关
+		 * 
 		 * @param keyCount - 当前“准备就绪”的SelectionKey 数
 		 * @param hasEvents - 是否还有剩余事件需处理？
 		 */
 		protected void timeout(int keyCount, boolean hasEvents) {
 			long now = System.currentTimeMillis();
-			if (nextExpiration > 0 && (keyCount > 0 || hasEvents) && (now < nextExpiration) && !close) {
+			if (close) {
+				closeAllKeys();
+				return;
+			}
+			if (nextExpiration > 0 && (keyCount > 0 || hasEvents) && (now < nextExpiration)) {
+				return;
+			}
+
+			timeoutWheel.expire(now, expiredSockets);
+			int expiredCount = expiredSockets.size();
+			try {
+				for (int i = 0; i < expiredCount; i++) {
+					processTimeout(expiredSockets.get(i), now);
+				}
+			} finally {
+				expiredSockets.clear();
+			}
+
+			// 仅用于记录目的
+			long prevExp = nextExpiration;
+			nextExpiration = System.currentTimeMillis() + socketProperties.getTimeoutInterval();
+			if (logger.isTraceEnabled()) {
+				logger.trace("timeout completed: keys expired=" + expiredCount +
+						"; wheel size=" + timeoutWheel.size() +
+						"; now=" + now + "; nextExpiration=" + prevExp +
+						"; keyCount=" + keyCount + "; hasEvents=" + hasEvents +
+						"; eval=" + ((now < prevExp) && (keyCount>0 || hasEvents) && (!close) ));
+			}
+		}
+
+		/**
+		 * 根据套接字当前注册的事件登记其超时截止时间。套接字只需在注册读写事件时登记，
+		 * 之后的读写只更新其最后读写时间，截止时间到达时再根据最后读写时间判断是否确实超时
+		 *
+		 * @param socketWrapper - 套接字包装器
+		 */
+		protected void scheduleTimeout(NioSocketWrapper socketWrapper) {
+			long deadline = getTimeoutDeadline(socketWrapper);
+			if (deadline == Long.MAX_VALUE) {
+				return;
+			}
+			long scheduled = socketWrapper.getTimeoutDeadline();
+			if (scheduled != 0 && scheduled <= deadline) {
+				// 已登记的截止时间更早，到期时会重新计算
+				return;
+			}
+			timeoutWheel.add(socketWrapper, deadline);
+		}
+
+		/**
+		 * @return 套接字当前注册的读写事件中最早的超时截止时间，没有超时限制时返回 {@code Long.MAX_VALUE}
+		 */
+		private long getTimeoutDeadline(NioSocketWrapper socketWrapper) {
+			long deadline = Long.MAX_VALUE;
+			int interestOps = socketWrapper.interestOps();
+			if ((interestOps & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
+				long timeout = socketWrapper.getReadTimeout();
+				if (timeout > 0) {
+					deadline = Math.min(deadline, socketWrapper.getLastRead() + timeout);
+				}
+			}
+			if ((interestOps & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
+				long timeout = socketWrapper.getWriteTimeout();
+				if (timeout > 0) {
+					deadline = Math.min(deadline, socketWrapper.getLastWrite() + timeout);
+				}
+			}
+			return deadline;
+		}
+
+		/**
+		 * 处理截止时间已到的套接字。若其在登记之后有过读写活动则按最新的截止时间重新登记，否则作超时处理
+		 *
+		 * @param socketWrapper - 截止时间已到的套接字包装器
+		 * @param now - 当前时间
+		 */
+		private void processTimeout(NioSocketWrapper socketWrapper, long now) {
+			if (socketWrapper.isClosed()) {
+				return;
+			}
+			SelectionKey key = socketWrapper.getSocketChannel().getIOChannel().keyFor(selector);
+			// 套接字已关闭，其通道可能已被其他连接复用
+			if (key == null || key.attachment() != socketWrapper) {
 				return;
 			}
-			int keycount = 0;
+			try {
+				/*
+				 * ( value & x ) == x: 意图判断value中是否包含x, 若包含则为true, 反之则为false
+				 */
+				boolean readTimeout = false;
+				boolean writeTimeout = false;
+				// 检查读取超时
+				if ((socketWrapper.interestOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
+					long delta = now - socketWrapper.getLastRead();
+					long timeout = socketWrapper.getReadTimeout();
+					readTimeout = timeout > 0 && delta > timeout;
+				}
+				// 检查写入超时
+				if ((socketWrapper.interestOps() & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
+					long delta = now - socketWrapper.getLastWrite();
+					long timeout = socketWrapper.getWriteTimeout();
+					writeTimeout = timeout > 0 && delta > timeout;
+				}
+
+				if (readTimeout || writeTimeout) {
+					if (logger.isDebugEnabled()) {
+						StringBuilder builder = new StringBuilder();
+						builder.append("Socket");
+						if (readTimeout) {
+							builder.append("读");
+						}
+						if (writeTimeout) {
+							builder.append("写");
+						}
+						builder.append("超时处理, SelectionKey: {}, by SocketWrapper: {}");
+						logger.debug(builder.toString(), key, socketWrapper);
+					}
+
+					key.interestOps(0);
+					// 避免重复的超时调用
+					socketWrapper.interestOps(0);
+					socketWrapper.setError(new SocketTimeoutException());
+
+					if (!processSocket(socketWrapper, SocketEvent.ERROR, true)) {
+						logger.debug("Socket连接超时... by socketWrapper: {}", socketWrapper);
+						cancelledKey(key, socketWrapper);
+					}
+				} else {
+					// 登记之后有过读写活动或超时设置已改变，按最新的截止时间重新登记。未注册读写事件的套接字在再次注册时登记
+					scheduleTimeout(socketWrapper);
+				}
+			} catch (CancelledKeyException ckx) {
+				cancelledKey(key, socketWrapper);
+			}
+		}
+
+		/**
+		 * 轮询器关闭时取消所有的 SelectionKey 并关闭对应的套接字
+		 */
+		private void closeAllKeys() {
 			try {
 				for (SelectionKey key : selector.keys()) {
-					keycount++;
 					try {
 						NioSocketWrapper socketWrapper = (NioSocketWrapper) key.attachment();
 						if (socketWrapper == null) {
 							// 不支持任何没有附件的key
 							cancelledKey(key, null);
-						} else if (close) {
+						} else {
 							key.interestOps(0);
 							// 避免重复的停止调用
 							socketWrapper.interestOps(0);
 							cancelledKey(key, socketWrapper);
-						
-						/*
-						 * ( value & x ) == x: 意图判断value中是否包含x, 若包含则为true, 反之则为false
-						 */
-						} else if ((socketWrapper.interestOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ ||
-								(socketWrapper.interestOps() & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
-							boolean isTimedOut = false;
-							boolean readTimeout = false;
-							boolean writeTimeout = false;
-							// 检查读取超时
-							if ((socketWrapper.interestOps() & SelectionKey.OP_READ) == SelectionKey.OP_READ) {
-								long delta = now - socketWrapper.getLastRead();
-								long timeout = socketWrapper.getReadTimeout();
-								
-//								if (timeout > 0 && delta > timeout) readTimeout = true;
-								readTimeout = timeout > 0 && delta > timeout;
-							}
-							// 检查写入超时
-							if (!isTimedOut && (socketWrapper.interestOps() & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE) {
-								long delta = now - socketWrapper.getLastWrite();
-								long timeout = socketWrapper.getWriteTimeout();
-								
-//								if (timeout > 0 && delta > timeout) writeTimeout = true;
-								writeTimeout = timeout > 0 && delta > timeout;
-							}
-							
-							if (readTimeout || writeTimeout) {
-								if (logger.isDebugEnabled()) {
-									StringBuilder builder = new StringBuilder();
-									builder.append("Socket");
-									if (readTimeout) {
-										builder.append("读");
-									}
-									if (writeTimeout) {
-										builder.append("写");
-									}
-									builder.append("超时处理, SelectionKey: {}, by SocketWrapper: {}");
-									logger.debug(builder.toString(), key, socketWrapper);
-								}
-								
-                                key.interestOps(0);
-                                // 避免重复的超时调用
-                                socketWrapper.interestOps(0);
-                                socketWrapper.setError(new SocketTimeoutException());
-                                
-                                if (!processSocket(socketWrapper, SocketEvent.ERROR, true)) {
-                                	logger.debug("Socket连接超时... by socketWrapper: {}", socketWrapper);
-                                    cancelledKey(key, socketWrapper);
-                                }
-                            }
 						}
 					} catch (CancelledKeyException ckx) {
 						cancelledKey(key, (NioSocketWrapper) key.attachment());
@@ -1004,17 +1150,6 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 			} catch (ConcurrentModificationException cme) {
 				logger.warn("超时处理异常", cme);
 			}
-			
-			// 仅用于记录目的
-			long prevExp = nextExpiration;
-			nextExpiration = System.currentTimeMillis() + socketProperties.getTimeoutInterval();
-			if (logger.isTraceEnabled()) {
-				logger.trace("timeout completed: keys processed=" + keycount +
-						"; now=" + now + "; nextExpiration=" + prevExp +
-						"; keyCount=" + keyCount + "; hasEvents=" + hasEvents +
-						"; eval=" + ((now < prevExp) && (keyCount>0 || hasEvents) && (!close) ));
-			}
-
 		}
 	}
 
@@ -1046,8 +1181,8 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 			if (logger.isDebugEnabled()) {
 				logger.debug("SocketChannelHashCode: {}, SelectionKey: {}", socket.getIOChannel().hashCode(), key);
 			}
-			Poller poller = NioEndpoint.this.poller;
-			if (poller == null) {
+			Poller poller = socket.getSocketWrapper().getPoller();
+			if (NioEndpoint.this.pollers == null || poller == null) {
 				socketWrapper.close();
 				return;
 			}
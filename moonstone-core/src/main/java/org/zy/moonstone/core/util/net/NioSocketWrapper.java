@@ -38,8 +38,11 @@ public class NioSocketWrapper extends SocketWrapperBase<NioChannel> {
 	/** 线程写锁 */
 	private CountDownLatch writeLatch = null;
 	private volatile SendfileData sendfileData = null;
+	/** 最近一次读写的时间，与轮询器计算超时截止时间使用同一个时钟(系统时间) */
 	private volatile long lastRead = System.currentTimeMillis();
 	private volatile long lastWrite = lastRead;
+	/** 在所属轮询器的超时时间轮中登记的截止时间，0 代表未登记。只由所属轮询器线程访问 */
+	private long timeoutDeadline = 0;
 
 	
 	/**
@@ -172,6 +175,14 @@ public class NioSocketWrapper extends SocketWrapperBase<NioChannel> {
 		return lastRead;
 	}
 
+	long getTimeoutDeadline() {
+		return timeoutDeadline;
+	}
+
+	void setTimeoutDeadline(long timeoutDeadline) {
+		this.timeoutDeadline = timeoutDeadline;
+	}
+
 	@Override
 	protected void doClose() {
 		if (logger.isDebugEnabled()) {
@@ -0,0 +1,143 @@
+package org.zy.moonstone.core.util.net;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @dateTime 2022年12月22日;
+ * @author zy(azurite-Y);
+ * @description 记录连接超时截止时间的哈希时间轮。
+ * <p>
+ * 每个槽对应一个时间刻度，连接按截止时间登记到对应的槽中，检查超时只需访问已经到期的槽，而无需遍历选择器中的所有连接。
+ * 截止时间超出时间轮一圈的连接仍登记在对应的槽中，在其截止时间到达之前会被保留。
+ * <p>
+ * 连接的活动(读、写)不会修改时间轮，到期的连接由调用方根据其最新的读写时间决定是超时处理还是重新登记。
+ * 此类不是线程安全的，只应由所属轮询器线程访问
+ */
+public class TimeoutWheel {
+	/**
+	 * 时间轮的槽数，必须为2的幂
+	 */
+	private static final int WHEEL_SIZE = 512;
+
+	private final int mask = WHEEL_SIZE - 1;
+
+	/**
+	 * 每个槽对应的时间跨度(毫秒)
+	 */
+	private final long tickDuration;
+
+	private final Bucket[] buckets;
+
+	/**
+	 * 下一次检查开始的刻度
+	 */
+	private long currentTick;
+
+	/**
+	 * 登记的条目数，包括已经失效尚未清除的条目
+	 */
+	private int size = 0;
+
+
+	/**
+	 * @param tickDuration - 每个槽对应的时间跨度(毫秒)
+	 * @param now - 当前时间
+	 */
+	public TimeoutWheel(long tickDuration, long now) {
+		this.tickDuration = Math.max(1, tickDuration);
+		this.buckets = new Bucket[WHEEL_SIZE];
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			buckets[i] = new Bucket();
+		}
+		this.currentTick = now / this.tickDuration;
+	}
+
+	/**
+	 * 登记连接的超时截止时间。连接此前登记的截止时间随之失效
+	 *
+	 * @param socketWrapper - 连接的套接字包装器
+	 * @param deadline - 截止时间
+	 */
+	public void add(NioSocketWrapper socketWrapper, long deadline) {
+		socketWrapper.setTimeoutDeadline(deadline);
+		// 已经过期的截止时间登记到当前槽中，在下一次检查时处理
+		long tick = Math.max(deadline / tickDuration, currentTick);
+		buckets[(int) (tick & mask)].add(socketWrapper, deadline);
+		size++;
+	}
+
+	/**
+	 * 取出截止时间已到的连接。从上一次检查的刻度开始访问到当前时间对应的槽为止，当前槽会在下一次检查时再次访问
+	 *
+	 * @param now - 当前时间
+	 * @param expired - 存储截止时间已到的连接，这些连接已从时间轮中移除
+	 */
+	public void expire(long now, List<NioSocketWrapper> expired) {
+		long nowTick = now / tickDuration;
+		long from = currentTick;
+		if (nowTick - from >= WHEEL_SIZE) {
+			// 长时间未检查，每个槽只需访问一次
+			from = nowTick - WHEEL_SIZE + 1;
+		}
+		for (long tick = from; tick <= nowTick; tick++) {
+			size -= buckets[(int) (tick & mask)].expire(now, expired);
+		}
+		currentTick = nowTick;
+	}
+
+	/**
+	 * @return 登记的条目数
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 时间轮中的一个槽，以平行数组的方式保存连接与截止时间，以免为每次登记分配对象
+	 */
+	private static final class Bucket {
+		private NioSocketWrapper[] socketWrappers = new NioSocketWrapper[16];
+		private long[] deadlines = new long[16];
+		private int count = 0;
+
+		void add(NioSocketWrapper socketWrapper, long deadline) {
+			if (count == socketWrappers.length) {
+				socketWrappers = Arrays.copyOf(socketWrappers, count << 1);
+				deadlines = Arrays.copyOf(deadlines, count << 1);
+			}
+			socketWrappers[count] = socketWrapper;
+			deadlines[count] = deadline;
+			count++;
+		}
+
+		/**
+		 * 移除到期与失效的条目，保留截止时间未到的条目
+		 *
+		 * @return 移除的条目数
+		 */
+		int expire(long now, List<NioSocketWrapper> expired) {
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				NioSocketWrapper socketWrapper = socketWrappers[i];
+				long deadline = deadlines[i];
+				if (socketWrapper.getTimeoutDeadline() != deadline) {
+					// 连接已重新登记了其他截止时间或已取消登记
+					continue;
+				}
+				if (deadline <= now) {
+					socketWrapper.setTimeoutDeadline(0);
+					expired.add(socketWrapper);
+				} else {
+					socketWrappers[kept] = socketWrapper;
+					deadlines[kept] = deadline;
+					kept++;
+				}
+			}
+			int removed = count - kept;
+			Arrays.fill(socketWrappers, kept, count, null);
+			count = kept;
+			return removed;
+		}
+	}
+}
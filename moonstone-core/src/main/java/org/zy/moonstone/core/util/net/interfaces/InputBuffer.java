@@ -3,6 +3,7 @@ package org.zy.moonstone.core.util.net.interfaces;
 import org.zy.moonstone.core.interfaces.connector.ApplicationBufferHandler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * @dateTime 2022年5月30日;
@@ -21,4 +22,34 @@ public interface InputBuffer {
      */
 	@Deprecated
     default  int doRead(ApplicationBufferHandler handler) throws IOException {return 0;};
+	
+	/**
+	 * 读取请求体数据到给定的字节数组中。在没有可用数据时阻塞，直至读取到数据或到达请求体末尾
+	 * 
+	 * @param b - 存储数据的字节数组
+	 * @param off - 开始写入的偏移量
+	 * @param len - 最多读取的字节数
+	 * @return 实际读取的字节数，或 -1 表示请求体已读取完毕
+	 * @throws IOException - 如果从输入流读取时发生 I/O 错误
+	 */
+	int doRead(byte[] b, int off, int len) throws IOException;
+	
+	/**
+	 * 读取请求体数据到给定的 ByteBuffer 中。在没有可用数据时阻塞，直至读取到数据或到达请求体末尾
+	 * 
+	 * @param to - 存储数据的缓冲区，处于可写状态
+	 * @return 实际读取的字节数，或 -1 表示请求体已读取完毕
+	 * @throws IOException - 如果从输入流读取时发生 I/O 错误
+	 */
+	int doRead(ByteBuffer to) throws IOException;
+	
+	/**
+	 * @return 无需阻塞即可读取的请求体字节数
+	 */
+	int available();
+	
+	/**
+	 * @return 请求体是否已读取完毕
+	 */
+	boolean isFinished();
 }
@@ -1,6 +1,7 @@
 package org.zy.moonstone.core.webResources;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.JarURLConnection;
@@ -8,7 +9,11 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.Permission;
 import java.security.cert.Certificate;
 import java.text.Collator;
@@ -17,13 +22,16 @@ import java.util.Locale;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zy.moonstone.core.interfaces.container.Context;
 import org.zy.moonstone.core.interfaces.webResources.WebResource;
 import org.zy.moonstone.core.interfaces.webResources.WebResourceRoot;
+import org.zy.moonstone.core.util.buf.ByteBufferInputStream;
 import org.zy.moonstone.core.util.http.FastHttpDateFormat;
+import org.zy.moonstone.core.webResources.WebResourceCache.ContentStorage;
 
 /**
  * @dateTime 2022年9月16日;
@@ -63,6 +71,10 @@ public class CachedResource implements WebResource {
 	private volatile String cachedLastModifiedHttp = null;
 	/** 此资源的二进制内容，如果它在 byte[] 中不可用，则返回 null，例如，它太大了 */
 	private volatile byte[] cachedContent = null;
+	/** 以直接内存或内存映射保存的资源内容，只在缓存配置为堆外存储时使用 */
+	private volatile ByteBuffer cachedContentBuffer = null;
+	/** 此资源内容经 gzip 压缩后的缓存，首次请求时生成 */
+	private volatile byte[] cachedGzipContent = null;
 	/** 缓存资源是否指代一个文件 */
 	private volatile Boolean cachedIsFile = null;
 	/** 缓存资源是否指代一个目录 */
@@ -73,6 +85,12 @@ public class CachedResource implements WebResource {
 	private volatile Boolean cachedIsVirtual = null;
 	/** 缓存资源文件的长度 */
 	private volatile Long cachedContentLength = null;
+	/** 资源是否来自由 {@link ResourceChangeWatcher } 监听的文件资源集，是则变化时由监听器移除，无需按 TTL 重新检查 */
+	private volatile boolean watched = false;
+	/** 计入缓存总长度的字节数，-1 则代表尚未计入。由此实例的锁保护 */
+	private long chargedSize = -1;
+	/** 是否已从缓存中移除，移除之后生成的内容不再计入缓存总长度。只在此实例的锁内修改 */
+	private volatile boolean removed = false;
 	
 	
 	// -------------------------------------------------------------------------------------
@@ -155,7 +173,7 @@ public class CachedResource implements WebResource {
 	public boolean delete() {
         boolean deleteResult = webResource.delete();
         if (deleteResult) {
-            webResourceCache.removeCacheEntry(webAppPath);
+            webResourceCache.removeCacheEntry(webAppPath, this);
         }
         return deleteResult;
 	}
@@ -219,6 +237,14 @@ public class CachedResource implements WebResource {
 
 	@Override
 	public InputStream getInputStream() {
+		if (webResourceCache.getContentStorage() != ContentStorage.HEAP) {
+			// 堆外存储时直接读取缓冲区的只读视图，无需复制内容
+			ByteBuffer contentBuffer = getContentBuffer();
+			if (contentBuffer == null) {
+				return webResource.getInputStream();
+			}
+			return new ByteBufferInputStream(contentBuffer);
+		}
 		byte[] content = getContent();
         if (content == null) {
             // 不缓存 InputStreams
@@ -229,6 +255,16 @@ public class CachedResource implements WebResource {
 
 	@Override
 	public byte[] getContent() {
+		if (webResourceCache.getContentStorage() != ContentStorage.HEAP) {
+			// 堆外存储时不在堆上保留内容，每次调用返回一份副本。只需读取内容时应使用 getInputStream() 或 getContentBuffer()
+			ByteBuffer contentBuffer = getContentBuffer();
+			if (contentBuffer == null) {
+				return null;
+			}
+			byte[] content = new byte[contentBuffer.remaining()];
+			contentBuffer.get(content);
+			return content;
+		}
 		byte[] cachedContent = this.cachedContent;
         if (cachedContent == null) {
             if (getContentLength() > objectMaxSizeBytes) {
@@ -240,6 +276,129 @@ public class CachedResource implements WebResource {
         return cachedContent;
 	}
 
+	/**
+	 * 获得保存在堆外的资源内容，首次调用时按缓存的 {@link ContentStorage } 配置加载。
+	 * 每次调用返回一个独立的只读视图，调用方可以自由修改其位置与界限，可直接写入通道而无需复制到堆上
+	 * 
+	 * @return 内容缓冲区，若缓存使用堆上存储或资源内容无法缓存(例如太大)则返回 null
+	 */
+	public ByteBuffer getContentBuffer() {
+		ContentStorage contentStorage = webResourceCache.getContentStorage();
+		if (contentStorage == ContentStorage.HEAP) {
+			return null;
+		}
+		ByteBuffer cachedContentBuffer = this.cachedContentBuffer;
+		if (cachedContentBuffer == null) {
+			long contentLength = getContentLength();
+			if (contentLength < 0 || contentLength > objectMaxSizeBytes) {
+				return null;
+			}
+			synchronized (this) {
+				cachedContentBuffer = this.cachedContentBuffer;
+				if (cachedContentBuffer == null) {
+					try {
+						cachedContentBuffer = loadContentBuffer(contentStorage, (int) contentLength);
+					} catch (IOException e) {
+						logger.warn("资源内容加载失败, by path: {}", webAppPath, e);
+						return null;
+					}
+					// 内容长度在加入缓存时已计入缓存总长度，无需再次累加
+					this.cachedContentBuffer = cachedContentBuffer;
+				}
+			}
+		}
+		return cachedContentBuffer.duplicate();
+	}
+	
+	/**
+	 * 加载堆外的资源内容。文件系统中的文件直接由文件通道读取或映射，其他资源(如 JAR 中的条目)经由输入流读取。
+	 * <p>
+	 * 注意: 映射的文件在缓存项重新验证(TTL)之前被外部截断时，读取映射区域可能出错，所以 MAPPED 只适合部署后不会原地修改的静态资源
+	 */
+	private ByteBuffer loadContentBuffer(ContentStorage contentStorage, int contentLength) throws IOException {
+		String canonicalPath = webResource.isFile() ? webResource.getCanonicalPath() : null;
+		if (canonicalPath != null) {
+			try (FileChannel channel = FileChannel.open(Paths.get(canonicalPath), StandardOpenOption.READ)) {
+				if (contentStorage == ContentStorage.MAPPED) {
+					// 映射在通道关闭后依然有效
+					return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), contentLength));
+				}
+				ByteBuffer buffer = ByteBuffer.allocateDirect(contentLength);
+				while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+					// 读满为止
+				}
+				buffer.flip();
+				return buffer.asReadOnlyBuffer();
+			}
+		}
+		
+		InputStream inputStream = webResource.getInputStream();
+		if (inputStream == null) {
+			throw new IOException("无法读取资源内容");
+		}
+		try (InputStream is = inputStream) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(contentLength);
+			byte[] chunk = new byte[Math.min(contentLength, 8192) + 1];
+			int len;
+			while (buffer.hasRemaining() && (len = is.read(chunk, 0, Math.min(chunk.length, buffer.remaining()))) != -1) {
+				buffer.put(chunk, 0, len);
+			}
+			buffer.flip();
+			return buffer.asReadOnlyBuffer();
+		}
+	}
+
+	/**
+	 * 获得经 gzip 压缩的资源内容，首次调用时压缩并缓存，之后的请求无需重复压缩
+	 * 
+	 * @return 压缩后的内容，若资源内容无法缓存(例如太大)则返回 null
+	 */
+	public byte[] getGzipContent() {
+		byte[] cachedGzipContent = this.cachedGzipContent;
+		if (cachedGzipContent == null) {
+			long contentLength = getContentLength();
+			if (contentLength < 0 || contentLength > objectMaxSizeBytes) {
+				return null;
+			}
+			long delta = 0;
+			synchronized (this) {
+				cachedGzipContent = this.cachedGzipContent;
+				if (cachedGzipContent == null) {
+					ByteArrayOutputStream baos = new ByteArrayOutputStream((int) contentLength / 2 + 64);
+					try (InputStream is = getInputStream(); GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
+						if (is == null) {
+							return null;
+						}
+						byte[] buffer = new byte[8192];
+						int n;
+						while ((n = is.read(buffer)) != -1) {
+							gzip.write(buffer, 0, n);
+						}
+					} catch (IOException e) {
+						logger.warn("资源内容压缩失败, by path: {}", webAppPath, e);
+						return null;
+					}
+					cachedGzipContent = baos.toByteArray();
+					if (removed) {
+						// 已从缓存中移除，只服务于当前请求
+						return cachedGzipContent;
+					}
+					this.cachedGzipContent = cachedGzipContent;
+					// 尚未计入时，加入缓存时的 charge() 会一并计入
+					if (chargedSize >= 0) {
+						chargedSize += cachedGzipContent.length;
+						delta = cachedGzipContent.length;
+					}
+				}
+			}
+			// 在锁外更新，淘汰过程会获取其他缓存项的锁
+			if (delta > 0) {
+				webResourceCache.increaseSize(delta);
+			}
+		}
+		return cachedGzipContent;
+	}
+
 	@Override
 	public long getCreation() {
         return webResource.getCreation();
@@ -323,6 +482,45 @@ public class CachedResource implements WebResource {
         if (getContentLength() <= objectMaxSizeBytes) {
             result += getContentLength();
         }
+        byte[] cachedGzipContent = this.cachedGzipContent;
+        if (cachedGzipContent != null) {
+            result += cachedGzipContent.length;
+        }
+        return result;
+    }
+    
+    /**
+     * 加入缓存时计算并记录计入缓存总长度的字节数
+     * 
+     * @return 应计入缓存总长度的字节数，已移除则返回0
+     */
+    synchronized long charge() {
+        if (removed) {
+            return 0;
+        }
+        chargedSize = getSize();
+        return chargedSize;
+    }
+    
+    /**
+     * @return true 则代表此实例已从缓存中移除
+     */
+    boolean isRemoved() {
+        return removed;
+    }
+    
+    /**
+     * 从缓存中移除时标记此实例，之后生成的内容不再计入缓存总长度
+     * 
+     * @return 应从缓存总长度中减去的字节数，即此前计入的全部字节数。重复调用返回0
+     */
+    synchronized long discharge() {
+        if (removed) {
+            return 0;
+        }
+        removed = true;
+        long result = Math.max(chargedSize, 0);
+        chargedSize = 0;
         return result;
     }
     
@@ -349,6 +547,8 @@ public class CachedResource implements WebResource {
                     getLastModified();
                     getContentLength();
                     nextCheck = ttl + now;
+                    // 只有文件资源集提供文件资源，JAR、WAR 中的资源与不存在的资源仍按 TTL 检查
+                    watched = webResourceCache.isWatched() && webResource instanceof FileResource;
                     // exists() 是一个相对昂贵的文件检查，所以使用我们现在知道它是否存在的事实
                     if (webResource instanceof EmptyResource) {
                         cachedExists = Boolean.FALSE;
@@ -360,7 +560,8 @@ public class CachedResource implements WebResource {
             }
         }
 
-        if (now < nextCheck) {
+        // 文件变化由 ResourceChangeWatcher 通知时无需重新检查
+        if (now < nextCheck || watched && webResourceCache.isWatched()) {
             return true;
         }
 
@@ -395,12 +596,14 @@ public class CachedResource implements WebResource {
                 if (webResources == null) {
                     webResources = root.getResourcesInternal(webAppPath, useClassLoaderResources);
                     nextCheck = ttl + now;
+                    watched = webResourceCache.isWatched() && isFileResources(webResources);
                     return true;
                 }
             }
         }
 
-        if (now < nextCheck) {
+        // 文件变化由 ResourceChangeWatcher 通知时无需重新检查
+        if (now < nextCheck || watched && webResourceCache.isWatched()) {
             return true;
         }
 
@@ -416,7 +619,19 @@ public class CachedResource implements WebResource {
     
     
     
-    @Override
+    private static boolean isFileResources(WebResource[] webResources) {
+        if (webResources.length == 0) {
+            return false;
+        }
+        for (WebResource webResource : webResources) {
+            if (!(webResource instanceof FileResource)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+	@Override
 	public String toString() {
 		return "CachedResource [webAppPath=" + webAppPath + ", nextCheck=" + FastHttpDateFormat.formatDayTime(nextCheck) + ", cachedLastModified="
 				+ FastHttpDateFormat.formatDayTime(cachedLastModified) + ", cachedExists=" + cachedExists + "]";
@@ -0,0 +1,219 @@
+package org.zy.moonstone.core.webResources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @dateTime 2023年1月6日;
+ * @author zy(azurite-Y);
+ * @description 基于 {@link WatchService } 监听文件资源集的目录，在文件实际发生变化时使 {@link WebResourceCache } 中对应的缓存项失效。
+ * <p>
+ * 监听生效期间缓存项无需在 TTL 到期后重新检查文件的修改时间与长度，从而避免热点路径上频繁的文件系统调用。
+ * WatchService 不递归监听子目录，所以注册时遍历整个目录树，运行期间新建的目录在收到创建事件后注册。
+ * 目录被删除或新建时移除该路径下的所有缓存项，事件丢失(OVERFLOW)或 JAR 文件变化时清空整个缓存
+ */
+final class ResourceChangeWatcher implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(ResourceChangeWatcher.class);
+
+	private final WebResourceCache cache;
+
+	private final String name;
+
+	private final WatchService watchService;
+
+	/** 已注册目录与其对应的 web 应用程序路径，同一目录可能被多个资源集注册 */
+	private final Map<WatchKey, List<WatchedDirectory>> watchedDirectories = new ConcurrentHashMap<>();
+
+	private volatile boolean running = false;
+
+	private Thread thread;
+
+
+	ResourceChangeWatcher(WebResourceCache cache, String name) throws IOException {
+		this.cache = cache;
+		this.name = name;
+		this.watchService = FileSystems.getDefault().newWatchService();
+	}
+
+
+	/**
+	 * 注册资源集的根目录及其所有子目录。映射单个文件的资源集只监听该文件所在的目录
+	 *
+	 * @param resourceSet - 文件资源集
+	 * @throws IOException - 如果注册目录失败
+	 */
+	void register(AbstractFileResourceSet resourceSet) throws IOException {
+		File base = resourceSet.getFileBase();
+		String webAppMount = resourceSet.getWebAppMount();
+		if (resourceSet instanceof FileResourceSet) {
+			File parent = base.getAbsoluteFile().getParentFile();
+			if (parent != null) {
+				register(parent.toPath(), new WatchedDirectory(webAppMount, base.getName()));
+			}
+		} else if (base.isDirectory()) {
+			registerAll(base.toPath(), webAppMount);
+		}
+	}
+
+	private void registerAll(final Path start, final String webAppPath) throws IOException {
+		Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				String relative = start.relativize(dir).toString().replace(File.separatorChar, '/');
+				register(dir, new WatchedDirectory(relative.isEmpty() ? webAppPath : webAppPath + "/" + relative, null));
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void register(Path dir, WatchedDirectory watchedDirectory) throws IOException {
+		WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+		List<WatchedDirectory> directories = watchedDirectories.get(key);
+		if (directories == null) {
+			directories = new CopyOnWriteArrayList<>();
+			watchedDirectories.put(key, directories);
+		}
+		directories.add(watchedDirectory);
+	}
+
+	void start() {
+		running = true;
+		thread = new Thread(this, "ResourceChangeWatcher[" + name + "]");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void stop() {
+		running = false;
+		try {
+			// 唤醒阻塞在 take() 上的监听线程
+			watchService.close();
+		} catch (IOException e) {
+			logger.warn("关闭 WatchService 失败, by context: {}", name, e);
+		}
+		watchedDirectories.clear();
+		thread = null;
+	}
+
+	@Override
+	public void run() {
+		while (running) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch (InterruptedException e) {
+				continue;
+			} catch (ClosedWatchServiceException e) {
+				break;
+			}
+
+			List<WatchedDirectory> directories = watchedDirectories.get(key);
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					// 事件已丢失，无法确定哪些资源发生了变化
+					cache.clear();
+					continue;
+				}
+				if (directories == null) {
+					continue;
+				}
+				Path fileName = (Path) event.context();
+				String name = fileName.toString();
+				if (name.endsWith(".jar")) {
+					// JAR 中的资源由其他资源集提供，无法逐个定位
+					cache.clear();
+				}
+				for (WatchedDirectory directory : directories) {
+					if (directory.fileName != null) {
+						if (directory.fileName.equals(name)) {
+							invalidate(directory.webAppPath);
+						}
+						continue;
+					}
+					String webAppPath = directory.webAppPath + "/" + name;
+					invalidate(webAppPath);
+
+					if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+						// 已删除的路径无法判断是否为目录，按目录处理
+						cache.removeCacheEntries(webAppPath + "/");
+					} else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+						Path child = ((Path) key.watchable()).resolve(fileName);
+						if (Files.isDirectory(child)) {
+							// 目录可能是整体移入的，其下的资源此前可能作为不存在的资源被缓存
+							cache.removeCacheEntries(webAppPath + "/");
+							try {
+								registerAll(child, webAppPath);
+							} catch (IOException e) {
+								logger.warn("注册新建目录失败, 清空资源缓存. by path: {}", child, e);
+								cache.clear();
+							}
+						}
+					}
+				}
+			}
+
+			if (!key.reset()) {
+				// 目录已被删除或无法访问
+				List<WatchedDirectory> removed = watchedDirectories.remove(key);
+				if (removed != null) {
+					for (WatchedDirectory directory : removed) {
+						if (directory.fileName == null) {
+							cache.removeCacheEntries(directory.webAppPath + "/");
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 使变化的资源及其所在目录(目录列表也被缓存)的缓存项失效
+	 *
+	 * @param webAppPath - 变化资源的 web 应用程序路径
+	 */
+	private void invalidate(String webAppPath) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("资源已变化, 移除缓存. by path: {}", webAppPath);
+		}
+		cache.removeCacheEntry(webAppPath);
+		cache.removeCacheEntry(webAppPath + "/");
+
+		String parent = webAppPath.substring(0, webAppPath.lastIndexOf('/'));
+		cache.removeCacheEntry(parent);
+		cache.removeCacheEntry(parent + "/");
+	}
+
+
+	/**
+	 * 已注册的目录
+	 */
+	private static final class WatchedDirectory {
+		/** 目录对应的 web 应用程序路径，映射单个文件时为该文件的路径 */
+		private final String webAppPath;
+		/** 映射单个文件时只关注此文件名，否则为 null */
+		private final String fileName;
+
+		WatchedDirectory(String webAppPath, String fileName) {
+			this.webAppPath = webAppPath;
+			this.fileName = fileName;
+		}
+	}
+}
@@ -33,6 +33,7 @@ import org.zy.moonstone.core.loaer.WebappClassLoaderBase;
 import org.zy.moonstone.core.util.RequestUtil;
 import org.zy.moonstone.core.util.buf.UriUtil;
 import org.zy.moonstone.core.util.compat.JreCompat;
+import org.zy.moonstone.core.webResources.WebResourceCache.ContentStorage;
 
 /**
  * @dateTime 2022年4月12日;
@@ -76,6 +77,12 @@ public class StandardRoot extends LifecycleBase implements WebResourceRoot {
 	/** 此 Web 应用程序是否允许缓存 */
 	private boolean cachingAllowed = true;
 
+	/** 是否监听文件资源集目录的变化 */
+	private boolean watchResources = false;
+
+	/** 文件资源集目录的监听器，未启用监听时为 null */
+	private ResourceChangeWatcher resourceChangeWatcher;
+
 	private boolean trackLockedFiles = false;
 	
 	private final Set<TrackedWebResource> trackedResources = Collections.newSetFromMap(new ConcurrentHashMap<TrackedWebResource, Boolean>());
@@ -336,6 +343,16 @@ public class StandardRoot extends LifecycleBase implements WebResourceRoot {
 		return cachingAllowed;
 	}
 
+	@Override
+	public void setWatchResources(boolean watchResources) {
+		this.watchResources = watchResources;
+	}
+
+	@Override
+	public boolean isWatchResources() {
+		return watchResources;
+	}
+
 	@Override
 	public void setCacheTtl(long ttl) {
 		cache.setTtl(ttl);
@@ -370,6 +387,16 @@ public class StandardRoot extends LifecycleBase implements WebResourceRoot {
         return cache.getObjectMaxSize();
     }
 
+    @Override
+    public void setCacheContentStorage(String cacheContentStorage) {
+        cache.setContentStorage(ContentStorage.valueOf(cacheContentStorage.trim().toUpperCase(Locale.ENGLISH)));
+    }
+
+    @Override
+    public String getCacheContentStorage() {
+        return cache.getContentStorage().name();
+    }
+
 	@Override
 	public void setTrackLockedFiles(boolean trackLockedFiles) {
 		this.trackLockedFiles = trackLockedFiles;
@@ -490,11 +517,21 @@ public class StandardRoot extends LifecycleBase implements WebResourceRoot {
 
         cache.enforceObjectMaxSizeLimit();
 
+        if (watchResources && isCachingAllowed()) {
+            startResourceChangeWatcher();
+        }
+
         setState(LifecycleState.STARTING);
 	}
 
 	@Override
 	protected void stopInternal() throws LifecycleException {
+		if (resourceChangeWatcher != null) {
+			cache.setWatched(false);
+			resourceChangeWatcher.stop();
+			resourceChangeWatcher = null;
+		}
+
 		for (List<WebResourceSet> list : allResources) {
             for (WebResourceSet webResourceSet : list) {
                 webResourceSet.stop();
@@ -542,6 +579,39 @@ public class StandardRoot extends LifecycleBase implements WebResourceRoot {
 	// -------------------------------------------------------------------------------------
 	// 保护方法
 	// -------------------------------------------------------------------------------------
+	/**
+	 * 为所有文件资源集启动目录监听。任一目录注册失败则放弃监听，缓存继续按 TTL 检查资源
+	 */
+	protected void startResourceChangeWatcher() {
+		ResourceChangeWatcher watcher = null;
+		try {
+			watcher = new ResourceChangeWatcher(cache, context.getName());
+			boolean registered = false;
+			for (List<WebResourceSet> list : allResources) {
+				for (WebResourceSet webResourceSet : list) {
+					if (webResourceSet instanceof AbstractFileResourceSet) {
+						watcher.register((AbstractFileResourceSet) webResourceSet);
+						registered = true;
+					}
+				}
+			}
+			if (!registered) {
+				watcher.stop();
+				return;
+			}
+		} catch (IOException e) {
+			logger.warn("资源目录监听启动失败, 缓存将按 TTL 检查资源. by context: {}", context.getName(), e);
+			if (watcher != null) {
+				watcher.stop();
+			}
+			return;
+		}
+		
+		watcher.start();
+		resourceChangeWatcher = watcher;
+		cache.setWatched(true);
+	}
+
 	protected WebResourceSet createMainResourceSet() {
         String docBase = context.getDocBase();
         
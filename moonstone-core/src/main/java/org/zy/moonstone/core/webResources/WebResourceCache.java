@@ -1,8 +1,6 @@
 package org.zy.moonstone.core.webResources;
 
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.TreeSet;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -20,9 +18,6 @@ import org.zy.moonstone.core.interfaces.webResources.WebResourceRoot;
 public class WebResourceCache {
     private static final Logger logger = LoggerFactory.getLogger(WebResourceCache.class);
 
-    private static final long TARGET_FREE_PERCENT_GET = 5;
-    private static final long TARGET_FREE_PERCENT_BACKGROUND = 10;
-
     // objectMaxSize 必须 < maxSize/20
     private static final int OBJECT_MAX_SIZE_FACTOR = 20;
 
@@ -36,6 +31,12 @@ public class WebResourceCache {
 	/** 单个资源对象最大字节数 */
     private int objectMaxSize = (int) maxSize/OBJECT_MAX_SIZE_FACTOR;
     
+    /** 缓存资源内容的存储方式 */
+    private volatile ContentStorage contentStorage = ContentStorage.HEAP;
+    
+    /** 文件资源集是否由 {@link ResourceChangeWatcher } 监听，监听时来自文件资源集的缓存项在文件变化时才失效，不再按 TTL 重新检查 */
+    private volatile boolean watched = false;
+    
     /** 缓存资源的存活时间 */
     private long ttl = 5000;
 
@@ -43,6 +44,13 @@ public class WebResourceCache {
     private AtomicLong lookupCount = new AtomicLong(0);
     /** 缓存命中计数 */
     private AtomicLong hitCount = new AtomicLong(0);
+    /** 缓存未命中计数 */
+    private AtomicLong missCount = new AtomicLong(0);
+    /** 因容量不足而淘汰的缓存数 */
+    private AtomicLong evictionCount = new AtomicLong(0);
+
+    /** 缓存的淘汰策略，决定超出容量时淘汰哪些资源 */
+    private final WindowTinyLfuPolicy policy = new WindowTinyLfuPolicy(maxSize);
 
     /** WebResource 缓存 */
     private final ConcurrentMap<String,CachedResource> resourceCache = new ConcurrentHashMap<>();
@@ -77,7 +85,7 @@ public class WebResourceCache {
         CachedResource cacheEntry = resourceCache.get(path);
 
         if (cacheEntry != null && !cacheEntry.validateResource(useClassLoaderResources)) {
-            removeCacheEntry(path);
+            removeCacheEntry(path, cacheEntry);
             cacheEntry = null;
         }
 
@@ -96,25 +104,15 @@ public class WebResourceCache {
                 cacheEntry.validateResource(useClassLoaderResources);
 
                 // 即使资源内容大于objectMaxSizeBytes，缓存资源元数据仍有好处
-                long delta = cacheEntry.getSize();
-                size.addAndGet(delta);
-
-                if (size.get() > maxSize) {
-                    // 无序地处理资源以提高速度。交换缓存效率(较年轻的条目可能会先于较老的条目被删除)以换取速度，因为这是请求处理的关键路径
-                    long targetSize = maxSize * (100 - TARGET_FREE_PERCENT_GET) / 100;
-                    long newSize = evict(targetSize, resourceCache.values().iterator());
-                    if (newSize > maxSize) {
-                        // 无法为此资源创建足够的空间，将其从缓存中删除
-                        removeCacheEntry(path);
-                        logger.warn("资源缓存失败，精简缓存后仍无足够的空间容纳此缓存, 将其移除. by path: {}, context: {}", path, root.getContext().getName());
-                    }
-                }
+                insertEntry(path, cacheEntry);
             } else {
                 // 另一个线程已将该条目添加到缓存中，需确保已验证该条目
                 cacheEntry.validateResource(useClassLoaderResources);
             }
+            missCount.incrementAndGet();
         } else {
             hitCount.incrementAndGet();
+            policy.onAccess(path);
         }
 
         return cacheEntry;
@@ -127,7 +125,7 @@ public class WebResourceCache {
         CachedResource cacheEntry = resourceCache.get(path);
 
         if (cacheEntry != null && !cacheEntry.validateResources(useClassLoaderResources)) {
-            removeCacheEntry(path);
+            removeCacheEntry(path, cacheEntry);
             cacheEntry = null;
         }
 
@@ -146,46 +144,29 @@ public class WebResourceCache {
                 cacheEntry.validateResources(useClassLoaderResources);
 
                 // 内容不会被缓存，但我们仍然需要元数据大小
-                long delta = cacheEntry.getSize();
-                size.addAndGet(delta);
-
-                if (size.get() > maxSize) {
-                    // 无序地处理资源以提高速度。交换缓存效率(较年轻的条目可能会先于较老的条目被删除)以换取速度，因为这是请求处理的关键路径
-                    long targetSize = maxSize * (100 - TARGET_FREE_PERCENT_GET) / 100;
-                    long newSize = evict(targetSize, resourceCache.values().iterator());
-                    if (newSize > maxSize) {
-                        // 无法为此资源创建足够的空间，将其从缓存中删除
-                        removeCacheEntry(path);
-                        logger.warn("资源缓存失败，精简缓存后仍无足够的空间容纳此缓存, 将其移除. by path: {}", path);
-                    }
-                }
+                insertEntry(path, cacheEntry);
             } else {
             	// 另一个线程已将该条目添加到缓存中，需确保已验证该条目
                 cacheEntry.validateResources(useClassLoaderResources);
             }
+            missCount.incrementAndGet();
         } else {
             hitCount.incrementAndGet();
+            policy.onAccess(path);
         }
 
         return cacheEntry.getWebResources();
     }
 
     /**
-     * "后台周期性移除失效资源
+     * 后台周期性检查缓存容量。容量在请求处理时即已强制执行，此处只处理缓存项在加入缓存之后才增长的部分(如生成的压缩内容)
      */
     protected void backgroundProcess() {
-        // 创建所有缓存资源的有序集合，其中最近使用最少的资源优先。这是一个后台进程，因此我们可以先花时间对元素进行排序
-        TreeSet<CachedResource> orderedResources = new TreeSet<>(new EvictionOrder());
-        orderedResources.addAll(resourceCache.values());
+        long newSize = evict(maxSize);
 
-        Iterator<CachedResource> iter = orderedResources.iterator();
-
-        long targetSize = maxSize * (100 - TARGET_FREE_PERCENT_BACKGROUND) / 100;
-        long newSize = evict(targetSize, iter);
-
-        if (newSize > targetSize) {
-            logger.info("后台周期性移除失效资源未达预期, 预期移除占比: {}%, 当前移除后缓存: {}M, by context: {}", Long.valueOf(TARGET_FREE_PERCENT_BACKGROUND), 
-            		Long.valueOf(newSize / 1024), root.getContext().getName());
+        if (newSize > maxSize) {
+            logger.info("后台周期性移除资源未达预期, 当前缓存: {}K, 最大缓存: {}K, by context: {}", Long.valueOf(newSize / 1024), 
+            		Long.valueOf(maxSize / 1024), root.getContext().getName());
         }
     }
     
@@ -208,29 +189,40 @@ public class WebResourceCache {
     }
 
     /**
-     * 移除失效资源以减小总缓存资源字节数小于指定的缓存资源字节数
+     * 记录新加入缓存的资源，超出最大缓存字节数时由淘汰策略选择移除的资源。新资源自身也可能因访问频率过低而未被准入
      * 
-     * @param targetSize - 指定的缓存资源字节数，
-     * @param iter - 资源缓存的迭代器
-     * @return 移除失效资源后的当前总缓存资源字节数
+     * @param path - 资源路径
+     * @param cacheEntry - 新加入缓存的资源
      */
-    private long evict(long targetSize, Iterator<CachedResource> iter) {
-        long now = System.currentTimeMillis();
+    private void insertEntry(String path, CachedResource cacheEntry) {
+        long delta = cacheEntry.charge();
+        size.addAndGet(delta);
+        policy.onInsert(path, cacheEntry, delta);
 
-        long newSize = size.get();
+        if (size.get() > maxSize) {
+            evict(maxSize);
+        }
+    }
 
-        // 若缓存数超过十分之九则检查并移除失效资源
-        while (newSize > targetSize && iter.hasNext()) {
-            CachedResource resource = iter.next();
+    /**
+     * 按淘汰策略移除资源，直至总缓存资源字节数不大于指定的缓存资源字节数
+     * 
+     * @param targetSize - 指定的缓存资源字节数
+     * @return 移除资源后的当前总缓存资源字节数
+     */
+    private long evict(long targetSize) {
+        long newSize = size.get();
 
-            // 不要使TTL中已检查的任何内容过期
-            if (resource.getNextCheck() > now) {
-                continue;
+        while (newSize > targetSize) {
+            CachedResource victim = policy.evict();
+            if (victim == null) {
+                break;
+            }
+            // 只移除策略选中的实例，路径可能已映射到新的缓存项
+            if (resourceCache.remove(victim.getWebappPath(), victim)) {
+                size.addAndGet(-victim.discharge());
+                evictionCount.incrementAndGet();
             }
-
-            // 从缓存中删除该条目
-            removeCacheEntry(resource.getWebappPath());
-
             newSize = size.get();
         }
 
@@ -238,22 +230,55 @@ public class WebResourceCache {
     }
 
     /**
-     * 移除指定路径缓存
+     * 仍在缓存中的资源新增了缓存内容(如压缩后的内容)时更新缓存总长度，超出上限时按淘汰策略移除资源
+     * 
+     * @param delta - 新增的字节数
+     */
+    void increaseSize(long delta) {
+        if (size.addAndGet(delta) > maxSize) {
+            evict(maxSize);
+        }
+    }
+
+    /**
+     * 移除指定路径当前的缓存
      * @param path - 缓存关联路径
      */
     void removeCacheEntry(String path) {
-        // 对于同一路径的并发调用，条目只删除一次，缓存大小只更新一次(如果需要)
-        CachedResource cachedResource = resourceCache.remove(path);
-        
+        CachedResource cachedResource = resourceCache.get(path);
         if (cachedResource != null) {
-            long delta = cachedResource.getSize();
-            size.addAndGet(-delta);
+            removeCacheEntry(path, cachedResource);
+        }
+    }
+
+    /**
+     * 移除指定路径的指定缓存项。路径已映射到其他缓存项时不做任何处理，避免过期的移除请求删除新加入的缓存项
+     * @param path - 缓存关联路径
+     * @param cachedResource - 要移除的缓存项
+     */
+    void removeCacheEntry(String path, CachedResource cachedResource) {
+        // 对于同一缓存项的并发调用，条目只删除一次，缓存大小只更新一次
+        if (resourceCache.remove(path, cachedResource)) {
+            size.addAndGet(-cachedResource.discharge());
+            policy.onRemove(path, cachedResource);
         	if (logger.isDebugEnabled()) {
         		logger.debug("Remove Invalid CachedResource. cachedResource: [{}]", path);
         	}
         }
     }
 
+    /**
+     * 移除路径以指定前缀开头的所有缓存，用于目录被删除或替换时使其下所有资源失效
+     * @param prefix - 路径前缀
+     */
+    void removeCacheEntries(String prefix) {
+        for (Map.Entry<String, CachedResource> entry : resourceCache.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                removeCacheEntry(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     
 	// -------------------------------------------------------------------------------------
 	// getter、setter 方法
@@ -272,6 +297,23 @@ public class WebResourceCache {
 
     public void setMaxSize(long maxSize) {
         this.maxSize = maxSize * 1024;
+        policy.setMaximum(this.maxSize);
+    }
+
+    public ContentStorage getContentStorage() {
+        return contentStorage;
+    }
+
+    public void setContentStorage(ContentStorage contentStorage) {
+        this.contentStorage = contentStorage;
+    }
+
+    public boolean isWatched() {
+        return watched;
+    }
+
+    void setWatched(boolean watched) {
+        this.watched = watched;
     }
 
     public long getLookupCount() {
@@ -282,6 +324,14 @@ public class WebResourceCache {
         return hitCount.get();
     }
 
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
     public void setObjectMaxSize(int objectMaxSize) {
         if (objectMaxSize * 1024L > Integer.MAX_VALUE) {
             logger.warn("objectMaxSize 值过大, by objectMaxSize: {}", Integer.valueOf(objectMaxSize));
@@ -314,7 +364,12 @@ public class WebResourceCache {
     }
 
     public void clear() {
+    	// 使仍在生成内容的缓存项不再计入缓存总长度
+    	for (CachedResource cachedResource : resourceCache.values()) {
+    		cachedResource.discharge();
+    	}
     	resourceCache.clear();
+    	policy.clear();
     	size.set(0);
     }
     
@@ -322,20 +377,15 @@ public class WebResourceCache {
 	// -------------------------------------------------------------------------------------
 	// 内部类
 	// -------------------------------------------------------------------------------------
-    private static class EvictionOrder implements Comparator<CachedResource> {
-        @Override
-        public int compare(CachedResource cr1, CachedResource cr2) {
-            long nc1 = cr1.getNextCheck();
-            long nc2 = cr2.getNextCheck();
-
-            // 最老的资源应该是第一个（所以迭代器从最老的到最年轻的）
-            if (nc1 == nc2) {
-                return 0;
-            } else if (nc1 > nc2) {
-                return -1;
-            } else {
-                return 1;
-            }
-        }
+    /**
+     * 缓存资源内容的存储方式
+     */
+    public enum ContentStorage {
+        /** 保存在堆上的字节数组中 */
+        HEAP,
+        /** 保存在直接内存中，不占用堆空间 */
+        DIRECT,
+        /** 文件系统中的文件以只读方式映射到内存，其他资源保存在直接内存中 */
+        MAPPED
     }
 }
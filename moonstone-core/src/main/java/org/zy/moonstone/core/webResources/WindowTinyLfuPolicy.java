@@ -0,0 +1,348 @@
+package org.zy.moonstone.core.webResources;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @dateTime 2023年1月5日;
+ * @author zy(azurite-Y);
+ * @description 资源缓存的 W-TinyLFU 淘汰策略，按缓存项的字节数计算容量。
+ * <p>
+ * 新缓存项先进入占总容量 1% 的窗口 LRU，离开窗口后进入主区的试用段(probation)，在试用段中再次被访问则晋升到保护段(protected，占主区的 80%)。
+ * 需要淘汰时，以试用段中最新进入的候选项与最久未访问的受害项的访问频率相比较，频率较低者被淘汰，
+ * 所以只被访问一次的冷资源(如爬虫的一次性扫描)无法挤掉频繁访问的热资源。
+ * <p>
+ * 访问频率由 4 位计数的 Count-Min Sketch 估算，计数总数达到阈值时所有计数减半，使历史热点逐渐老化。
+ * 所有状态由一个锁保护，命中时若锁被占用则放弃记录此次访问，以免热点路径上的线程相互等待。
+ * <p>
+ * 节点与缓存项实例绑定，同一路径的旧缓存项被替换之后，针对旧实例的移除请求不会影响新实例的节点
+ */
+final class WindowTinyLfuPolicy {
+	/** 窗口段占总容量的百分比 */
+	private static final int WINDOW_PERCENT = 1;
+	/** 保护段占主区容量的百分比 */
+	private static final int PROTECTED_PERCENT = 80;
+	/** 估算频率时假定的平均缓存项字节数，用于确定 Sketch 的宽度 */
+	private static final int AVERAGE_ENTRY_SIZE = 4 * 1024;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Map<String, Node> nodes = new HashMap<>();
+	private final Segment window = new Segment();
+	private final Segment probation = new Segment();
+	private final Segment protectedSegment = new Segment();
+
+	private long windowMaximum;
+	private long protectedMaximum;
+
+	private FrequencySketch sketch;
+
+
+	WindowTinyLfuPolicy(long maximum) {
+		setMaximum(maximum);
+	}
+
+	/**
+	 * 设置缓存容量并按新容量重建频率估算
+	 *
+	 * @param maximum - 缓存的最大字节数
+	 */
+	void setMaximum(long maximum) {
+		lock.lock();
+		try {
+			this.windowMaximum = Math.max(1, maximum * WINDOW_PERCENT / 100);
+			this.protectedMaximum = (maximum - windowMaximum) * PROTECTED_PERCENT / 100;
+			this.sketch = new FrequencySketch(maximum / AVERAGE_ENTRY_SIZE);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 记录新加入缓存的资源
+	 *
+	 * @param key - 资源路径
+	 * @param entry - 加入缓存的缓存项
+	 * @param weight - 资源占用的字节数
+	 */
+	void onInsert(String key, CachedResource entry, long weight) {
+		lock.lock();
+		try {
+			sketch.increment(key);
+			// 在记录之前已被移除，其移除请求不会再到达
+			if (entry.isRemoved()) {
+				return;
+			}
+			Node node = nodes.get(key);
+			if (node != null) {
+				unlink(node);
+			}
+			node = new Node(key, entry, weight);
+			nodes.put(key, node);
+			node.segment = window;
+			window.addLast(node);
+
+			// 超出窗口容量的缓存项进入试用段，成为淘汰时的候选项
+			while (window.weight > windowMaximum && window.head != node) {
+				Node candidate = window.head;
+				window.remove(candidate);
+				candidate.segment = probation;
+				probation.addLast(candidate);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 记录缓存命中。锁被占用时放弃记录，访问记录的丢失只会稍微降低淘汰的准确性
+	 *
+	 * @param key - 资源路径
+	 */
+	void onAccess(String key) {
+		if (!lock.tryLock()) {
+			return;
+		}
+		try {
+			sketch.increment(key);
+			Node node = nodes.get(key);
+			if (node == null) {
+				return;
+			}
+			if (node.segment == probation) {
+				// 晋升到保护段，超出保护段容量的缓存项降级回试用段
+				probation.remove(node);
+				node.segment = protectedSegment;
+				protectedSegment.addLast(node);
+				while (protectedSegment.weight > protectedMaximum && protectedSegment.head != node) {
+					Node demoted = protectedSegment.head;
+					protectedSegment.remove(demoted);
+					demoted.segment = probation;
+					probation.addLast(demoted);
+				}
+			} else {
+				node.segment.moveToLast(node);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 移除资源，在缓存项因失效等原因被删除时调用。路径已关联到其他缓存项时忽略
+	 *
+	 * @param key - 资源路径
+	 * @param entry - 被删除的缓存项
+	 */
+	void onRemove(String key, CachedResource entry) {
+		lock.lock();
+		try {
+			Node node = nodes.get(key);
+			if (node != null && node.entry == entry) {
+				nodes.remove(key);
+				unlink(node);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 选出并移除一个应被淘汰的资源
+	 *
+	 * @return 被淘汰的缓存项，无可淘汰的资源则返回 null
+	 */
+	CachedResource evict() {
+		lock.lock();
+		try {
+			Node evicted;
+			if (probation.head != null) {
+				Node victim = probation.head;
+				Node candidate = probation.tail;
+				if (victim == candidate) {
+					evicted = victim;
+				} else {
+					// 候选项的频率高于受害项时才准入，否则淘汰候选项
+					evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+				}
+			} else if (protectedSegment.head != null) {
+				evicted = protectedSegment.head;
+			} else {
+				evicted = window.head;
+			}
+			if (evicted == null) {
+				return null;
+			}
+			nodes.remove(evicted.key);
+			unlink(evicted);
+			return evicted.entry;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void clear() {
+		lock.lock();
+		try {
+			nodes.clear();
+			window.clear();
+			probation.clear();
+			protectedSegment.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void unlink(Node node) {
+		if (node.segment != null) {
+			node.segment.remove(node);
+			node.segment = null;
+		}
+	}
+
+
+	/**
+	 * 双向链表节点
+	 */
+	private static final class Node {
+		final String key;
+		final CachedResource entry;
+		final long weight;
+		Segment segment;
+		Node prev;
+		Node next;
+
+		Node(String key, CachedResource entry, long weight) {
+			this.key = key;
+			this.entry = entry;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * 按访问顺序排列的 LRU 段，头部为最久未访问的缓存项
+	 */
+	private static final class Segment {
+		Node head;
+		Node tail;
+		long weight;
+
+		void addLast(Node node) {
+			node.prev = tail;
+			node.next = null;
+			if (tail == null) {
+				head = node;
+			} else {
+				tail.next = node;
+			}
+			tail = node;
+			weight += node.weight;
+		}
+
+		void remove(Node node) {
+			if (node.prev == null) {
+				head = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+			weight -= node.weight;
+		}
+
+		void moveToLast(Node node) {
+			if (tail != node) {
+				remove(node);
+				addLast(node);
+			}
+		}
+
+		void clear() {
+			head = null;
+			tail = null;
+			weight = 0;
+		}
+	}
+
+	/**
+	 * 4 位计数的 Count-Min Sketch，每个 long 保存 16 个计数
+	 */
+	private static final class FrequencySketch {
+		private static final long RESET_MASK = 0x7777777777777777L;
+		private static final int[] SEEDS = { 0x97cb3127, 0xb8c1ba3f, 0x5a2c6bf1, 0x1b873593 };
+
+		private final long[] table;
+		private final int tableMask;
+		private final int sampleSize;
+		private int size;
+
+		FrequencySketch(long expectedEntries) {
+			int capacity = (int) Math.min(Math.max(expectedEntries, 64), 1 << 24);
+			int length = Integer.highestOneBit(capacity - 1) << 1;
+			this.table = new long[length];
+			this.tableMask = length - 1;
+			this.sampleSize = length * 10;
+		}
+
+		int frequency(String key) {
+			int hash = spread(key.hashCode());
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				int offset = counterOffset(hash, i);
+				frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+			}
+			return frequency;
+		}
+
+		void increment(String key) {
+			int hash = spread(key.hashCode());
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				int offset = counterOffset(hash, i);
+				long mask = 0xfL << offset;
+				if ((table[index] & mask) != mask) {
+					table[index] += 1L << offset;
+					added = true;
+				}
+			}
+			if (added && ++size >= sampleSize) {
+				reset();
+			}
+		}
+
+		/**
+		 * 所有计数减半
+		 */
+		private void reset() {
+			for (int i = 0; i < table.length; i++) {
+				table[i] = (table[i] >>> 1) & RESET_MASK;
+			}
+			size = size / 2;
+		}
+
+		private int indexOf(int hash, int i) {
+			int h = (hash + SEEDS[i]) * SEEDS[i];
+			h += h >>> 16;
+			return h & tableMask;
+		}
+
+		private static int counterOffset(int hash, int i) {
+			// 每一行使用 long 中不同的 4 个计数位
+			return (((hash >>> (i << 3)) & 3) + (i << 2)) << 2;
+		}
+
+		private static int spread(int h) {
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			h = ((h >>> 16) ^ h) * 0x45d9f3b;
+			return (h >>> 16) ^ h;
+		}
+	}
+}
@@ -0,0 +1,310 @@
+package org.zy.moonstone.core.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+import org.zy.moonstone.core.exceptions.RequestBodyTooLargeException;
+import org.zy.moonstone.core.util.net.interfaces.InputBuffer;
+
+/**
+ * @dateTime 2023年1月11日;
+ * @author zy(azurite-Y);
+ * @description {@link ChunkedInputFilter } 测试，请求体按任意分段交给过滤器，块头、回车换行符与尾部字段可能被拆分到多次读取中
+ */
+public class ChunkedInputFilterTest {
+	private static final String BODY =
+			"5;name=value\r\nhello\r\n" +
+			"7\r\n, world\r\n" +
+			"1A\r\nabcdefghijklmnopqrstuvwxyz\r\n" +
+			"0\r\n" +
+			"X-Checksum: abc123\r\n" +
+			"X-Empty:\r\n" +
+			"\r\n";
+
+	private static final String DECODED = "hello, worldabcdefghijklmnopqrstuvwxyz";
+
+	/** 紧随请求体之后的下一个流水线请求 */
+	private static final String NEXT_REQUEST = "GET / HTTP/1.1\r\n";
+
+
+	@Test
+	public void testEveryFragmentSize() throws IOException {
+		byte[] input = (BODY + NEXT_REQUEST).getBytes(StandardCharsets.ISO_8859_1);
+		for (int size = 1; size <= input.length; size++) {
+			assertDecoded(input, new FixedFragments(size), false);
+			assertDecoded(input, new FixedFragments(size), true);
+		}
+	}
+
+	@Test
+	public void testEverySplitPoint() throws IOException {
+		byte[] input = (BODY + NEXT_REQUEST).getBytes(StandardCharsets.ISO_8859_1);
+		for (int split = 1; split < input.length; split++) {
+			assertDecoded(input, new SplitFragments(split), false);
+			assertDecoded(input, new SplitFragments(split), true);
+		}
+	}
+
+	@Test
+	public void testRandomFragments() throws IOException {
+		byte[] input = (BODY + NEXT_REQUEST).getBytes(StandardCharsets.ISO_8859_1);
+		Random random = new Random(20230111);
+		for (int i = 0; i < 200; i++) {
+			assertDecoded(input, new RandomFragments(random.nextLong()), i % 2 == 0);
+		}
+	}
+
+	@Test
+	public void testBareLineFeeds() throws IOException {
+		byte[] input = "3\nabc\n0\n\n".getBytes(StandardCharsets.ISO_8859_1);
+		ChunkedInputFilter filter = newFilter(input, new FixedFragments(1), new Request());
+		assertEquals("abc", new String(readAll(filter, false), StandardCharsets.ISO_8859_1));
+		assertTrue(filter.isFinished());
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidChunkSize() throws IOException {
+		byte[] input = "3x\r\nabc\r\n0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+		readAll(newFilter(input, new FixedFragments(2), new Request()), false);
+	}
+
+	@Test
+	public void testBareCarriageReturnInChunkHeader() throws IOException {
+		String[] inputs = {
+				"3\rabc\r\n0\r\n\r\n",
+				"3\r;ext\r\nabc\r\n0\r\n\r\n",
+				"3;ext\r=1\r\nabc\r\n0\r\n\r\n",
+				"3\r\nabc\r\n0\r \r\n\r\n"
+		};
+		for (String input : inputs) {
+			try {
+				readAll(newFilter(input.getBytes(StandardCharsets.ISO_8859_1), new FixedFragments(1), new Request()), false);
+				fail("块头中单独的回车符应被拒绝: " + input);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testMaxSwallowSize() throws IOException {
+		byte[] input = (BODY + NEXT_REQUEST).getBytes(StandardCharsets.ISO_8859_1);
+
+		ChunkedInputFilter filter = newFilter(input, new FixedFragments(4), new Request(), DECODED.length());
+		assertTrue(filter.end() <= NEXT_REQUEST.length());
+		assertTrue(filter.isFinished());
+
+		filter = newFilter(input, new FixedFragments(4), new Request(), DECODED.length() - 1);
+		try {
+			filter.end();
+			fail("未读取的请求体超出限制时应抛出异常");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissingCRLFAfterData() throws IOException {
+		byte[] input = "3\r\nabcd\r\n0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+		readAll(newFilter(input, new FixedFragments(3), new Request()), false);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedBody() throws IOException {
+		byte[] input = "A\r\nabc".getBytes(StandardCharsets.ISO_8859_1);
+		readAll(newFilter(input, new FixedFragments(4), new Request()), false);
+	}
+
+	@Test
+	public void testMaxPostSize() throws IOException {
+		byte[] input = BODY.getBytes(StandardCharsets.ISO_8859_1);
+
+		Request request = new Request();
+		request.setInputBuffer(newFilter(input, new FixedFragments(3), request));
+		assertEquals(DECODED, new String(request.getRequestBodyByte(DECODED.length()), StandardCharsets.ISO_8859_1));
+
+		request = new Request();
+		request.setInputBuffer(newFilter(input, new FixedFragments(3), request));
+		try {
+			request.getRequestBodyByte(DECODED.length() - 1);
+			fail("请求体超出限制时应抛出异常");
+		} catch (RequestBodyTooLargeException e) {
+			assertEquals(DECODED.length() - 1, e.getPermittedSize());
+			assertTrue(e.getActualSize() > e.getPermittedSize());
+		}
+	}
+
+
+	private static void assertDecoded(byte[] input, Fragments fragments, boolean byteBuffer) throws IOException {
+		Request request = new Request();
+		ChunkedInputFilter filter = newFilter(input, fragments, request);
+
+		byte[] decoded = readAll(filter, byteBuffer);
+		String message = fragments + (byteBuffer ? " ByteBuffer" : " byte[]");
+		assertArrayEquals(message, DECODED.getBytes(StandardCharsets.ISO_8859_1), decoded);
+		assertTrue(message, filter.isFinished());
+		assertEquals(message, "abc123", request.getTrailerFields().get("x-checksum"));
+		assertEquals(message, "", request.getTrailerFields().get("x-empty"));
+
+		// end() 返回已读取但属于下一个请求的字节数
+		long leftover = filter.end();
+		assertTrue(message, leftover <= NEXT_REQUEST.length());
+	}
+
+	private static ChunkedInputFilter newFilter(byte[] input, Fragments fragments, Request request) {
+		return newFilter(input, fragments, request, -1);
+	}
+
+	private static ChunkedInputFilter newFilter(byte[] input, Fragments fragments, Request request, int maxSwallowSize) {
+		ChunkedInputFilter filter = new ChunkedInputFilter(maxSwallowSize);
+		filter.setBuffer(new FragmentedInputBuffer(input, fragments));
+		filter.setRequest(request);
+		return filter;
+	}
+
+	private static byte[] readAll(InputBuffer buffer, boolean byteBuffer) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		if (byteBuffer) {
+			ByteBuffer to = ByteBuffer.allocate(5);
+			int n;
+			while ((n = buffer.doRead(to)) >= 0) {
+				to.flip();
+				out.write(to.array(), 0, n);
+				to.clear();
+			}
+		} else {
+			byte[] b = new byte[3];
+			int n;
+			while ((n = buffer.doRead(b, 0, b.length)) >= 0) {
+				out.write(b, 0, n);
+			}
+		}
+		return out.toByteArray();
+	}
+
+
+	/**
+	 * 决定每次读取返回的最大字节数
+	 */
+	private interface Fragments {
+		int next(int read);
+	}
+
+	private static final class FixedFragments implements Fragments {
+		private final int size;
+
+		FixedFragments(int size) {
+			this.size = size;
+		}
+
+		@Override
+		public int next(int read) {
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			return "fragment size: " + size;
+		}
+	}
+
+	private static final class SplitFragments implements Fragments {
+		private final int split;
+
+		SplitFragments(int split) {
+			this.split = split;
+		}
+
+		@Override
+		public int next(int read) {
+			return read < split ? split - read : Integer.MAX_VALUE;
+		}
+
+		@Override
+		public String toString() {
+			return "split at: " + split;
+		}
+	}
+
+	private static final class RandomFragments implements Fragments {
+		private final long seed;
+		private final Random random;
+
+		RandomFragments(long seed) {
+			this.seed = seed;
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public int next(int read) {
+			return 1 + random.nextInt(16);
+		}
+
+		@Override
+		public String toString() {
+			return "random seed: " + seed;
+		}
+	}
+
+	/**
+	 * 按照给定分段返回数据的输入缓冲区，模拟数据分多次到达套接字
+	 */
+	private static final class FragmentedInputBuffer implements InputBuffer {
+		private final byte[] input;
+		private final Fragments fragments;
+		private int position = 0;
+
+		FragmentedInputBuffer(byte[] input, Fragments fragments) {
+			this.input = input;
+			this.fragments = fragments;
+		}
+
+		@Override
+		public int doRead(byte[] b, int off, int len) {
+			int n = nextLength(len);
+			if (n < 0) {
+				return -1;
+			}
+			System.arraycopy(input, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public int doRead(ByteBuffer to) {
+			int n = nextLength(to.remaining());
+			if (n < 0) {
+				return -1;
+			}
+			to.put(input, position, n);
+			position += n;
+			return n;
+		}
+
+		private int nextLength(int len) {
+			if (position >= input.length) {
+				return -1;
+			}
+			return Math.min(Math.min(len, fragments.next(position)), input.length - position);
+		}
+
+		@Override
+		public int available() {
+			return input.length - position;
+		}
+
+		@Override
+		public boolean isFinished() {
+			return position >= input.length;
+		}
+	}
+}
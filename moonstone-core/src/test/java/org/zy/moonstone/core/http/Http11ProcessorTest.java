@@ -0,0 +1,215 @@
+package org.zy.moonstone.core.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.zy.moonstone.core.interfaces.connector.Adapter;
+import org.zy.moonstone.core.util.net.SocketEvent;
+
+/**
+ * @dateTime 2023年1月12日;
+ * @author zy(azurite-Y);
+ * @description {@link Http11Processor } 持久连接测试，同一连接上先后发送与管道化发送的请求都应得到响应，空闲的连接按 keep-alive 超时关闭，
+ * 无法跳过剩余请求体的连接被关闭
+ */
+public class Http11ProcessorTest {
+	private static final int KEEP_ALIVE_TIMEOUT = 1000;
+
+	private static final int CONNECTION_TIMEOUT = 30000;
+
+	private Http11NioProtocol protocol;
+
+	private int port;
+
+
+	@Before
+	public void start() throws Exception {
+		try (ServerSocket serverSocket = new ServerSocket(0)) {
+			port = serverSocket.getLocalPort();
+		}
+		protocol = new Http11NioProtocol();
+		protocol.setPort(port);
+		protocol.setConnectionTimeout(CONNECTION_TIMEOUT);
+		protocol.setKeepAliveTimeout(KEEP_ALIVE_TIMEOUT);
+		protocol.setAdapter(new EchoUriAdapter());
+		protocol.init();
+		protocol.start();
+	}
+
+	@After
+	public void stop() throws Exception {
+		protocol.stop();
+		protocol.destroy();
+	}
+
+
+	@Test
+	public void testSequentialRequests() throws Exception {
+		try (Socket socket = connect()) {
+			OutputStream out = socket.getOutputStream();
+			InputStream in = socket.getInputStream();
+
+			out.write(request("/first"));
+			out.flush();
+			assertEquals("/first", readResponseBody(in));
+
+			// 等待处理器读完缓冲区并返回轮询器之后再发送第二个请求
+			Thread.sleep(200);
+			out.write(request("/second"));
+			out.flush();
+			assertEquals("/second", readResponseBody(in));
+		}
+	}
+
+	@Test
+	public void testPipelinedRequests() throws Exception {
+		try (Socket socket = connect()) {
+			OutputStream out = socket.getOutputStream();
+			InputStream in = socket.getInputStream();
+
+			ByteArrayOutputStream requests = new ByteArrayOutputStream();
+			requests.write(request("/a"));
+			requests.write(request("/bb"));
+			requests.write(request("/ccc"));
+			out.write(requests.toByteArray());
+			out.flush();
+
+			assertEquals("/a", readResponseBody(in));
+			assertEquals("/bb", readResponseBody(in));
+			assertEquals("/ccc", readResponseBody(in));
+		}
+	}
+
+	@Test
+	public void testIdleConnectionClosedByKeepAliveTimeout() throws Exception {
+		try (Socket socket = connect()) {
+			OutputStream out = socket.getOutputStream();
+			InputStream in = socket.getInputStream();
+
+			out.write(request("/idle"));
+			out.flush();
+			assertEquals("/idle", readResponseBody(in));
+
+			long start = System.currentTimeMillis();
+			int b;
+			try {
+				b = in.read();
+			} catch (SocketTimeoutException e) {
+				throw new AssertionError("空闲连接未按 keep-alive 超时关闭");
+			}
+			long elapsed = System.currentTimeMillis() - start;
+			assertEquals(-1, b);
+			assertTrue("连接在 " + elapsed + "ms 后关闭", elapsed < CONNECTION_TIMEOUT / 2);
+		}
+	}
+
+	@Test
+	public void testUnreadBodyLargerThanMaxSwallowSizeClosesConnection() throws Exception {
+		try (Socket socket = connect()) {
+			OutputStream out = socket.getOutputStream();
+			InputStream in = socket.getInputStream();
+
+			// 只发送请求体的开头，应用未读取的部分超出 maxSwallowSize 时不应等待其余数据
+			int contentLength = protocol.getMaxSwallowSize() + 1;
+			out.write(("POST /upload HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + contentLength + "\r\n\r\nabc")
+					.getBytes(StandardCharsets.ISO_8859_1));
+			out.flush();
+
+			byte[] b = new byte[1024];
+			try {
+				while (in.read(b) != -1) {
+					// 丢弃响应
+				}
+			} catch (SocketTimeoutException e) {
+				throw new AssertionError("未读取的请求体超出 maxSwallowSize 时连接未关闭");
+			}
+		}
+	}
+
+
+	private Socket connect() throws IOException {
+		Socket socket = new Socket("localhost", port);
+		socket.setSoTimeout(CONNECTION_TIMEOUT / 3);
+		return socket;
+	}
+
+	private static byte[] request(String uri) {
+		return ("GET " + uri + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * 读取一个以 Content-Length 界定的响应，返回其响应体
+	 */
+	private static String readResponseBody(InputStream in) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		int matched = 0;
+		while (matched < 4) {
+			int b = in.read();
+			if (b == -1) {
+				throw new IOException("读取响应头时连接已关闭");
+			}
+			header.write(b);
+			matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+		}
+
+		String headers = new String(header.toByteArray(), StandardCharsets.ISO_8859_1);
+		assertTrue(headers, headers.startsWith("HTTP/1.1 200"));
+		int contentLength = -1;
+		for (String line : headers.split("\r\n")) {
+			int colon = line.indexOf(':');
+			if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+				contentLength = Integer.parseInt(line.substring(colon + 1).trim());
+			}
+		}
+		assertTrue(headers, contentLength >= 0);
+
+		byte[] body = new byte[contentLength];
+		int off = 0;
+		while (off < contentLength) {
+			int n = in.read(body, off, contentLength - off);
+			if (n == -1) {
+				throw new IOException("读取响应体时连接已关闭");
+			}
+			off += n;
+		}
+		return new String(body, StandardCharsets.ISO_8859_1);
+	}
+
+
+	/**
+	 * 以请求 URI 作为响应体
+	 */
+	private static class EchoUriAdapter implements Adapter {
+		@Override
+		public void service(Request req, Response res) throws Exception {
+			byte[] body = req.requestURI().toString().getBytes(StandardCharsets.ISO_8859_1);
+			res.setStatus(200);
+			res.setContentLength(body.length);
+			res.doWrite(ByteBuffer.wrap(body));
+		}
+
+		@Override
+		public boolean asyncDispatch(Request req, Response res, SocketEvent status) throws Exception {
+			return false;
+		}
+
+		@Override
+		public void log(Request req, Response res, long time) {}
+
+		@Override
+		public void checkRecycled(Request req, Response res) {}
+	}
+}
@@ -0,0 +1,314 @@
+package org.zy.moonstone.core.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.servlet.http.MappingMatch;
+
+import org.junit.Test;
+import org.zy.moonstone.core.interfaces.container.Context;
+import org.zy.moonstone.core.interfaces.container.Wrapper;
+import org.zy.moonstone.core.mapper.Mapper.MappedWrapper;
+import org.zy.moonstone.core.util.buf.CharChunk;
+import org.zy.moonstone.core.util.buf.MessageBytes;
+
+/**
+ * @dateTime 2023年1月12日;
+ * @author zy(azurite-Y);
+ * @description {@link WrapperTree } 与线性数组匹配的差异测试。随机生成的映射与请求路径分别交给映射树与逐个比较的数组匹配，
+ * 两者的全值匹配、通配符匹配、默认 Servlet 与 Context 根映射结果应完全一致
+ */
+public class WrapperTreeTest {
+	private static final String[] SEGMENTS = { "a", "b", "ab", "a.b", "c" };
+
+	/** 请求路径中额外出现的、不属于任何映射的路径段 */
+	private static final String[] EXTRA_SEGMENTS = { "x", "", "abc" };
+
+	private static final String CONTEXT_PATH = "/ctx";
+
+	/** 与 Mapper 默认的映射树阈值一致 */
+	private static final int WRAPPER_TREE_THRESHOLD = 64;
+
+
+	@Test
+	public void testTreeMatchesLinearArrays() {
+		Random random = new Random(20230112);
+		for (int round = 0; round < 50; round++) {
+			List<MappedWrapper> exact = new ArrayList<>();
+			List<MappedWrapper> wildcard = new ArrayList<>();
+			for (String mapping : randomMappings(random, 1 + random.nextInt(120)).keySet()) {
+				if (mapping.endsWith("/*")) {
+					wildcard.add(new MappedWrapper(mapping.substring(0, mapping.length() - 2), null, false));
+				} else if (mapping.isEmpty()) {
+					exact.add(new MappedWrapper("/", null, false));
+				} else if (!mapping.equals("/")) {
+					exact.add(new MappedWrapper(mapping, null, false));
+				}
+			}
+			MappedWrapper[] exactWrappers = exact.toArray(new MappedWrapper[0]);
+			MappedWrapper[] wildcardWrappers = wildcard.toArray(new MappedWrapper[0]);
+			WrapperTree tree = WrapperTree.build(exactWrappers, wildcardWrappers);
+
+			for (int i = 0; i < 300; i++) {
+				String path = randomPath(random);
+				CharChunk chunk = chunk(path);
+				assertSame(path, linearExact(exactWrappers, path), tree.findExact(chunk));
+				assertSame(path, linearWildcard(wildcardWrappers, path), tree.findWildcard(chunk));
+			}
+		}
+	}
+
+	@Test
+	public void testMapperWithWrapperTree() throws Exception {
+		assertMapperMatchesReference(new Random(1), WRAPPER_TREE_THRESHOLD, 200);
+	}
+
+	@Test
+	public void testMapperWithArrays() throws Exception {
+		assertMapperMatchesReference(new Random(2), 1, WRAPPER_TREE_THRESHOLD / 2);
+	}
+
+
+	/**
+	 * 通过 {@link Mapper#map(Context, MessageBytes, MappingData) } 映射随机请求路径，与按 Servlet 规范逐个比较的结果对比
+	 *
+	 * @param minWrappers - 全值匹配与通配符匹配的最少映射数
+	 * @param maxWrappers - 全值匹配与通配符匹配的最多映射数
+	 */
+	private static void assertMapperMatchesReference(Random random, int minWrappers, int maxWrappers) throws Exception {
+		for (int round = 0; round < 20; round++) {
+			Map<String, Wrapper> mappings;
+			int count;
+			do {
+				mappings = randomMappings(random, maxWrappers);
+				count = 0;
+				for (String mapping : mappings.keySet()) {
+					if (!mapping.equals("/")) {
+						count++;
+					}
+				}
+			} while (count < minWrappers || count > maxWrappers);
+
+			List<WrapperMappingInfo> infos = new ArrayList<>();
+			for (Map.Entry<String, Wrapper> entry : mappings.entrySet()) {
+				infos.add(new WrapperMappingInfo(entry.getKey(), entry.getValue(), false));
+			}
+			Context context = proxy(Context.class, "context");
+			Mapper mapper = new Mapper();
+			mapper.addContextVersion("localhost", null, CONTEXT_PATH, "0", context, new String[0], null, infos);
+
+			for (int i = 0; i < 300; i++) {
+				String servletPath = randomPath(random);
+				String uri = CONTEXT_PATH + servletPath;
+				MessageBytes uriMB = MessageBytes.newInstance();
+				char[] chars = uri.toCharArray();
+				uriMB.setChars(chars, 0, chars.length);
+				MappingData mappingData = new MappingData();
+				mapper.map(context, uriMB, mappingData);
+
+				Expected expected = reference(mappings, servletPath);
+				String message = uri + " (" + count + " 个映射)";
+				assertSame(message, expected.wrapper, mappingData.wrapper);
+				assertEquals(message, expected.matchType, mappingData.matchType);
+				if (expected.wrapper != null) {
+					assertEquals(message, expected.wrapperPath, string(mappingData.wrapperPath));
+					assertEquals(message, expected.pathInfo, string(mappingData.pathInfo));
+				}
+			}
+		}
+	}
+
+	/**
+	 * 按 Servlet 规范的顺序逐个比较映射：全值匹配(含 Context 根)、最长的通配符匹配、默认 Servlet
+	 */
+	private static Expected reference(Map<String, Wrapper> mappings, String servletPath) {
+		Expected expected = new Expected();
+		for (Map.Entry<String, Wrapper> entry : mappings.entrySet()) {
+			String mapping = entry.getKey();
+			if (mapping.isEmpty() && servletPath.equals("/")) {
+				expected.set(entry.getValue(), MappingMatch.CONTEXT_ROOT, "", "/");
+				return expected;
+			}
+			if (!mapping.isEmpty() && !mapping.equals("/") && !mapping.endsWith("/*") && mapping.equals(servletPath)) {
+				expected.set(entry.getValue(), MappingMatch.EXACT, mapping, null);
+				return expected;
+			}
+		}
+
+		String longest = null;
+		for (String mapping : mappings.keySet()) {
+			if (mapping.endsWith("/*")) {
+				String prefix = mapping.substring(0, mapping.length() - 2);
+				if (matchesPrefix(prefix, servletPath) && (longest == null || prefix.length() > longest.length())) {
+					longest = prefix;
+				}
+			}
+		}
+		if (longest != null) {
+			String pathInfo = servletPath.length() > longest.length() ? servletPath.substring(longest.length()) : null;
+			expected.set(mappings.get(longest + "/*"), MappingMatch.PATH, longest, pathInfo);
+			return expected;
+		}
+
+		Wrapper defaultWrapper = mappings.get("/");
+		if (defaultWrapper != null) {
+			expected.set(defaultWrapper, MappingMatch.DEFAULT, servletPath, null);
+		}
+		return expected;
+	}
+
+	private static MappedWrapper linearExact(MappedWrapper[] wrappers, String path) {
+		for (MappedWrapper wrapper : wrappers) {
+			if (wrapper.name.equals(path)) {
+				return wrapper;
+			}
+		}
+		return null;
+	}
+
+	private static MappedWrapper linearWildcard(MappedWrapper[] wrappers, String path) {
+		MappedWrapper match = null;
+		for (MappedWrapper wrapper : wrappers) {
+			if (matchesPrefix(wrapper.name, path) && (match == null || wrapper.name.length() > match.name.length())) {
+				match = wrapper;
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * "/xxx/*" 匹配路径 "/xxx" 及所有以 "/xxx/" 开头的路径，"/*" 匹配所有路径
+	 */
+	private static boolean matchesPrefix(String prefix, String path) {
+		return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+	}
+
+	/**
+	 * 生成随机映射，包含全值匹配、通配符匹配、Context 根("")与默认 Servlet("/")映射
+	 */
+	private static Map<String, Wrapper> randomMappings(Random random, int maxWrappers) {
+		Map<String, Wrapper> mappings = new LinkedHashMap<>();
+		int n = 1 + random.nextInt(maxWrappers);
+		for (int i = 0; i < n; i++) {
+			String path = randomMappingPath(random);
+			String mapping;
+			switch (random.nextInt(10)) {
+				case 0:
+					mapping = random.nextBoolean() ? "" : "/";
+					break;
+				case 1:
+					mapping = "/*";
+					break;
+				default:
+					mapping = random.nextBoolean() ? path : path + "/*";
+			}
+			if (!mappings.containsKey(mapping)) {
+				mappings.put(mapping, proxy(Wrapper.class, mapping));
+			}
+		}
+		return mappings;
+	}
+
+	private static String randomMappingPath(Random random) {
+		StringBuilder path = new StringBuilder();
+		int depth = 1 + random.nextInt(3);
+		for (int i = 0; i < depth; i++) {
+			path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+		}
+		return path.toString();
+	}
+
+	/**
+	 * 生成随机的 Servlet 路径，包含空路径、"/"、末尾的 "/" 以及空路径段
+	 */
+	private static String randomPath(Random random) {
+		switch (random.nextInt(12)) {
+			case 0:
+				return "";
+			case 1:
+				return "/";
+			default:
+		}
+		StringBuilder path = new StringBuilder();
+		int depth = 1 + random.nextInt(4);
+		for (int i = 0; i < depth; i++) {
+			path.append('/');
+			if (random.nextInt(6) == 0) {
+				path.append(EXTRA_SEGMENTS[random.nextInt(EXTRA_SEGMENTS.length)]);
+			} else {
+				path.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+			}
+		}
+		if (random.nextInt(8) == 0) {
+			path.append('/');
+		}
+		return path.toString();
+	}
+
+	/**
+	 * 以较大数组的中间部分创建字符块，确保匹配只比较块的内容
+	 */
+	private static CharChunk chunk(String path) {
+		char[] buf = ("###" + path + "###").toCharArray();
+		CharChunk chunk = new CharChunk();
+		chunk.setChars(buf, 3, path.length());
+		return chunk;
+	}
+
+	private static String string(MessageBytes mb) {
+		return mb.isNull() ? null : mb.toString();
+	}
+
+	/**
+	 * 创建接口的空实现，方法返回默认值，对象以同一性比较
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, final String name) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return type.getSimpleName() + "[" + name + "]";
+				default:
+			}
+			Class<?> returnType = method.getReturnType();
+			if (returnType == boolean.class) {
+				return false;
+			} else if (returnType == int.class) {
+				return 0;
+			} else if (returnType == long.class) {
+				return 0L;
+			}
+			return null;
+		};
+		return (T) Proxy.newProxyInstance(WrapperTreeTest.class.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+
+	private static final class Expected {
+		Wrapper wrapper;
+		MappingMatch matchType;
+		String wrapperPath;
+		String pathInfo;
+
+		void set(Wrapper wrapper, MappingMatch matchType, String wrapperPath, String pathInfo) {
+			assertTrue(wrapper != null);
+			this.wrapper = wrapper;
+			this.matchType = matchType;
+			this.wrapperPath = wrapperPath;
+			this.pathInfo = pathInfo;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.zy.moonstone.core.servlets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.zy.moonstone.core.servlets.DefaultServlet.Range;
+
+/**
+ * @dateTime 2023年1月11日;
+ * @author zy(azurite-Y);
+ * @description {@link DefaultServlet } 范围请求解析测试，重叠与相邻的范围应被合并，范围过多时输出完整资源，
+ * 不同内容编码的表示使用各不相同的 ETag
+ */
+public class DefaultServletRangeTest {
+	private static final long FILE_LENGTH = 1000;
+
+	private static final int MAX_RANGES = 16;
+
+
+	@Test
+	public void testSingleRange() {
+		assertRanges("0-99", "0-99");
+		assertRanges("900-", "900-999");
+		assertRanges("-100", "900-999");
+		assertRanges("990-2000", "990-999");
+	}
+
+	@Test
+	public void testDisjointRangesAreSorted() {
+		assertRanges("500-599, 0-99", "0-99", "500-599");
+	}
+
+	@Test
+	public void testOverlappingRanges() {
+		assertRanges("0-99,50-149", "0-149");
+		assertRanges("100-199,0-499", "0-499");
+		assertRanges("0-,0-,0-,0-", "0-999");
+		assertRanges("-500,0-", "0-999");
+	}
+
+	@Test
+	public void testAdjacentRanges() {
+		assertRanges("0-99,100-199", "0-199");
+		assertRanges("200-299,0-99,100-199", "0-299");
+		// 相隔一个字节的范围不相邻
+		assertRanges("0-99,101-199", "0-99", "101-199");
+	}
+
+	@Test
+	public void testExcessiveRanges() {
+		StringBuilder rangeSet = new StringBuilder();
+		for (int i = 0; i <= MAX_RANGES; i++) {
+			if (i > 0) {
+				rangeSet.append(',');
+			}
+			rangeSet.append(i * 10).append('-').append(i * 10 + 1);
+		}
+		assertNull(DefaultServlet.parseRanges(rangeSet.toString(), FILE_LENGTH, MAX_RANGES));
+	}
+
+	@Test
+	public void testManyDuplicateRangesAreMerged() {
+		StringBuilder rangeSet = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			if (i > 0) {
+				rangeSet.append(',');
+			}
+			rangeSet.append("0-");
+		}
+		assertRanges(rangeSet.toString(), "0-999");
+	}
+
+	@Test
+	public void testUnsatisfiableRanges() {
+		List<Range> ranges = DefaultServlet.parseRanges("1000-1100,2000-", FILE_LENGTH, MAX_RANGES);
+		assertTrue(ranges != null && ranges.isEmpty());
+	}
+
+	@Test
+	public void testInvalidRanges() {
+		assertNull(DefaultServlet.parseRanges("abc", FILE_LENGTH, MAX_RANGES));
+		assertNull(DefaultServlet.parseRanges("100-50", FILE_LENGTH, MAX_RANGES));
+		assertNull(DefaultServlet.parseRanges("0-99,x-", FILE_LENGTH, MAX_RANGES));
+		assertNull(DefaultServlet.parseRanges(" , ", FILE_LENGTH, MAX_RANGES));
+	}
+
+	@Test
+	public void testEncodedRepresentationETags() {
+		String eTag = "\"1000-1673481600000\"";
+		String gzipETag = DefaultServlet.encodedETag(eTag, "gzip");
+		assertEquals("\"1000-1673481600000-gzip\"", gzipETag);
+		assertEquals("W/\"1000-gzip\"", DefaultServlet.encodedETag("W/\"1000\"", "gzip"));
+		assertEquals(eTag, DefaultServlet.encodedETag(eTag, null));
+
+		// 按一种编码取得的部分内容不能用另一种编码的表示续传
+		assertFalse(matchIfRange(eTag, gzipETag));
+		assertFalse(matchIfRange(gzipETag, eTag));
+		assertFalse(matchIfRange(gzipETag, DefaultServlet.encodedETag(eTag, "br")));
+		assertTrue(matchIfRange(gzipETag, DefaultServlet.encodedETag(eTag, "gzip")));
+	}
+
+
+	private static boolean matchIfRange(String ifRange, String eTag) {
+		return DefaultServlet.matchEntityTag(Collections.enumeration(Collections.singletonList(ifRange)), eTag, false);
+	}
+
+	private static void assertRanges(String rangeSet, String... expected) {
+		List<Range> ranges = DefaultServlet.parseRanges(rangeSet, FILE_LENGTH, MAX_RANGES);
+		assertEquals(rangeSet, expected.length, ranges.size());
+		for (int i = 0; i < expected.length; i++) {
+			Range range = ranges.get(i);
+			assertEquals(rangeSet, expected[i], range.start + "-" + range.end);
+		}
+	}
+}